@@ -0,0 +1,307 @@
+package cn.darkjrong.minio;
+
+import cn.darkjrong.minio.domain.ListObjectParam;
+import cn.darkjrong.minio.domain.RemoveObject;
+import cn.darkjrong.minio.exceptions.MinioException;
+import cn.darkjrong.spring.boot.autoconfigure.MinioProperties;
+import io.minio.StatObjectResponse;
+import io.minio.messages.Item;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * minio 异步操作
+ *
+ * <p>
+ * 与{@link MinioTemplate}的操作一一对应, 共享其默认bucket与日期文件夹命名规则, 结果以{@link CompletableFuture}返回.
+ * 操作在独立的有界线程池中执行, 队列满时返回异常完成的 future, 不会阻塞调用方
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/03/28 09:47:31
+ */
+public class AsyncMinioTemplate {
+
+    private final MinioTemplate minioTemplate;
+    private final ExecutorService executor;
+
+    public AsyncMinioTemplate(MinioTemplate minioTemplate, MinioProperties minioProperties) {
+        this.minioTemplate = minioTemplate;
+        this.executor = MinioUtils.newExecutor(minioProperties.getAsyncExecutor(), "minio-async-", new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 获取同步操作
+     *
+     * @return {@link MinioTemplate}
+     */
+    public MinioTemplate getMinioTemplate() {
+        return minioTemplate;
+    }
+
+    /**
+     * 关闭异步线程池
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 获取对象信息
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @return {@link CompletableFuture<StatObjectResponse>}
+     */
+    public CompletableFuture<StatObjectResponse> statObject(String bucketName, String objectName) {
+        return supply(() -> minioTemplate.statObject(bucketName, objectName));
+    }
+
+    /**
+     * 获取对象信息
+     *
+     * @param objectName 对象名称
+     * @return {@link CompletableFuture<StatObjectResponse>}
+     */
+    public CompletableFuture<StatObjectResponse> statObject(String objectName) {
+        return supply(() -> minioTemplate.statObject(objectName));
+    }
+
+    /**
+     * 获取对象
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @return {@link CompletableFuture<byte[]>} 对象字节数组
+     */
+    public CompletableFuture<byte[]> getObject(String bucketName, String objectName) {
+        return supply(() -> minioTemplate.getObject(bucketName, objectName));
+    }
+
+    /**
+     * 获取对象
+     *
+     * @param objectName 对象名称
+     * @return {@link CompletableFuture<byte[]>} 对象字节数组
+     */
+    public CompletableFuture<byte[]> getObject(String objectName) {
+        return supply(() -> minioTemplate.getObject(objectName));
+    }
+
+    /**
+     * 获取对象, 写入输出流
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @param out        输出流, 不会被关闭
+     * @return {@link CompletableFuture<Long>} 写入的字节数
+     */
+    public CompletableFuture<Long> getObject(String bucketName, String objectName, OutputStream out) {
+        return supply(() -> minioTemplate.getObject(bucketName, objectName, out));
+    }
+
+    /**
+     * 下载对象
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @param fileName   文件全限定路径名
+     * @return {@link CompletableFuture<Void>}
+     */
+    public CompletableFuture<Void> downloadObject(String bucketName, String objectName, String fileName) {
+        return supply(() -> {
+            minioTemplate.downloadObject(bucketName, objectName, fileName);
+            return null;
+        });
+    }
+
+    /**
+     * 上传对象
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  对象名称
+     * @param file        文件, 上传完成后关闭
+     * @param contentType 内容类型
+     * @return {@link CompletableFuture<String>} 上传对象名
+     */
+    public CompletableFuture<String> putObject(String bucketName, String objectName, InputStream file, String contentType) {
+        return supply(() -> minioTemplate.putObject(bucketName, objectName, file, contentType));
+    }
+
+    /**
+     * 上传对象
+     *
+     * @param objectName  对象名称
+     * @param file        文件, 上传完成后关闭
+     * @param contentType 内容类型
+     * @return {@link CompletableFuture<String>} 上传对象名
+     */
+    public CompletableFuture<String> putObject(String objectName, InputStream file, String contentType) {
+        return supply(() -> minioTemplate.putObject(objectName, file, contentType));
+    }
+
+    /**
+     * 上传已知长度的对象
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  对象名称
+     * @param file        文件, 上传完成后关闭
+     * @param size        长度, 单位为字节, 未知时小于0
+     * @param contentType 内容类型
+     * @return {@link CompletableFuture<String>} 上传对象名
+     */
+    public CompletableFuture<String> putObject(String bucketName, String objectName, InputStream file, long size, String contentType) {
+        return supply(() -> minioTemplate.putObject(bucketName, objectName, file, size, contentType));
+    }
+
+    /**
+     * 上传对象
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @param file       文件
+     * @return {@link CompletableFuture<String>} 上传对象名
+     */
+    public CompletableFuture<String> putObject(String bucketName, String objectName, byte[] file) {
+        return supply(() -> minioTemplate.putObject(bucketName, objectName, file));
+    }
+
+    /**
+     * 上传对象
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  对象名称
+     * @param file        文件
+     * @param contentType 内容类型
+     * @return {@link CompletableFuture<String>} 文件名
+     */
+    public CompletableFuture<String> putObject(String bucketName, String objectName, File file, String contentType) {
+        return supply(() -> minioTemplate.putObject(bucketName, objectName, file, contentType));
+    }
+
+    /**
+     * 上传对象
+     *
+     * @param file 文件
+     * @return {@link CompletableFuture<String>} 文件名
+     */
+    public CompletableFuture<String> putObject(File file) {
+        return supply(() -> minioTemplate.putObject(file));
+    }
+
+    /**
+     * 复制对象
+     *
+     * @param srcBucketName    源bucket名称
+     * @param targetBucketName 目标bucket 名称
+     * @param srcObjectName    源对象名称
+     * @param targetObjectName 目标对象的名字
+     * @return {@link CompletableFuture<String>} 目标对象名
+     */
+    public CompletableFuture<String> copyObject(String srcBucketName, String targetBucketName,
+                                                String srcObjectName, String targetObjectName) {
+        return supply(() -> minioTemplate.copyObject(srcBucketName, targetBucketName, srcObjectName, targetObjectName));
+    }
+
+    /**
+     * 复制对象
+     *
+     * @param objectName 对象名称
+     * @return {@link CompletableFuture<String>} 目标对象名
+     */
+    public CompletableFuture<String> copyObject(String objectName) {
+        return supply(() -> minioTemplate.copyObject(objectName));
+    }
+
+    /**
+     * 删除对象
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @return {@link CompletableFuture<Boolean>} 是否成功
+     */
+    public CompletableFuture<Boolean> removeObject(String bucketName, String objectName) {
+        return supply(() -> minioTemplate.removeObject(bucketName, objectName));
+    }
+
+    /**
+     * 删除对象
+     *
+     * @param objectName 对象名称
+     * @return {@link CompletableFuture<Boolean>} 是否成功
+     */
+    public CompletableFuture<Boolean> removeObject(String objectName) {
+        return supply(() -> minioTemplate.removeObject(objectName));
+    }
+
+    /**
+     * 删除对象
+     *
+     * @param removeObjects 删除对象集合
+     * @return {@link CompletableFuture<List<RemoveObject>>} 失败列表
+     */
+    public CompletableFuture<List<RemoveObject>> removeObject(List<RemoveObject> removeObjects) {
+        return supply(() -> minioTemplate.removeObject(removeObjects));
+    }
+
+    /**
+     * 列表对象信息
+     *
+     * @param listObjectParam 列表对象参数
+     * @return {@link CompletableFuture<List<Item>>} 对象信息
+     */
+    public CompletableFuture<List<Item>> listObjects(ListObjectParam listObjectParam) {
+        return supply(() -> minioTemplate.listObjects(listObjectParam));
+    }
+
+    /**
+     * 获得对象url
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @param duration   超时时长
+     * @param unit       单位
+     * @return {@link CompletableFuture<String>} 对象url
+     */
+    public CompletableFuture<String> getObjectUrl(String bucketName, String objectName, int duration, TimeUnit unit) {
+        return supply(() -> minioTemplate.getObjectUrl(bucketName, objectName, duration, unit));
+    }
+
+    /**
+     * 获得对象url
+     *
+     * @param objectName 对象名称
+     * @return {@link CompletableFuture<String>} 对象url
+     */
+    public CompletableFuture<String> getObjectUrl(String objectName) {
+        return supply(() -> minioTemplate.getObjectUrl(objectName));
+    }
+
+    /**
+     * 提交异步任务
+     *
+     * @param supplier 任务
+     * @param <T>      结果类型
+     * @return {@link CompletableFuture<T>}
+     */
+    private <T> CompletableFuture<T> supply(Supplier<T> supplier) {
+        try {
+            return CompletableFuture.supplyAsync(supplier, executor);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(new MinioException("异步任务队列已满", e));
+            return future;
+        }
+    }
+
+
+}
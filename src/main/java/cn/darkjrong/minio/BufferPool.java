@@ -0,0 +1,75 @@
+package cn.darkjrong.minio;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 缓冲区池
+ *
+ * <p>
+ * 缓冲区按需创建, 总数不超过上限; 池耗尽时获取方阻塞等待, 以此限制分片暂存的内存占用
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/03/25 09:40:18
+ */
+class BufferPool {
+
+    private final int bufferSize;
+    private final int maxBuffers;
+    private final AtomicInteger allocated = new AtomicInteger();
+    private final BlockingQueue<byte[]> buffers = new LinkedBlockingQueue<>();
+
+    BufferPool(int bufferSize, int maxBuffers) {
+        this.bufferSize = bufferSize;
+        this.maxBuffers = maxBuffers;
+    }
+
+    /**
+     * 获取缓冲区
+     *
+     * @return {@link byte[]} 缓冲区
+     * @throws InterruptedException 中断异常
+     */
+    byte[] acquire() throws InterruptedException {
+        byte[] buffer = buffers.poll();
+        if (buffer != null) return buffer;
+
+        for (int count = allocated.get(); count < maxBuffers; count = allocated.get()) {
+            if (allocated.compareAndSet(count, count + 1)) {
+                return new byte[bufferSize];
+            }
+        }
+        return buffers.take();
+    }
+
+    /**
+     * 归还缓冲区
+     *
+     * @param buffer 缓冲区
+     */
+    void release(byte[] buffer) {
+        if (buffer != null) buffers.offer(buffer);
+    }
+
+    /**
+     * 可立即获取的缓冲区数, 包括已归还的与尚未创建的
+     *
+     * @return int 缓冲区数
+     */
+    int available() {
+        return buffers.size() + maxBuffers - allocated.get();
+    }
+
+    /**
+     * 获取缓冲区大小
+     *
+     * @return int 缓冲区大小
+     */
+    int getBufferSize() {
+        return bufferSize;
+    }
+
+
+}
@@ -0,0 +1,162 @@
+package cn.darkjrong.minio;
+
+import cn.darkjrong.minio.domain.RemoveObject;
+import cn.darkjrong.minio.exceptions.MinioException;
+import cn.darkjrong.spring.boot.autoconfigure.MinioProperties;
+import cn.hutool.core.util.StrUtil;
+import io.minio.MinioClient;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 批量删除引擎
+ *
+ * <p>
+ * 将待删除对象按批次(单批最多1000个)提交, 多个批次并发执行; 边读取边删除, 不会一次加载全部对象.
+ * 返回每一个删除失败的对象及其错误码
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/01 10:26:48
+ */
+class BulkRemover {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkRemover.class);
+
+    static final int MAX_BATCH_SIZE = 1000;
+
+    private final MinioClient minioClient;
+    private final ExecutorService executor;
+    private final int batchSize;
+    private final int concurrency;
+
+    BulkRemover(MinioClient minioClient, ExecutorService executor, MinioProperties.Remove remove) {
+        this.minioClient = minioClient;
+        this.executor = executor;
+        this.batchSize = Math.min(MAX_BATCH_SIZE, Math.max(1, remove.getBatchSize()));
+        this.concurrency = Math.max(1, remove.getConcurrency());
+    }
+
+    /**
+     * 批量删除对象
+     *
+     * @param bucketName bucket名称
+     * @param objects    待删除对象
+     * @param listener   进度监听, 可为空
+     * @return {@link List<RemoveObject>} 失败列表
+     */
+    List<RemoveObject> remove(String bucketName, Iterator<RemoveObject> objects, ProgressListener listener) {
+
+        Queue<RemoveObject> failures = new ConcurrentLinkedQueue<>();
+        Semaphore permits = new Semaphore(concurrency);
+        AtomicLong completed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+
+        try {
+            try {
+                while (objects.hasNext()) {
+                    List<RemoveObject> batch = new ArrayList<>(batchSize);
+                    while (batch.size() < batchSize && objects.hasNext()) {
+                        batch.add(objects.next());
+                    }
+
+                    permits.acquire();
+                    try {
+                        executor.execute(() -> {
+                            try {
+                                int batchFailed = this.removeBatch(bucketName, batch, failures);
+                                long count = completed.addAndGet(batch.size());
+                                long failedCount = failed.addAndGet(batchFailed);
+                                if (listener != null) listener.onProgress(count, failedCount);
+                            } finally {
+                                permits.release();
+                            }
+                        });
+                    } catch (RuntimeException e) {
+                        permits.release();
+                        throw e;
+                    }
+                }
+            } finally {
+                // 等待进行中的批次全部结束
+                permits.acquire(concurrency);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MinioException("批量删除对象被中断", e);
+        }
+
+        return new ArrayList<>(failures);
+    }
+
+    /**
+     * 删除一个批次, 失败的对象放入失败队列
+     *
+     * @return 本批次失败的对象数
+     */
+    private int removeBatch(String bucketName, List<RemoveObject> batch, Queue<RemoveObject> failures) {
+
+        int failed = 0;
+
+        Map<String, RemoveObject> removeObjectMap = new HashMap<>(batch.size() * 2);
+        batch.forEach(a -> removeObjectMap.putIfAbsent(a.getObjectName(), a));
+
+        List<DeleteObject> deleteObjects = batch.stream()
+                .map(a -> StrUtil.isBlank(a.getVersionId())
+                        ? new DeleteObject(a.getObjectName())
+                        : new DeleteObject(a.getObjectName(), a.getVersionId()))
+                .collect(Collectors.toList());
+
+        RemoveObjectsArgs removeObjectsArgs = RemoveObjectsArgs.builder()
+                .objects(deleteObjects)
+                .bucket(bucketName)
+                .build();
+
+        try {
+            for (Result<DeleteError> result : minioClient.removeObjects(removeObjectsArgs)) {
+                DeleteError deleteError = result.get();
+                logger.error("Error in deleting object {}; {}", deleteError.objectName(), deleteError.message());
+
+                RemoveObject source = removeObjectMap.get(deleteError.objectName());
+                RemoveObject failure = new RemoveObject(bucketName, deleteError.objectName(),
+                        source == null ? null : source.getVersionId());
+                failure.setErrorCode(deleteError.code());
+                failure.setErrorMessage(deleteError.message());
+                failures.add(failure);
+                failed++;
+            }
+        } catch (Exception e) {
+            logger.error("批量删除对象异常 {}", e.getMessage());
+            String errorCode = e instanceof ErrorResponseException
+                    ? ((ErrorResponseException) e).errorResponse().code()
+                    : e.getClass().getSimpleName();
+            for (RemoveObject removeObject : batch) {
+                RemoveObject failure = new RemoveObject(bucketName, removeObject.getObjectName(), removeObject.getVersionId());
+                failure.setErrorCode(errorCode);
+                failure.setErrorMessage(e.getMessage());
+                failures.add(failure);
+            }
+            failed = batch.size();
+        }
+        return failed;
+    }
+
+
+}
@@ -0,0 +1,167 @@
+package cn.darkjrong.minio;
+
+import cn.darkjrong.minio.domain.BulkheadStats;
+import cn.darkjrong.minio.enums.BulkheadOperation;
+import cn.darkjrong.minio.exceptions.BulkheadFullException;
+import cn.darkjrong.spring.boot.autoconfigure.MinioProperties;
+import cn.hutool.core.util.StrUtil;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 隔离舱拦截器
+ *
+ * <p>
+ * 按操作类型限制同时进行的请求数, 各类型的许可相互独立, 大量列举或写入不会占满读取的并发.
+ * 许可在等待时间内未获得时抛出 {@link BulkheadFullException}; 有响应体时许可保持到响应体关闭, 覆盖下载的整个过程.
+ * 监听通知的长连接单独归为一类, 不占用列举的许可
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/08 11:20:46
+ */
+public class BulkheadInterceptor implements Interceptor {
+
+    private static final List<String> LIST_QUERIES = Arrays.asList("list-type", "uploads", "versions", "uploadId",
+            "prefix", "delimiter", "marker", "max-keys");
+    private static final String DELETE_QUERY = "delete";
+    private static final String EVENTS_QUERY = "events";
+
+    private final long maxWait;
+    private final Map<BulkheadOperation, Integer> maxConcurrent = new EnumMap<>(BulkheadOperation.class);
+    private final Map<BulkheadOperation, Semaphore> permits = new EnumMap<>(BulkheadOperation.class);
+    private final Map<BulkheadOperation, LongAdder> rejected = new EnumMap<>(BulkheadOperation.class);
+
+    public BulkheadInterceptor(MinioProperties.Bulkhead bulkhead) {
+        this.maxWait = Math.max(0L, bulkhead.getMaxWait());
+        for (BulkheadOperation operation : BulkheadOperation.values()) {
+            Integer concurrent = bulkhead.getMaxConcurrent().get(operation);
+            int permitCount = concurrent == null ? Integer.MAX_VALUE : Math.max(1, concurrent);
+            this.maxConcurrent.put(operation, permitCount);
+            this.permits.put(operation, new Semaphore(permitCount));
+            this.rejected.put(operation, new LongAdder());
+        }
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+
+        Request request = chain.request();
+        BulkheadOperation operation = classify(request);
+        Semaphore semaphore = permits.get(operation);
+
+        try {
+            if (!semaphore.tryAcquire(maxWait, TimeUnit.MILLISECONDS)) {
+                rejected.get(operation).increment();
+                throw new BulkheadFullException(StrUtil.format("{} 并发数已达上限 {}, 请求 {} {} 被拒绝",
+                        operation, maxConcurrent.get(operation), request.method(), request.url().encodedPath()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待并发许可被中断");
+        }
+
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException | RuntimeException e) {
+            semaphore.release();
+            throw e;
+        }
+        return releaseOnClose(response, semaphore);
+    }
+
+    /**
+     * 获取统计信息
+     *
+     * @param operation 操作类型
+     * @return {@link BulkheadStats}
+     */
+    public BulkheadStats getStats(BulkheadOperation operation) {
+        return new BulkheadStats(maxConcurrent.get(operation), permits.get(operation).availablePermits(),
+                rejected.get(operation).sum());
+    }
+
+    /**
+     * 判断请求的操作类型
+     *
+     * @param request 请求
+     * @return {@link BulkheadOperation} 操作类型
+     */
+    static BulkheadOperation classify(Request request) {
+        HttpUrl url = request.url();
+        switch (request.method()) {
+            case "GET":
+                if (url.queryParameterNames().contains(EVENTS_QUERY)) return BulkheadOperation.NOTIFICATION;
+                return isList(url) ? BulkheadOperation.LIST : BulkheadOperation.READ;
+            case "HEAD":
+                return BulkheadOperation.STAT;
+            case "DELETE":
+                return BulkheadOperation.DELETE;
+            case "POST":
+                return url.queryParameterNames().contains(DELETE_QUERY) ? BulkheadOperation.DELETE : BulkheadOperation.WRITE;
+            default:
+                return BulkheadOperation.WRITE;
+        }
+    }
+
+    /**
+     * 是否为列举请求: 带列举参数, 或不带参数地访问根路径(列举bucket)及bucket路径(列举对象)
+     */
+    private static boolean isList(HttpUrl url) {
+        Set<String> names = url.queryParameterNames();
+        for (String query : LIST_QUERIES) {
+            if (names.contains(query)) return true;
+        }
+        if (!names.isEmpty()) return false;
+
+        List<String> segments = url.pathSegments();
+        return segments.size() == 1 || (segments.size() == 2 && StrUtil.isEmpty(segments.get(1)));
+    }
+
+    /**
+     * 响应体关闭时归还许可, 没有响应体时立即归还
+     */
+    private static Response releaseOnClose(Response response, Semaphore semaphore) {
+        ResponseBody body = response.body();
+        if (body == null) {
+            semaphore.release();
+            return response;
+        }
+
+        AtomicBoolean released = new AtomicBoolean();
+        BufferedSource source = Okio.buffer(new ForwardingSource(body.source()) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    if (released.compareAndSet(Boolean.FALSE, Boolean.TRUE)) semaphore.release();
+                }
+            }
+        });
+        return response.newBuilder()
+                .body(ResponseBody.create(source, body.contentType(), body.contentLength()))
+                .build();
+    }
+
+
+}
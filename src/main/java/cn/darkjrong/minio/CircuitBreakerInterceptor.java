@@ -0,0 +1,227 @@
+package cn.darkjrong.minio;
+
+import cn.darkjrong.minio.enums.CircuitBreakerState;
+import cn.darkjrong.minio.exceptions.BulkheadFullException;
+import cn.darkjrong.minio.exceptions.CircuitBreakerOpenException;
+import cn.darkjrong.spring.boot.autoconfigure.MinioProperties;
+import cn.hutool.core.collection.CollectionUtil;
+import cn.hutool.core.util.StrUtil;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 熔断拦截器
+ *
+ * <p>
+ * 按服务端(可选按 bucket)维护熔断器: 最近若干次请求中失败比例达到阈值时打开, 打开期间请求直接失败,
+ * 抛出 {@link CircuitBreakerOpenException}; 经过等待时间后进入半开状态, 放行少量试探请求,
+ * 全部成功则关闭, 任一失败则重新打开. IO 异常与 500、502、503、504 响应记为失败, 其余响应说明服务端可用, 记为成功.
+ * 隔离舱拒绝与主动取消的请求不计入统计
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/08 10:12:54
+ */
+public class CircuitBreakerInterceptor implements Interceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreakerInterceptor.class);
+
+    private static final List<Integer> FAILURE_STATUS = Arrays.asList(500, 502, 503, 504);
+
+    private final boolean perBucket;
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final int windowSize;
+    private final long waitDuration;
+    private final int halfOpenCalls;
+
+    private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+
+    public CircuitBreakerInterceptor(MinioProperties.CircuitBreaker circuitBreaker) {
+        this.perBucket = circuitBreaker.isPerBucket();
+        this.failureRateThreshold = Math.max(1, Math.min(100, circuitBreaker.getFailureRateThreshold()));
+        this.windowSize = Math.max(1, circuitBreaker.getWindowSize());
+        this.minimumCalls = Math.max(1, Math.min(windowSize, circuitBreaker.getMinimumCalls()));
+        this.waitDuration = Math.max(0L, circuitBreaker.getWaitDuration());
+        this.halfOpenCalls = Math.max(1, circuitBreaker.getHalfOpenCalls());
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+
+        Request request = chain.request();
+        String key = this.key(request.url());
+        CircuitBreaker breaker = breakers.computeIfAbsent(key, k -> new CircuitBreaker());
+
+        long generation = breaker.tryAcquire();
+        if (generation < 0) {
+            rejected.increment();
+            throw new CircuitBreakerOpenException(StrUtil.format("熔断器 {} 已打开, 请求 {} {} 被拒绝",
+                    key, request.method(), request.url().encodedPath()));
+        }
+
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (BulkheadFullException e) {
+            breaker.onIgnored(generation);
+            throw e;
+        } catch (IOException e) {
+            if (chain.call().isCanceled()) {
+                breaker.onIgnored(generation);
+            } else {
+                breaker.onResult(key, generation, false);
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            breaker.onIgnored(generation);
+            throw e;
+        }
+
+        breaker.onResult(key, generation, !FAILURE_STATUS.contains(response.code()));
+        return response;
+    }
+
+    /**
+     * 获取各熔断器的状态
+     *
+     * @return {@link Map} 熔断器名称与状态, 名称为服务端地址, 按 bucket 熔断时附加 bucket 名称
+     */
+    public Map<String, CircuitBreakerState> getStates() {
+        Map<String, CircuitBreakerState> states = new TreeMap<>();
+        breakers.forEach((key, breaker) -> states.put(key, breaker.getState()));
+        return states;
+    }
+
+    /**
+     * 获取因熔断被拒绝的请求数
+     *
+     * @return {@link Long} 拒绝次数
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * 熔断器名称, 路径风格的请求以第一段路径为 bucket 名称
+     */
+    private String key(HttpUrl url) {
+        String key = url.scheme() + "://" + url.host() + StrUtil.COLON + url.port();
+        if (!perBucket) return key;
+
+        List<String> segments = url.pathSegments();
+        String bucketName = CollectionUtil.isEmpty(segments) ? null : segments.get(0);
+        return StrUtil.isEmpty(bucketName) ? key : key + StrUtil.SLASH + bucketName;
+    }
+
+    /**
+     * 熔断器
+     *
+     * <p>
+     * 每次状态变化递增代数, 请求结果只计入发起时所在的代, 避免状态变化前发出的请求影响新状态
+     * </p>
+     */
+    private class CircuitBreaker {
+
+        private final boolean[] window = new boolean[windowSize];
+        private int position;
+        private int calls;
+        private int failures;
+
+        private CircuitBreakerState state = CircuitBreakerState.CLOSED;
+        private long generation;
+        private long openedAt;
+        private int trials;
+        private int successes;
+
+        /**
+         * 获取许可
+         *
+         * @return 当前代数, 被拒绝时为-1
+         */
+        synchronized long tryAcquire() {
+            if (state == CircuitBreakerState.OPEN) {
+                if (System.currentTimeMillis() - openedAt < waitDuration) return -1;
+                this.transition(CircuitBreakerState.HALF_OPEN);
+            }
+            if (state == CircuitBreakerState.HALF_OPEN) {
+                if (trials >= halfOpenCalls) return -1;
+                trials++;
+            }
+            return generation;
+        }
+
+        /**
+         * 记录请求结果
+         */
+        synchronized void onResult(String key, long callGeneration, boolean success) {
+            if (callGeneration != generation) return;
+
+            if (state == CircuitBreakerState.HALF_OPEN) {
+                if (!success) {
+                    logger.warn("熔断器 {} 试探请求失败, 重新打开", key);
+                    this.transition(CircuitBreakerState.OPEN);
+                } else if (++successes >= halfOpenCalls) {
+                    logger.info("熔断器 {} 试探请求全部成功, 关闭", key);
+                    this.transition(CircuitBreakerState.CLOSED);
+                }
+                return;
+            }
+
+            if (calls == windowSize && !window[position]) failures--;
+            window[position] = success;
+            if (!success) failures++;
+            position = (position + 1) % windowSize;
+            calls = Math.min(calls + 1, windowSize);
+
+            if (calls >= minimumCalls && failures * 100 >= failureRateThreshold * calls) {
+                logger.warn("熔断器 {} 最近 {} 次请求失败 {} 次, 打开 {} 毫秒", key, calls, failures, waitDuration);
+                this.transition(CircuitBreakerState.OPEN);
+            }
+        }
+
+        /**
+         * 请求未计入统计, 半开状态下归还试探名额
+         */
+        synchronized void onIgnored(long callGeneration) {
+            if (callGeneration == generation && state == CircuitBreakerState.HALF_OPEN && trials > 0) trials--;
+        }
+
+        synchronized CircuitBreakerState getState() {
+            if (state == CircuitBreakerState.OPEN && System.currentTimeMillis() - openedAt >= waitDuration) {
+                return CircuitBreakerState.HALF_OPEN;
+            }
+            return state;
+        }
+
+        private void transition(CircuitBreakerState target) {
+            state = target;
+            generation++;
+            trials = 0;
+            successes = 0;
+            if (target == CircuitBreakerState.OPEN) openedAt = System.currentTimeMillis();
+            if (target == CircuitBreakerState.CLOSED) {
+                Arrays.fill(window, false);
+                position = 0;
+                calls = 0;
+                failures = 0;
+            }
+        }
+    }
+
+
+}
@@ -0,0 +1,226 @@
+package cn.darkjrong.minio;
+
+import cn.darkjrong.spring.boot.autoconfigure.MinioProperties;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.errors.ErrorResponseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 内容寻址上传
+ *
+ * <p>
+ * 以内容的 SHA-256 命名对象, 上传前以 statObject 判断同名对象是否存在, 存在则跳过传输直接返回对象名.
+ * 可选的本地哈希索引默认关闭; 开启后索引命中在有效期内不再请求服务端, 期间被本模板以外删除的对象会被误判为存在.
+ * 文件与字节数组预先计算哈希; 输入流在转存临时文件的同时增量计算哈希. 单请求上传可附带 If-None-Match 条件,
+ * 并发上传相同内容时服务端已存在的对象不会被覆盖. 相同名称的对象内容不变, 无需使读缓存失效
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/05 10:21:36
+ */
+class ContentAddressedUploader {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentAddressedUploader.class);
+
+    private static final List<String> NOT_FOUND_CODES = Arrays.asList("NoSuchKey", "NoSuchObject");
+    private static final String PRECONDITION_FAILED = "PreconditionFailed";
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final String ANY = "*";
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+    private static final String SHA256 = "SHA-256";
+    private static final String TEMP_PREFIX = "minio-dedup-";
+
+    private final ExtendedMinioClient minioClient;
+    private final MultipartUploader multipartUploader;
+    private final StatCache statCache;
+    private final TransferBufferPool bufferPool;
+    private final String prefix;
+    private final boolean conditionalPut;
+    private final long indexTtl;
+    private final ExpiringCache<Boolean> index;
+
+    ContentAddressedUploader(ExtendedMinioClient minioClient, MultipartUploader multipartUploader, StatCache statCache,
+                             TransferBufferPool bufferPool, MinioProperties.Dedup dedup) {
+        this.minioClient = minioClient;
+        this.multipartUploader = multipartUploader;
+        this.statCache = statCache;
+        this.bufferPool = bufferPool;
+        this.prefix = StrUtil.nullToEmpty(dedup.getPrefix());
+        this.conditionalPut = dedup.isConditionalPut();
+        this.indexTtl = dedup.getIndexTtl();
+        this.index = dedup.getIndexSize() > 0 ? new ExpiringCache<>(dedup.getIndexSize()) : null;
+    }
+
+    /**
+     * 上传字节数组
+     *
+     * @param bucketName  bucket名称
+     * @param data        字节数组
+     * @param extName     扩展名, 可为空
+     * @param contentType 内容类型
+     * @return {@link String} 对象名
+     * @throws Exception 异常
+     */
+    String upload(String bucketName, byte[] data, String extName, String contentType) throws Exception {
+        String objectName = this.getObjectName(DigestUtil.sha256Hex(data), extName);
+        if (this.exists(bucketName, objectName)) return objectName;
+
+        if (data.length < multipartUploader.getPartSize()) {
+            this.put(bucketName, objectName, data, data.length, contentType);
+        } else {
+            multipartUploader.upload(bucketName, objectName, data, contentType);
+        }
+        this.stored(bucketName, objectName);
+        return objectName;
+    }
+
+    /**
+     * 上传文件
+     *
+     * @param bucketName  bucket名称
+     * @param file        文件
+     * @param extName     扩展名, 可为空
+     * @param contentType 内容类型
+     * @return {@link String} 对象名
+     * @throws Exception 异常
+     */
+    String upload(String bucketName, File file, String extName, String contentType) throws Exception {
+        return this.upload(bucketName, file, DigestUtil.sha256Hex(file), extName, contentType);
+    }
+
+    /**
+     * 上传输入流
+     *
+     * <p>
+     * 输入流先转存为临时文件, 转存时增量计算哈希, 上传后删除临时文件; 输入流不会被关闭
+     * </p>
+     *
+     * @param bucketName  bucket名称
+     * @param in          输入流
+     * @param extName     扩展名, 可为空
+     * @param contentType 内容类型
+     * @return {@link String} 对象名
+     * @throws Exception 异常
+     */
+    String upload(String bucketName, InputStream in, String extName, String contentType) throws Exception {
+        File temp = FileUtil.file(FileUtil.getTmpDir(), TEMP_PREFIX + IdUtil.fastSimpleUUID());
+        try {
+            MessageDigest digest = MessageDigest.getInstance(SHA256);
+            try (OutputStream out = FileUtil.getOutputStream(temp)) {
+                bufferPool.copy(new DigestInputStream(in, digest), out);
+            }
+            return this.upload(bucketName, temp, HexUtil.encodeHexStr(digest.digest()), extName, contentType);
+        } finally {
+            FileUtil.del(temp);
+        }
+    }
+
+    /**
+     * 使对象的索引失效
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     */
+    void invalidate(String bucketName, String objectName) {
+        if (index != null) index.remove(key(bucketName, objectName));
+    }
+
+    /**
+     * 使前缀下对象的索引失效
+     *
+     * @param bucketName bucket名称
+     * @param prefix     前缀, 为空时使整个bucket失效
+     */
+    void invalidatePrefix(String bucketName, String prefix) {
+        if (index == null) return;
+
+        index.removePrefix(key(bucketName, StrUtil.nullToEmpty(prefix)));
+    }
+
+    private String upload(String bucketName, File file, String hash, String extName, String contentType) throws Exception {
+        String objectName = this.getObjectName(hash, extName);
+        if (this.exists(bucketName, objectName)) return objectName;
+
+        long length = file.length();
+        if (length < multipartUploader.getPartSize()) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                this.put(bucketName, objectName, raf, length, contentType);
+            }
+        } else {
+            multipartUploader.upload(bucketName, objectName, file, contentType);
+        }
+        this.stored(bucketName, objectName);
+        return objectName;
+    }
+
+    /**
+     * 以单个请求上传, 开启条件写入时服务端已存在同名对象视为成功
+     */
+    private void put(String bucketName, String objectName, Object data, long length, String contentType) throws Exception {
+        Multimap<String, String> headers = HashMultimap.create();
+        headers.put(CONTENT_TYPE, StrUtil.isBlank(contentType) ? DEFAULT_CONTENT_TYPE : contentType);
+        if (conditionalPut) headers.put(IF_NONE_MATCH, ANY);
+
+        try {
+            minioClient.putObject(bucketName, objectName, data, length, headers);
+        } catch (ErrorResponseException e) {
+            if (!PRECONDITION_FAILED.equals(e.errorResponse().code())) throw e;
+            logger.debug("对象 : {} 已由并发上传写入", objectName);
+        }
+    }
+
+    /**
+     * 判断对象是否存在, 开启本地索引时先查索引
+     */
+    private boolean exists(String bucketName, String objectName) throws Exception {
+        if (index != null && index.get(key(bucketName, objectName)) != null) return true;
+
+        try {
+            statCache.get(bucketName, objectName);
+        } catch (ErrorResponseException e) {
+            if (NOT_FOUND_CODES.contains(e.errorResponse().code())) return false;
+            throw e;
+        }
+        this.remember(bucketName, objectName);
+        return true;
+    }
+
+    /**
+     * 上传完成后清除对象不存在的缓存结果, 并记入索引
+     */
+    private void stored(String bucketName, String objectName) {
+        statCache.invalidate(bucketName, objectName);
+        this.remember(bucketName, objectName);
+    }
+
+    private void remember(String bucketName, String objectName) {
+        if (index != null) index.put(key(bucketName, objectName), Boolean.TRUE, indexTtl);
+    }
+
+    private String getObjectName(String hash, String extName) {
+        return StrUtil.isBlank(extName) ? prefix + hash : prefix + hash + StrUtil.DOT + extName;
+    }
+
+    private static String key(String bucketName, String objectName) {
+        return bucketName + StrUtil.SLASH + objectName;
+    }
+
+
+}
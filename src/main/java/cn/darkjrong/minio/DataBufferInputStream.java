@@ -0,0 +1,175 @@
+package cn.darkjrong.minio;
+
+import org.reactivestreams.Subscription;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+
+/**
+ * 数据缓冲区输入流
+ *
+ * <p>
+ * 订阅{@link DataBuffer}发布者并以输入流的形式读取; 读完一个缓冲区才请求下一个,
+ * 最多预取固定数量的缓冲区, 内存占用不随数据总量增长. 发布者发送超出请求数量的缓冲区或订阅被取消时,
+ * 取消订阅并使读取失败, 不会静默丢弃数据
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/03/29 15:02:44
+ */
+class DataBufferInputStream extends InputStream {
+
+    private static final Object COMPLETE = new Object();
+
+    private final BlockingQueue<Object> queue;
+    private final BufferSubscriber subscriber = new BufferSubscriber();
+    private final int prefetch;
+
+    private DataBuffer current;
+    private boolean finished;
+    private volatile boolean closed;
+    private volatile Throwable failure;
+
+    DataBufferInputStream(int prefetch) {
+        this.prefetch = prefetch;
+        this.queue = new ArrayBlockingQueue<>(prefetch + 1);
+    }
+
+    /**
+     * 获取订阅者
+     *
+     * @return {@link BaseSubscriber<DataBuffer>}
+     */
+    BaseSubscriber<DataBuffer> getSubscriber() {
+        return subscriber;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int read = read(single, 0, 1);
+        return read == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        DataBuffer buffer = next();
+        if (buffer == null) return -1;
+
+        int length = Math.min(len, buffer.readableByteCount());
+        buffer.read(b, off, length);
+        return length;
+    }
+
+    /**
+     * 取消订阅, 正在等待数据的读取立即失败; 可在其他线程调用, 缓冲区仍由读取方关闭流时释放
+     */
+    void cancel() {
+        this.fail(new CancellationException("订阅已取消"));
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        subscriber.dispose();
+        release(current);
+        current = null;
+        for (Object item = queue.poll(); item != null; item = queue.poll()) {
+            if (item instanceof DataBuffer) release((DataBuffer) item);
+        }
+    }
+
+    /**
+     * 获取下一个可读的缓冲区, 流结束时返回null
+     */
+    private DataBuffer next() throws IOException {
+        if (closed) throw new IOException("Stream closed");
+
+        while (current == null || current.readableByteCount() == 0) {
+            if (current != null) {
+                release(current);
+                current = null;
+                subscriber.request(1);
+            }
+            if (finished) return null;
+            if (failure != null) {
+                finished = true;
+                throw new IOException("Publisher failed", failure);
+            }
+
+            Object item;
+            try {
+                item = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for data");
+            }
+
+            if (item == COMPLETE) {
+                finished = true;
+                return null;
+            }
+            if (item instanceof Throwable) {
+                finished = true;
+                throw new IOException("Publisher failed", failure != null ? failure : (Throwable) item);
+            }
+            current = (DataBuffer) item;
+        }
+        return current;
+    }
+
+    /**
+     * 记录失败原因并取消订阅, 队列未满时放入异常以唤醒等待的读取; 队列已满时读取方取完后发现失败
+     */
+    private void fail(Throwable throwable) {
+        if (failure == null) failure = throwable;
+        subscriber.dispose();
+        queue.offer(throwable);
+    }
+
+    private static void release(DataBuffer buffer) {
+        if (buffer != null) DataBufferUtils.release(buffer);
+    }
+
+    /**
+     * 缓冲区订阅者
+     */
+    private class BufferSubscriber extends BaseSubscriber<DataBuffer> {
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            subscription.request(prefetch);
+        }
+
+        @Override
+        protected void hookOnNext(DataBuffer value) {
+            if (closed) {
+                release(value);
+            } else if (!queue.offer(value)) {
+                release(value);
+                fail(new IllegalStateException("发布者发送的数据块超出请求数量"));
+            }
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            queue.offer(COMPLETE);
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            queue.offer(throwable);
+        }
+    }
+
+
+}
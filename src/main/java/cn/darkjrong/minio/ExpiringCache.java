@@ -0,0 +1,143 @@
+package cn.darkjrong.minio;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带过期时间的并发缓存
+ *
+ * <p>
+ * 基于 {@link ConcurrentHashMap}, 每个条目有各自的过期时间, 读取不会延长有效期, 读取到过期条目时移除.
+ * 条目数超过上限时由一个线程先清除过期条目, 仍超出时按遍历顺序淘汰到上限的九成; 遍历是弱一致的, 与并发读写互不阻塞.
+ * 淘汰与过期计入淘汰次数, 主动移除不计入
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/14 15:08:26
+ */
+class ExpiringCache<V> {
+
+    private final int maxEntries;
+    private final ConcurrentMap<String, Entry<V>> map = new ConcurrentHashMap<>();
+    private final AtomicBoolean trimming = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    ExpiringCache(int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * 获取未过期的值
+     *
+     * @param key 键
+     * @return 值, 不存在或已过期时为空
+     */
+    V get(String key) {
+        Entry<V> entry = map.get(key);
+        if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+            if (map.remove(key, entry)) evictions.increment();
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * 放入值
+     *
+     * @param key   键
+     * @param value 值
+     * @param ttl   有效期, 单位为毫秒
+     */
+    void put(String key, V value, long ttl) {
+        map.put(key, new Entry<>(value, System.currentTimeMillis() + ttl));
+        if (map.size() > maxEntries) this.trim();
+    }
+
+    /**
+     * 移除
+     *
+     * @param key 键
+     */
+    void remove(String key) {
+        map.remove(key);
+    }
+
+    /**
+     * 移除前缀下的全部键
+     *
+     * @param prefix 前缀
+     */
+    void removePrefix(String prefix) {
+        map.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    long size() {
+        return map.size();
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * 清除过期条目, 仍超出上限时淘汰到上限的九成, 同一时间只有一个线程执行
+     */
+    private void trim() {
+        if (!trimming.compareAndSet(Boolean.FALSE, Boolean.TRUE)) return;
+        try {
+            long now = System.currentTimeMillis();
+            map.forEach((key, entry) -> {
+                if (entry.isExpired(now) && map.remove(key, entry)) evictions.increment();
+            });
+
+            int target = maxEntries - maxEntries / 10;
+            Iterator<Map.Entry<String, Entry<V>>> iterator = map.entrySet().iterator();
+            while (map.size() > target && iterator.hasNext()) {
+                Map.Entry<String, Entry<V>> eldest = iterator.next();
+                if (map.remove(eldest.getKey(), eldest.getValue())) evictions.increment();
+            }
+        } finally {
+            trimming.set(Boolean.FALSE);
+        }
+    }
+
+    /**
+     * 缓存条目, 不可变
+     */
+    private static class Entry<V> {
+
+        private final V value;
+        private final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+
+
+}
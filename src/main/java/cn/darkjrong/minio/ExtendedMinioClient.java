@@ -0,0 +1,161 @@
+package cn.darkjrong.minio;
+
+import com.google.common.collect.Multimap;
+import io.minio.*;
+import io.minio.messages.Part;
+
+/**
+ * minio 扩展客户端
+ *
+ * <p>
+ * 开放{@link MinioClient}中受保护的分片上传、分页列表接口
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/03/25 09:12:36
+ */
+class ExtendedMinioClient extends MinioClient {
+
+    static final String URL_ENCODING = "url";
+
+    ExtendedMinioClient(MinioClient client) {
+        super(client);
+    }
+
+    /**
+     * 创建分片上传
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @param headers    请求头
+     * @return {@link CreateMultipartUploadResponse}
+     * @throws Exception 异常
+     */
+    CreateMultipartUploadResponse createMultipartUpload(String bucketName, String objectName,
+                                                        Multimap<String, String> headers) throws Exception {
+        return super.createMultipartUpload(bucketName, null, objectName, headers, null);
+    }
+
+    /**
+     * 以确定的长度上传对象, 数据作为单个请求体发送
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @param data       对象数据, 支持 byte[], RandomAccessFile, InputStream
+     * @param length     数据长度
+     * @param headers    请求头
+     * @return {@link ObjectWriteResponse}
+     * @throws Exception 异常
+     */
+    ObjectWriteResponse putObject(String bucketName, String objectName, Object data, long length,
+                                  Multimap<String, String> headers) throws Exception {
+        return super.putObject(bucketName, null, objectName, data, length, headers, null);
+    }
+
+    /**
+     * 上传分片
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @param data       分片数据, 支持 byte[], RandomAccessFile, InputStream
+     * @param length     分片长度
+     * @param uploadId   上传ID
+     * @param partNumber 分片序号
+     * @return {@link UploadPartResponse}
+     * @throws Exception 异常
+     */
+    UploadPartResponse uploadPart(String bucketName, String objectName, Object data, long length,
+                                  String uploadId, int partNumber) throws Exception {
+        return super.uploadPart(bucketName, null, objectName, data, length, uploadId, partNumber, null, null);
+    }
+
+    /**
+     * 完成分片上传
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @param uploadId   上传ID
+     * @param parts      分片集合
+     * @return {@link ObjectWriteResponse}
+     * @throws Exception 异常
+     */
+    ObjectWriteResponse completeMultipartUpload(String bucketName, String objectName,
+                                                String uploadId, Part[] parts) throws Exception {
+        return super.completeMultipartUpload(bucketName, null, objectName, uploadId, parts, null, null);
+    }
+
+    /**
+     * 终止分片上传
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @param uploadId   上传ID
+     * @return {@link AbortMultipartUploadResponse}
+     * @throws Exception 异常
+     */
+    AbortMultipartUploadResponse abortMultipartUpload(String bucketName, String objectName,
+                                                      String uploadId) throws Exception {
+        return super.abortMultipartUpload(bucketName, null, objectName, uploadId, null, null);
+    }
+
+    /**
+     * 列出已上传的分片
+     *
+     * @param bucketName       bucket名称
+     * @param objectName       对象名称
+     * @param uploadId         上传ID
+     * @param partNumberMarker 从该分片序号之后开始
+     * @return {@link ListPartsResponse}
+     * @throws Exception 异常
+     */
+    ListPartsResponse listParts(String bucketName, String objectName, String uploadId,
+                                Integer partNumberMarker) throws Exception {
+        return super.listParts(bucketName, null, objectName, null, partNumberMarker, uploadId, null, null);
+    }
+
+    /**
+     * 列出一页未完成的分片上传
+     *
+     * @param bucketName     bucket名称
+     * @param keyMarker      从该对象之后开始
+     * @param uploadIdMarker 从该上传ID之后开始
+     * @return {@link ListMultipartUploadsResponse}
+     * @throws Exception 异常
+     */
+    ListMultipartUploadsResponse listMultipartUploads(String bucketName, String keyMarker,
+                                                      String uploadIdMarker) throws Exception {
+        return super.listMultipartUploads(bucketName, null, null, URL_ENCODING, keyMarker, null, null,
+                uploadIdMarker, null, null);
+    }
+
+    /**
+     * 获取bucket所在区域, 结果由客户端缓存
+     *
+     * @param bucketName bucket名称
+     * @return {@link String} 区域
+     * @throws Exception 异常
+     */
+    String getRegion(String bucketName) throws Exception {
+        return super.getRegion(bucketName, null);
+    }
+
+    /**
+     * 列出一页对象
+     *
+     * @param bucketName        bucket名称
+     * @param delimiter         分隔符, 为空时递归列出
+     * @param startAfter        从该对象之后开始
+     * @param maxKeys           每页最大数量
+     * @param prefix            前缀
+     * @param continuationToken 分页标记
+     * @return {@link ListObjectsV2Response}
+     * @throws Exception 异常
+     */
+    ListObjectsV2Response listObjectsV2(String bucketName, String delimiter, String startAfter, Integer maxKeys,
+                                        String prefix, String continuationToken) throws Exception {
+        return super.listObjectsV2(bucketName, null, delimiter, URL_ENCODING, startAfter, maxKeys, prefix,
+                continuationToken, false, false, null, null);
+    }
+
+
+}
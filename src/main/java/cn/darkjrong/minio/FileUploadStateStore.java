@@ -0,0 +1,100 @@
+package cn.darkjrong.minio;
+
+import cn.darkjrong.minio.domain.UploadState;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.SecureUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 本地文件上传状态存储
+ *
+ * <p>
+ * 每个状态保存为目录下的一个 JSON 文件, 文件名为状态键的 SHA-256; 先写临时文件再原子替换, 进程中断不会留下损坏的状态.
+ * 目录在首次保存状态时创建
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/06 09:46:55
+ */
+class FileUploadStateStore implements UploadStateStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileUploadStateStore.class);
+
+    private static final String FILE_SUFFIX = ".json";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String KEY = "key";
+    private static final String STATE = "state";
+
+    private final File dir;
+
+    FileUploadStateStore(String dir) {
+        this.dir = FileUtil.file(dir);
+    }
+
+    @Override
+    public UploadState load(String key) {
+        File file = this.getFile(key);
+        if (!file.exists()) return null;
+        return read(file).getBean(STATE, UploadState.class);
+    }
+
+    @Override
+    public void save(String key, UploadState state) {
+        File file = this.getFile(key);
+        File temp = FileUtil.file(dir, file.getName() + StrUtil.DOT + IdUtil.fastSimpleUUID() + TEMP_SUFFIX);
+        String json = JSONUtil.createObj().set(KEY, key).set(STATE, state).toString();
+        try {
+            FileUtil.mkdir(dir);
+            FileUtil.writeString(json, temp, StandardCharsets.UTF_8);
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            FileUtil.del(temp);
+            logger.error("保存上传状态 : {} 异常 {}", key, e.getMessage());
+            throw new IllegalStateException("保存上传状态异常", e);
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        FileUtil.del(this.getFile(key));
+    }
+
+    @Override
+    public Map<String, UploadState> loadAll() {
+        Map<String, UploadState> states = new HashMap<>();
+        File[] files = dir.listFiles((d, name) -> name.endsWith(FILE_SUFFIX));
+        if (files == null) return states;
+
+        for (File file : files) {
+            try {
+                JSONObject json = read(file);
+                states.put(json.getStr(KEY), json.getBean(STATE, UploadState.class));
+            } catch (Exception e) {
+                logger.warn("读取上传状态 : {} 异常 {}", file.getName(), e.getMessage());
+            }
+        }
+        return states;
+    }
+
+    private File getFile(String key) {
+        return FileUtil.file(dir, SecureUtil.sha256(key) + FILE_SUFFIX);
+    }
+
+    private static JSONObject read(File file) {
+        return JSONUtil.parseObj(FileUtil.readString(file, StandardCharsets.UTF_8));
+    }
+
+
+}
@@ -0,0 +1,214 @@
+package cn.darkjrong.minio;
+
+import cn.darkjrong.minio.domain.HttpClientStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP 客户端指标
+ *
+ * <p>
+ * 以 OkHttp {@link EventListener} 记录 HTTP 层的耗时: 获取新连接、DNS 解析、建立连接、TLS 握手及首字节时间,
+ * 并统计新建与复用的连接数; 另以仪表盘发布连接池的空闲、活动连接数.
+ * minio 客户端同步执行请求, 不经过 OkHttp 调度器, 因此不发布调度器状态.
+ * 指标名称前缀为 minio.metric-name + .http, 绑定注册表之前不记录任何事件
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/10 10:08:52
+ */
+public class HttpClientMetrics implements EventListener.Factory {
+
+    private final String name;
+
+    private volatile OkHttpClient httpClient;
+    private volatile Meters meters;
+
+    public HttpClientMetrics(String metricName) {
+        this.name = metricName + ".http";
+    }
+
+    /**
+     * 关联 HTTP 客户端, 用于发布连接池的状态
+     *
+     * @param httpClient HTTP 客户端
+     */
+    public void bindClient(OkHttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * 绑定注册表
+     *
+     * @param registry 注册表
+     */
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(name + ".pool.idle", this, a -> a.httpClient == null ? 0 : a.httpClient.connectionPool().idleConnectionCount())
+                .register(registry);
+
+        Gauge.builder(name + ".pool.active", this, a -> a.httpClient == null ? 0
+                        : a.httpClient.connectionPool().connectionCount() - a.httpClient.connectionPool().idleConnectionCount())
+                .register(registry);
+
+        this.meters = new Meters(registry);
+    }
+
+    /**
+     * 获取连接池的状态
+     *
+     * @return {@link HttpClientStats} 状态, 未关联 HTTP 客户端时为空
+     */
+    public HttpClientStats getStats() {
+        OkHttpClient current = httpClient;
+        if (current == null) return null;
+        int idle = current.connectionPool().idleConnectionCount();
+        return new HttpClientStats(idle, current.connectionPool().connectionCount() - idle);
+    }
+
+    @Override
+    public EventListener create(Call call) {
+        Meters current = meters;
+        return current == null ? EventListener.NONE : new CallListener(current);
+    }
+
+    /**
+     * 注册后的指标
+     */
+    private class Meters {
+
+        private final Timer acquire;
+        private final Timer dns;
+        private final Timer connect;
+        private final Timer connectFailed;
+        private final Timer tlsHandshake;
+        private final Timer ttfb;
+        private final Counter newConnections;
+        private final Counter reusedConnections;
+        private final Counter callsFailed;
+
+        Meters(MeterRegistry registry) {
+            this.acquire = Timer.builder(name + ".connection.acquire").register(registry);
+            this.dns = Timer.builder(name + ".dns").register(registry);
+            this.connect = Timer.builder(name + ".connect").tag("status", "ok").register(registry);
+            this.connectFailed = Timer.builder(name + ".connect").tag("status", "ko").register(registry);
+            this.tlsHandshake = Timer.builder(name + ".tls.handshake").register(registry);
+            this.ttfb = Timer.builder(name + ".ttfb").register(registry);
+            this.newConnections = Counter.builder(name + ".connections").tag("type", "new").register(registry);
+            this.reusedConnections = Counter.builder(name + ".connections").tag("type", "reused").register(registry);
+            this.callsFailed = Counter.builder(name + ".calls.failed").register(registry);
+        }
+    }
+
+    /**
+     * 单个请求的事件监听
+     *
+     * <p>
+     * OkHttp 没有开始获取连接的事件, 连接池未命中后才开始选择代理, 因此获取连接的耗时自选择代理开始计算,
+     * 只统计新建连接 (代理选择、DNS、建立连接、TLS 握手), 不包含拦截器中的等待; 复用的连接只计数, 不计时
+     * </p>
+     */
+    private static class CallListener extends EventListener {
+
+        private static final long UNSET = Long.MIN_VALUE;
+
+        private final Meters meters;
+
+        private long acquireStart = UNSET;
+        private long dnsStart = UNSET;
+        private long connectStart = UNSET;
+        private long secureConnectStart = UNSET;
+        private long requestHeadersStart = UNSET;
+        private boolean connected;
+
+        CallListener(Meters meters) {
+            this.meters = meters;
+        }
+
+        @Override
+        public void proxySelectStart(Call call, HttpUrl url) {
+            if (acquireStart == UNSET) acquireStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsStart(Call call, String domainName) {
+            dnsStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+            record(meters.dns, dnsStart);
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connectStart = System.nanoTime();
+            connected = true;
+        }
+
+        @Override
+        public void secureConnectStart(Call call) {
+            secureConnectStart = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectEnd(Call call, Handshake handshake) {
+            record(meters.tlsHandshake, secureConnectStart);
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            record(meters.connect, connectStart);
+        }
+
+        @Override
+        public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol, IOException ioe) {
+            record(meters.connectFailed, connectStart);
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            record(meters.acquire, acquireStart);
+            acquireStart = UNSET;
+            (connected ? meters.newConnections : meters.reusedConnections).increment();
+            connected = false;
+        }
+
+        @Override
+        public void requestHeadersStart(Call call) {
+            requestHeadersStart = System.nanoTime();
+        }
+
+        @Override
+        public void responseHeadersStart(Call call) {
+            record(meters.ttfb, requestHeadersStart);
+            requestHeadersStart = UNSET;
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            meters.callsFailed.increment();
+        }
+
+        private static void record(Timer timer, long start) {
+            if (start != UNSET) timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+
+}
@@ -0,0 +1,247 @@
+package cn.darkjrong.minio;
+
+import cn.darkjrong.spring.boot.autoconfigure.MinioProperties;
+import cn.hutool.core.collection.CollectionUtil;
+import cn.hutool.core.util.StrUtil;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.minio.errors.ErrorResponseException;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 操作指标
+ *
+ * <p>
+ * 以纳秒精度记录模板操作的耗时, 按操作、bucket、结果、错误类型与是否命中缓存打标签; 上传、下载另记录字节数与吞吐量,
+ * 并按操作统计进行中的请求数. 绑定注册表之前只统计进行中的请求数, 不产生其他开销.
+ * 每次操作同时开始一个 span, 操作期间为当前线程的span, 操作内发出的 HTTP 请求与分片均为其子span
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/09 09:46:15
+ */
+class MinioMeters {
+
+    private static final String NONE = "none";
+    private static final String OK = "ok";
+    private static final String KO = "ko";
+    private static final String HIT = "hit";
+    private static final String MISS = "miss";
+
+    private final String name;
+    private final double[] percentiles;
+    private final boolean percentileHistogram;
+    private final Duration[] slo;
+    private final ConcurrentMap<String, AtomicInteger> active = new ConcurrentHashMap<>();
+    private final MinioTracer tracer;
+
+    private volatile MeterRegistry registry;
+
+    MinioMeters(String name, MinioProperties.Metrics metrics, MinioTracer tracer) {
+        this.name = name;
+        this.tracer = tracer;
+        this.percentiles = CollectionUtil.isEmpty(metrics.getPercentiles()) ? null
+                : metrics.getPercentiles().stream().mapToDouble(Double::doubleValue).toArray();
+        this.percentileHistogram = metrics.isPercentileHistogram();
+        this.slo = CollectionUtil.isEmpty(metrics.getSlo()) ? null
+                : metrics.getSlo().stream().map(Duration::ofMillis).toArray(Duration[]::new);
+    }
+
+    /**
+     * 绑定注册表
+     *
+     * @param registry 注册表
+     */
+    void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        active.forEach((operation, counter) -> this.registerActive(registry, operation, counter));
+    }
+
+    /**
+     * 开始记录一次操作
+     *
+     * @param operation  操作名称
+     * @param bucketName bucket名称, 不涉及bucket时为空
+     * @return {@link Sample}
+     */
+    Sample start(String operation, String bucketName) {
+        return this.start(operation, bucketName, null);
+    }
+
+    /**
+     * 开始记录一次对象操作
+     *
+     * @param operation  操作名称
+     * @param bucketName bucket名称
+     * @param objectName 对象名称, 只记录在 span 中
+     * @return {@link Sample}
+     */
+    Sample start(String operation, String bucketName, String objectName) {
+        MeterRegistry current = registry;
+        AtomicInteger counter = active.computeIfAbsent(operation, key -> {
+            AtomicInteger created = new AtomicInteger();
+            if (current != null) this.registerActive(current, key, created);
+            return created;
+        });
+        counter.incrementAndGet();
+
+        MinioTracer.Span span = tracer.nextSpan(name + StrUtil.DOT + operation, null);
+        if (StrUtil.isNotBlank(bucketName)) span.tag(MinioTracer.BUCKET, bucketName);
+        if (StrUtil.isNotBlank(objectName)) span.tag(MinioTracer.OBJECT, objectName);
+        return new Sample(current, operation, StrUtil.blankToDefault(bucketName, NONE), counter, span);
+    }
+
+    private void registerActive(MeterRegistry registry, String operation, AtomicInteger counter) {
+        Gauge.builder(name + ".active", counter, AtomicInteger::get)
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    /**
+     * 错误类型, 服务端错误取错误码, 其余取异常类名
+     */
+    private static String errorType(Throwable throwable) {
+        if (throwable instanceof ErrorResponseException) {
+            return ((ErrorResponseException) throwable).errorResponse().code();
+        }
+        return throwable.getClass().getSimpleName();
+    }
+
+    /**
+     * 一次操作的记录
+     *
+     * <p>
+     * 需在开始记录的线程内结束, 以恢复该线程原来的span
+     * </p>
+     */
+    class Sample {
+
+        private final MeterRegistry registry;
+        private final Timer.Sample sample;
+        private final String operation;
+        private final String bucketName;
+        private final AtomicInteger counter;
+        private final MinioTracer.Span span;
+        private final MinioTracer.Scope scope;
+        private boolean stopped;
+        private String cache = NONE;
+        private long uploaded = -1;
+        private long downloaded = -1;
+
+        Sample(MeterRegistry registry, String operation, String bucketName, AtomicInteger counter, MinioTracer.Span span) {
+            this.registry = registry;
+            this.sample = registry == null ? null : Timer.start(registry);
+            this.operation = operation;
+            this.bucketName = bucketName;
+            this.counter = counter;
+            this.span = span;
+            this.scope = span.makeCurrent();
+        }
+
+        /**
+         * 设置是否命中缓存, 未设置时缓存标签为 none
+         *
+         * @param hit 是否命中
+         * @return {@link Sample}
+         */
+        Sample cacheHit(boolean hit) {
+            this.cache = hit ? HIT : MISS;
+            return this;
+        }
+
+        /**
+         * 设置上传的字节数
+         *
+         * @param bytes 字节数
+         * @return {@link Sample}
+         */
+        Sample uploaded(long bytes) {
+            this.uploaded = bytes;
+            return this;
+        }
+
+        /**
+         * 设置下载的字节数
+         *
+         * @param bytes 字节数
+         * @return {@link Sample}
+         */
+        Sample downloaded(long bytes) {
+            this.downloaded = bytes;
+            return this;
+        }
+
+        /**
+         * 操作成功
+         */
+        void success() {
+            this.stop(OK, NONE);
+        }
+
+        /**
+         * 操作失败
+         *
+         * @param throwable 异常
+         */
+        void failure(Throwable throwable) {
+            if (!stopped) span.error(throwable);
+            this.stop(KO, errorType(throwable));
+        }
+
+        private void stop(String status, String error) {
+            if (stopped) return;
+            stopped = true;
+            counter.decrementAndGet();
+            this.endSpan();
+            if (registry == null) return;
+
+            long nanos = sample.stop(Timer.builder(name)
+                    .tag("operation", operation)
+                    .tag("bucket", bucketName)
+                    .tag("status", status)
+                    .tag("error", error)
+                    .tag("cache", cache)
+                    .publishPercentiles(percentiles)
+                    .publishPercentileHistogram(percentileHistogram)
+                    .serviceLevelObjectives(slo)
+                    .register(registry));
+
+            if (!OK.equals(status)) return;
+            if (uploaded >= 0) this.recordBytes("upload", uploaded, nanos);
+            if (downloaded >= 0) this.recordBytes("download", downloaded, nanos);
+        }
+
+        private void endSpan() {
+            long bytes = Math.max(uploaded, downloaded);
+            if (bytes >= 0) span.tag(MinioTracer.BYTES, bytes);
+            scope.close();
+            span.end();
+        }
+
+        private void recordBytes(String direction, long bytes, long nanos) {
+            DistributionSummary.builder(name + StrUtil.DOT + direction + ".bytes")
+                    .baseUnit("bytes")
+                    .tag("operation", operation)
+                    .tag("bucket", bucketName)
+                    .register(registry)
+                    .record(bytes);
+
+            if (nanos <= 0) return;
+            DistributionSummary.builder(name + StrUtil.DOT + direction + ".throughput")
+                    .baseUnit("bytes/s")
+                    .tag("operation", operation)
+                    .tag("bucket", bucketName)
+                    .register(registry)
+                    .record(bytes * (double) TimeUnit.SECONDS.toNanos(1) / nanos);
+        }
+    }
+
+
+}
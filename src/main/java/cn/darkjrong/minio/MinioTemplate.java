@@ -1,7 +1,15 @@
 package cn.darkjrong.minio;
 
 import cn.darkjrong.minio.domain.BucketPolicyParam;
+import cn.darkjrong.minio.domain.BufferPoolStats;
+import cn.darkjrong.minio.domain.CacheStats;
+import cn.darkjrong.minio.domain.FailedObject;
 import cn.darkjrong.minio.domain.ListObjectParam;
+import cn.darkjrong.minio.domain.ObjectPage;
+import cn.darkjrong.minio.domain.PrefixResult;
+import cn.darkjrong.minio.domain.PresignedMultipartUpload;
+import cn.darkjrong.minio.domain.PresignedPost;
+import cn.darkjrong.minio.domain.PresignedUpload;
 import cn.darkjrong.minio.domain.RemoveObject;
 import cn.darkjrong.minio.enums.BucketVersionStatus;
 import cn.darkjrong.minio.enums.ExceptionEnum;
@@ -12,11 +20,15 @@ import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.io.IoUtil;
 import cn.hutool.core.lang.Assert;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
 import cn.hutool.core.util.IdUtil;
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
+import cn.hutool.core.util.URLUtil;
 import cn.hutool.system.SystemUtil;
 import com.alibaba.fastjson.JSON;
+import com.google.common.io.CountingInputStream;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.minio.*;
 import io.minio.http.Method;
 import io.minio.messages.*;
@@ -24,16 +36,27 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
 import java.time.ZonedDateTime;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * minio 操作
@@ -47,13 +70,99 @@ public class MinioTemplate {
     private static final String DATA_TMP = SystemUtil.get(SystemUtil.TMPDIR);
     private static final Integer DURATION = 30;
     private static final Integer ZERO = 0;
+    private static final long MAX_PRESIGN_EXPIRES = TimeUnit.DAYS.toSeconds(7);
+    private static final String POLICY_KEY = "key";
+    private static final String POLICY_CONTENT_TYPE = "Content-Type";
+    private static final String PART_NUMBER = "partNumber";
+    private static final String UPLOAD_ID = "uploadId";
+    private static final String UPLOAD_TEMP_PREFIX = "minio-upload-";
+    private static final String UPLOAD_STATE_DIR = "minio-upload-state";
 
     private final MinioClient minioClient;
     private final MinioProperties minioProperties;
+    private final ExecutorService executor;
+    private final ExtendedMinioClient extendedMinioClient;
+    private final TransferBufferPool bufferPool;
+    private final MultipartUploader multipartUploader;
+    private final SegmentedDownloader segmentedDownloader;
+    private final ParallelObjectLister parallelObjectLister;
+    private final BulkRemover bulkRemover;
+    private final PrefixCopier prefixCopier;
+    private final ObjectCache objectCache;
+    private final StatCache statCache;
+    private final PresignedUrlCache presignedUrlCache;
+    private final PresignedUrlSigner presignedUrlSigner;
+    private final ContentAddressedUploader contentAddressedUploader;
+    private final ResumableUploader resumableUploader;
+    private final ScheduledExecutorService cleanupScheduler;
+    private final MinioMeters meters;
 
     public MinioTemplate(MinioClient minioClient, MinioProperties minioProperties) {
+        this(minioClient, minioProperties, null);
+    }
+
+    /**
+     * 创建模板
+     *
+     * @param minioClient      minio客户端
+     * @param minioProperties  minio配置
+     * @param uploadStateStore 分片上传状态存储, 为空时保存在 minio.resumable.state-dir 目录
+     */
+    public MinioTemplate(MinioClient minioClient, MinioProperties minioProperties, UploadStateStore uploadStateStore) {
+        this(minioClient, minioProperties, uploadStateStore, MinioTracer.NOOP);
+    }
+
+    /**
+     * 创建模板
+     *
+     * @param minioClient      minio客户端
+     * @param minioProperties  minio配置
+     * @param uploadStateStore 分片上传状态存储, 为空时保存在 minio.resumable.state-dir 目录
+     * @param tracer           链路追踪
+     */
+    public MinioTemplate(MinioClient minioClient, MinioProperties minioProperties, UploadStateStore uploadStateStore,
+                         MinioTracer tracer) {
+        this(minioClient, minioProperties, uploadStateStore, tracer, false);
+    }
+
+    /**
+     * 创建模板
+     *
+     * @param minioClient      minio客户端
+     * @param minioProperties  minio配置
+     * @param uploadStateStore 分片上传状态存储, 为空时保存在 minio.resumable.state-dir 目录
+     * @param tracer           链路追踪
+     * @param httpRetry        HTTP客户端是否已安装 {@link RetryInterceptor}, 是时分片上传不再单独重试
+     */
+    public MinioTemplate(MinioClient minioClient, MinioProperties minioProperties, UploadStateStore uploadStateStore,
+                         MinioTracer tracer, boolean httpRetry) {
         this.minioClient = minioClient;
         this.minioProperties = minioProperties;
+        this.meters = new MinioMeters(minioProperties.getMetricName(), minioProperties.getMetrics(), tracer);
+        this.executor = MinioUtils.newExecutor(minioProperties.getExecutor(), "minio-task-", new ThreadPoolExecutor.CallerRunsPolicy());
+        this.extendedMinioClient = new ExtendedMinioClient(minioClient);
+        this.bufferPool = new TransferBufferPool(minioProperties.getBuffer());
+        this.multipartUploader = new MultipartUploader(extendedMinioClient, executor, minioProperties.getMultipart(), tracer, httpRetry);
+        this.segmentedDownloader = new SegmentedDownloader(minioClient, executor, minioProperties.getDownload(), bufferPool, tracer);
+        this.parallelObjectLister = new ParallelObjectLister(this, minioProperties.getListing().getParallelism(),
+                minioProperties.getListing().getQueueCapacity());
+        this.bulkRemover = new BulkRemover(minioClient, executor, minioProperties.getRemove());
+        this.prefixCopier = new PrefixCopier(minioClient, executor, minioProperties.getCopy());
+        this.objectCache = new ObjectCache(minioClient, minioProperties.getCache(), bufferPool);
+        this.statCache = new StatCache(minioClient, minioProperties.getStatCache());
+        this.presignedUrlCache = new PresignedUrlCache(minioProperties.getPresignCache());
+        this.presignedUrlSigner = new PresignedUrlSigner(URLUtil.url(minioProperties.getEndpoint()),
+                minioProperties.getAccessKey(), minioProperties.getSecretKey());
+        this.contentAddressedUploader = new ContentAddressedUploader(extendedMinioClient, multipartUploader, statCache,
+                bufferPool, minioProperties.getDedup());
+
+        MinioProperties.Resumable resumable = minioProperties.getResumable();
+        if (uploadStateStore == null) {
+            uploadStateStore = new FileUploadStateStore(StrUtil.blankToDefault(resumable.getStateDir(),
+                    FileUtil.getTmpDirPath() + File.separator + UPLOAD_STATE_DIR));
+        }
+        this.resumableUploader = new ResumableUploader(extendedMinioClient, multipartUploader, uploadStateStore);
+        this.cleanupScheduler = resumable.isEnabled() && resumable.getCleanupInterval() > 0 ? this.scheduleCleanup(resumable) : null;
     }
 
     /**
@@ -65,6 +174,27 @@ public class MinioTemplate {
         return minioClient;
     }
 
+    /**
+     * 绑定指标注册表
+     *
+     * <p>
+     * 绑定后记录各操作的耗时、上传下载的字节数与吞吐量及进行中的操作数, 指标名称前缀为 minio.metric-name
+     * </p>
+     *
+     * @param registry 指标注册表
+     */
+    public void bindTo(MeterRegistry registry) {
+        meters.bindTo(registry);
+    }
+
+    /**
+     * 关闭任务线程池
+     */
+    public void shutdown() {
+        executor.shutdown();
+        if (cleanupScheduler != null) cleanupScheduler.shutdownNow();
+    }
+
     /**
      * 判断bucket是否存在
      *
@@ -77,9 +207,13 @@ public class MinioTemplate {
         BucketExistsArgs bucketExistsArgs = BucketExistsArgs.builder()
                 .bucket(bucketName)
                 .build();
+        MinioMeters.Sample sample = meters.start("bucketExists", bucketName);
         try {
-            return minioClient.bucketExists(bucketExistsArgs);
+            boolean exists = minioClient.bucketExists(bucketExistsArgs);
+            sample.success();
+            return exists;
         } catch (Exception e) {
+            sample.failure(e);
             logger.error("判断bucket是否存在异常 {}", e.getMessage());
         }
         return Boolean.FALSE;
@@ -130,9 +264,22 @@ public class MinioTemplate {
             builder.versionId(versionId);
         }
 
+        boolean cacheable = StrUtil.isBlank(versionId) && statCache.isEnabled();
+        MinioMeters.Sample sample = meters.start("statObject", bucketName, objectName);
         try {
-            return minioClient.statObject(builder.build());
+            StatObjectResponse response = null;
+            if (cacheable) {
+                sample.cacheHit(Boolean.TRUE);
+                response = statCache.getIfPresent(bucketName, objectName);
+            }
+            if (response == null) {
+                if (cacheable) sample.cacheHit(Boolean.FALSE);
+                response = cacheable ? statCache.load(bucketName, objectName) : minioClient.statObject(builder.build());
+            }
+            sample.success();
+            return response;
         } catch (Exception e) {
+            sample.failure(e);
             logger.error("获取对象信息异常 {}", e.getMessage());
             throw new MinioException("获取对象信息异常", e);
         }
@@ -154,6 +301,10 @@ public class MinioTemplate {
     /**
      * 获取对象
      *
+     * <p>
+     * 开启对象读缓存且对象在缓存范围内时, 优先从缓存读取
+     * </p>
+     *
      * @param bucketName bucket名称
      * @param objectName 对象名称
      * @return {@link byte[]} 对象字节数组
@@ -169,17 +320,260 @@ public class MinioTemplate {
                 .object(objectName)
                 .build();
 
+        MinioMeters.Sample sample = meters.start("getObject", bucketName, objectName);
+        try {
+            byte[] data;
+            if (objectCache.isCacheable(bucketName, objectName)) {
+                data = objectCache.get(bucketName, objectName, sample);
+            } else {
+                try (GetObjectResponse response = minioClient.getObject(getObjectArgs)) {
+                    data = bufferPool.readBytes(response, MinioUtils.getContentLength(response));
+                }
+            }
+            sample.downloaded(data.length).success();
+            return data;
+        } catch (Exception e) {
+            sample.failure(e);
+            logger.error("获取对象异常 {}", e.getMessage());
+            throw new MinioException("获取对象异常", e);
+        }
+    }
+
+    /**
+     * 获取对象指定范围的数据
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @param offset     起始偏移量
+     * @param length     长度
+     * @return {@link byte[]} 范围内的字节数组
+     * @throws MinioException minio异常
+     */
+    public byte[] getObject(String bucketName, String objectName, long offset, long length) throws MinioException {
+
+        MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
+        MinioUtils.notEmpty(objectName, ExceptionEnum.OBJECT_NAME_CANNOT_BE_EMPTY);
+        Assert.isTrue(offset >= ZERO, ExceptionEnum.ILLEGAL_RANGE.getValue());
+        Assert.isTrue(length > ZERO, ExceptionEnum.ILLEGAL_RANGE.getValue());
+
+        MinioMeters.Sample sample = meters.start("getObject", bucketName, objectName);
+        try (GetObjectResponse response = this.openObject(bucketName, objectName, offset, length)) {
+            byte[] data = bufferPool.readBytes(response, MinioUtils.getContentLength(response));
+            sample.downloaded(data.length).success();
+            return data;
+        } catch (Exception e) {
+            sample.failure(e);
+            logger.error("获取对象范围数据异常 {}", e.getMessage());
+            throw new MinioException("获取对象范围数据异常", e);
+        }
+    }
+
+    /**
+     * 获取对象指定范围的数据
+     *
+     * @param objectName 对象名称
+     * @param offset     起始偏移量
+     * @param length     长度
+     * @return {@link byte[]} 范围内的字节数组
+     * @throws MinioException minio异常
+     */
+    public byte[] getObject(String objectName, long offset, long length) throws MinioException {
+        return this.getObject(minioProperties.getBucketName(), objectName, offset, length);
+    }
+
+    /**
+     * 获取对象指定范围的流
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @param offset     起始偏移量
+     * @param length     长度
+     * @return {@link GetObjectResponse} 对象流, 使用完毕后必须由调用方关闭; 开启隔离舱时未关闭的流一直占用读取许可
+     * @throws MinioException minio异常
+     */
+    public GetObjectResponse getObjectStream(String bucketName, String objectName, long offset, long length) throws MinioException {
+
+        MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
+        MinioUtils.notEmpty(objectName, ExceptionEnum.OBJECT_NAME_CANNOT_BE_EMPTY);
+        Assert.isTrue(offset >= ZERO, ExceptionEnum.ILLEGAL_RANGE.getValue());
+        Assert.isTrue(length > ZERO, ExceptionEnum.ILLEGAL_RANGE.getValue());
+
+        MinioMeters.Sample sample = meters.start("getObjectStream", bucketName, objectName);
+        try {
+            GetObjectResponse response = this.openObject(bucketName, objectName, offset, length);
+            sample.success();
+            return response;
+        } catch (Exception e) {
+            sample.failure(e);
+            logger.error("获取对象流异常 {}", e.getMessage());
+            throw new MinioException("获取对象流异常", e);
+        }
+    }
+
+    /**
+     * 获取对象流
+     *
+     * <p>
+     * 返回的流直接读取自网络连接, 不会在内存中缓存整个对象, 使用完毕后必须由调用方关闭.
+     * 开启隔离舱(minio.bulkhead.enabled)时读取许可一直持有到流关闭, 未关闭的流会耗尽许可, 之后的读取等待超时后失败
+     * </p>
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @return {@link GetObjectResponse} 对象流
+     * @throws MinioException minio异常
+     */
+    public GetObjectResponse getObjectStream(String bucketName, String objectName) throws MinioException {
+
+        MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
+        MinioUtils.notEmpty(objectName, ExceptionEnum.OBJECT_NAME_CANNOT_BE_EMPTY);
+
+        MinioMeters.Sample sample = meters.start("getObjectStream", bucketName, objectName);
         try {
-            return IoUtil.readBytes(minioClient.getObject(getObjectArgs));
+            GetObjectResponse response = this.openObject(bucketName, objectName, null, null);
+            sample.success();
+            return response;
+        } catch (Exception e) {
+            sample.failure(e);
+            logger.error("获取对象流异常 {}", e.getMessage());
+            throw new MinioException("获取对象流异常", e);
+        }
+    }
+
+    /**
+     * 获取对象流
+     *
+     * @param objectName 对象名称
+     * @return {@link GetObjectResponse} 对象流, 使用完毕后必须由调用方关闭; 开启隔离舱时未关闭的流一直占用读取许可
+     * @throws MinioException minio异常
+     */
+    public GetObjectResponse getObjectStream(String objectName) throws MinioException {
+        MinioUtils.notEmpty(objectName, ExceptionEnum.OBJECT_NAME_CANNOT_BE_EMPTY);
+        return this.getObjectStream(minioProperties.getBucketName(), objectName);
+    }
+
+    /**
+     * 获取对象, 写入输出流
+     *
+     * <p>
+     * 使用传输缓冲区池中的缓冲区拷贝, 内存占用与对象大小无关; 输出流不会被关闭
+     * </p>
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @param out        输出流
+     * @return long 写入的字节数
+     * @throws MinioException minio异常
+     */
+    public long getObject(String bucketName, String objectName, OutputStream out) throws MinioException {
+        MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
+        MinioUtils.notEmpty(objectName, ExceptionEnum.OBJECT_NAME_CANNOT_BE_EMPTY);
+        MinioUtils.notEmpty(out, ExceptionEnum.OUTPUT_CANNOT_BE_EMPTY);
+
+        MinioMeters.Sample sample = meters.start("getObject", bucketName, objectName);
+        try (GetObjectResponse response = this.openObject(bucketName, objectName, null, null)) {
+            long bytes = bufferPool.copy(response, out);
+            sample.downloaded(bytes).success();
+            return bytes;
+        } catch (Exception e) {
+            sample.failure(e);
+            logger.error("获取对象异常 {}", e.getMessage());
+            throw new MinioException("获取对象异常", e);
+        }
+    }
+
+    /**
+     * 获取对象, 写入输出流
+     *
+     * @param objectName 对象名称
+     * @param out        输出流
+     * @return long 写入的字节数
+     * @throws MinioException minio异常
+     */
+    public long getObject(String objectName, OutputStream out) throws MinioException {
+        return this.getObject(minioProperties.getBucketName(), objectName, out);
+    }
+
+    /**
+     * 获取对象, 写入通道
+     *
+     * <p>
+     * 使用传输缓冲区池中的缓冲区拷贝, 内存占用与对象大小无关; 通道不会被关闭
+     * </p>
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @param channel    可写通道
+     * @return long 写入的字节数
+     * @throws MinioException minio异常
+     */
+    public long getObject(String bucketName, String objectName, WritableByteChannel channel) throws MinioException {
+        MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
+        MinioUtils.notEmpty(objectName, ExceptionEnum.OBJECT_NAME_CANNOT_BE_EMPTY);
+        MinioUtils.notEmpty(channel, ExceptionEnum.OUTPUT_CANNOT_BE_EMPTY);
+
+        MinioMeters.Sample sample = meters.start("getObject", bucketName, objectName);
+        try (GetObjectResponse response = this.openObject(bucketName, objectName, null, null)) {
+            long bytes = bufferPool.copy(response, channel);
+            sample.downloaded(bytes).success();
+            return bytes;
+        } catch (Exception e) {
+            sample.failure(e);
+            logger.error("获取对象异常 {}", e.getMessage());
+            throw new MinioException("获取对象异常", e);
+        }
+    }
+
+    /**
+     * 获取对象, 由回调函数消费对象流
+     *
+     * <p>
+     * 回调结束后对象流会被自动关闭, 调用方无需关闭
+     * </p>
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @param consumer   对象流消费者
+     * @throws MinioException minio异常
+     */
+    public void getObject(String bucketName, String objectName, Consumer<InputStream> consumer) throws MinioException {
+        MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
+        MinioUtils.notEmpty(objectName, ExceptionEnum.OBJECT_NAME_CANNOT_BE_EMPTY);
+        MinioUtils.notEmpty(consumer, ExceptionEnum.CONSUMER_CANNOT_BE_EMPTY);
+
+        MinioMeters.Sample sample = meters.start("getObject", bucketName, objectName);
+        try (GetObjectResponse response = this.openObject(bucketName, objectName, null, null)) {
+            CountingInputStream in = new CountingInputStream(response);
+            consumer.accept(in);
+            sample.downloaded(in.getCount()).success();
+        } catch (RuntimeException e) {
+            sample.failure(e);
+            throw e;
         } catch (Exception e) {
+            sample.failure(e);
             logger.error("获取对象异常 {}", e.getMessage());
             throw new MinioException("获取对象异常", e);
         }
     }
 
+    /**
+     * 获取对象, 由回调函数消费对象流
+     *
+     * @param objectName 对象名称
+     * @param consumer   对象流消费者
+     * @throws MinioException minio异常
+     */
+    public void getObject(String objectName, Consumer<InputStream> consumer) throws MinioException {
+        this.getObject(minioProperties.getBucketName(), objectName, consumer);
+    }
+
     /**
      * 下载对象
      *
+     * <p>
+     * 对象大于分段大小时按字节范围并发下载, 各段直接写入目标文件的对应位置; 否则以单个请求下载, 两者都只获取一次对象信息
+     * </p>
+     *
      * @param bucketName bucket名称
      * @param fileName   文件全限定路径名
      * @param objectName 对象名称
@@ -191,15 +585,13 @@ public class MinioTemplate {
         MinioUtils.notEmpty(objectName, ExceptionEnum.OBJECT_NAME_CANNOT_BE_EMPTY);
         MinioUtils.notEmpty(fileName, ExceptionEnum.FILE_NAME_CANNOT_BE_EMPTY);
 
-        DownloadObjectArgs args = DownloadObjectArgs.builder()
-                .filename(fileName)
-                .object(objectName)
-                .bucket(bucketName)
-                .build();
-
+        MinioMeters.Sample sample = meters.start("downloadObject", bucketName, objectName);
         try {
-            minioClient.downloadObject(args);
+            StatObjectResponse stat = minioClient.statObject(StatObjectArgs.builder().bucket(bucketName).object(objectName).build());
+            segmentedDownloader.download(stat, fileName);
+            sample.downloaded(stat.size()).success();
         } catch (Exception e) {
+            sample.failure(e);
             logger.error("下载对象异常 {}", e.getMessage());
             throw new MinioException("下载对象异常", e);
         }
@@ -305,14 +697,143 @@ public class MinioTemplate {
                 .source(copySource)
                 .build();
 
+        MinioMeters.Sample sample = meters.start("copyObject", targetBucketName, targetObjectName);
         try {
-            return minioClient.copyObject(copyObjectArgs).object();
+            String object = minioClient.copyObject(copyObjectArgs).object();
+            this.evict(targetBucketName, targetObjectName);
+            sample.success();
+            return object;
         } catch (Exception e) {
+            sample.failure(e);
             logger.error("复制对象异常 {}", e.getMessage());
             throw new MinioException("复制对象异常", e);
         }
     }
 
+    /**
+     * 复制前缀下的全部对象
+     *
+     * <p>
+     * 边列表边复制, 以有界并发执行服务端复制, 目标对象名为 targetPrefix + 源对象名去掉 srcPrefix 后的部分.
+     * 前缀按目录处理, 必须以 / 结尾, 避免 tenant1 误匹配 tenant10/ 下的对象
+     * </p>
+     *
+     * @param srcBucketName    源bucket名称
+     * @param srcPrefix        源前缀, 以 / 结尾
+     * @param targetBucketName 目标bucket名称
+     * @param targetPrefix     目标前缀, 为空或以 / 结尾
+     * @return {@link PrefixResult} 复制结果
+     * @throws MinioException minio异常
+     */
+    public PrefixResult copyPrefix(String srcBucketName, String srcPrefix,
+                                   String targetBucketName, String targetPrefix) throws MinioException {
+        return copyPrefix(srcBucketName, srcPrefix, targetBucketName, targetPrefix, null);
+    }
+
+    /**
+     * 复制前缀下的全部对象
+     *
+     * @param srcBucketName    源bucket名称
+     * @param srcPrefix        源前缀, 以 / 结尾
+     * @param targetBucketName 目标bucket名称
+     * @param targetPrefix     目标前缀, 为空或以 / 结尾
+     * @param listener         进度监听, 可为空
+     * @return {@link PrefixResult} 复制结果
+     * @throws MinioException minio异常
+     */
+    public PrefixResult copyPrefix(String srcBucketName, String srcPrefix, String targetBucketName,
+                                   String targetPrefix, ProgressListener listener) throws MinioException {
+
+        MinioUtils.notEmpty(srcBucketName, ExceptionEnum.SOURCE_BUCKET_CANNOT_BE_EMPTY);
+        MinioUtils.notEmpty(targetBucketName, ExceptionEnum.TARGET_BUCKET_CANNOT_BE_EMPTY);
+        MinioUtils.notEmpty(srcPrefix, ExceptionEnum.PREFIX_CANNOT_BE_EMPTY);
+        Assert.isTrue(StrUtil.endWith(srcPrefix, StrUtil.C_SLASH), ExceptionEnum.PREFIX_MUST_END_WITH_SLASH.getValue());
+        Assert.isTrue(StrUtil.isEmpty(targetPrefix) || StrUtil.endWith(targetPrefix, StrUtil.C_SLASH),
+                ExceptionEnum.PREFIX_MUST_END_WITH_SLASH.getValue());
+        Assert.isFalse(StrUtil.equals(srcBucketName, targetBucketName) && StrUtil.startWith(StrUtil.nullToEmpty(targetPrefix), srcPrefix),
+                "目标前缀不能位于源前缀之下");
+
+        ListObjectParam listObjectParam = new ListObjectParam();
+        listObjectParam.setBucketName(srcBucketName);
+        listObjectParam.setPrefix(srcPrefix);
+        listObjectParam.setRecursive(Boolean.TRUE);
+
+        MinioMeters.Sample sample = meters.start("copyPrefix", targetBucketName);
+        try (Stream<Item> items = this.streamObjects(listObjectParam)) {
+            PrefixResult prefixResult = prefixCopier.copy(items.iterator(), srcBucketName, srcPrefix,
+                    targetBucketName, StrUtil.nullToEmpty(targetPrefix), listener);
+            sample.success();
+            return prefixResult;
+        } catch (RuntimeException e) {
+            sample.failure(e);
+            throw e;
+        } finally {
+            this.evictPrefix(targetBucketName, targetPrefix);
+        }
+    }
+
+    /**
+     * 删除前缀下的全部对象
+     *
+     * <p>
+     * 边列表边按批次并发删除, 不会一次加载全部对象.
+     * 前缀按目录处理, 必须以 / 结尾, 避免 tenant1 误删 tenant10/ 下的对象
+     * </p>
+     *
+     * @param bucketName bucket名称
+     * @param prefix     前缀, 以 / 结尾
+     * @return {@link PrefixResult} 删除结果
+     * @throws MinioException minio异常
+     */
+    public PrefixResult removePrefix(String bucketName, String prefix) throws MinioException {
+        return removePrefix(bucketName, prefix, null);
+    }
+
+    /**
+     * 删除前缀下的全部对象
+     *
+     * @param bucketName bucket名称
+     * @param prefix     前缀, 以 / 结尾
+     * @param listener   进度监听, 可为空
+     * @return {@link PrefixResult} 删除结果
+     * @throws MinioException minio异常
+     */
+    public PrefixResult removePrefix(String bucketName, String prefix, ProgressListener listener) throws MinioException {
+
+        MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
+        MinioUtils.notEmpty(prefix, ExceptionEnum.PREFIX_CANNOT_BE_EMPTY);
+        Assert.isTrue(StrUtil.endWith(prefix, StrUtil.C_SLASH), ExceptionEnum.PREFIX_MUST_END_WITH_SLASH.getValue());
+
+        ListObjectParam listObjectParam = new ListObjectParam();
+        listObjectParam.setBucketName(bucketName);
+        listObjectParam.setPrefix(prefix);
+        listObjectParam.setRecursive(Boolean.TRUE);
+
+        AtomicLong total = new AtomicLong();
+        List<RemoveObject> failures;
+        MinioMeters.Sample sample = meters.start("removePrefix", bucketName);
+        try (Stream<Item> items = this.streamObjects(listObjectParam)) {
+            failures = bulkRemover.remove(bucketName, items.filter(a -> !a.isDir())
+                    .peek(a -> total.incrementAndGet())
+                    .map(a -> new RemoveObject(bucketName, a.objectName()))
+                    .iterator(), listener);
+            sample.success();
+        } catch (RuntimeException e) {
+            sample.failure(e);
+            throw e;
+        } finally {
+            this.evictPrefix(bucketName, prefix);
+        }
+
+        PrefixResult prefixResult = new PrefixResult();
+        prefixResult.setTotal(total.get());
+        prefixResult.setSucceeded(total.get() - failures.size());
+        prefixResult.setFailures(failures.stream()
+                .map(a -> new FailedObject(a.getBucketName(), a.getObjectName(), a.getErrorCode(), a.getErrorMessage()))
+                .collect(Collectors.toList()));
+        return prefixResult;
+    }
+
     /**
      * 获得对象url
      *
@@ -330,165 +851,778 @@ public class MinioTemplate {
         if (ObjectUtil.isNull(duration) || duration <= ZERO) duration = DURATION;
         if (ObjectUtil.isNull(unit)) unit = TimeUnit.MINUTES;
 
-        GetPresignedObjectUrlArgs objectUrlArgs = GetPresignedObjectUrlArgs.builder()
-                .method(Method.GET)
-                .bucket(bucketName)
-                .object(objectName)
-                .expiry(duration, unit)
-                .build();
+        long expires = unit.toSeconds(duration);
+        GetPresignedObjectUrlArgs objectUrlArgs = GetPresignedObjectUrlArgs.builder()
+                .method(Method.GET)
+                .bucket(bucketName)
+                .object(objectName)
+                .expiry(duration, unit)
+                .build();
+
+        MinioMeters.Sample sample = meters.start("getObjectUrl", bucketName, objectName);
+        try {
+            String url = presignedUrlCache.get(Method.GET.name(), bucketName, objectName, expires);
+            if (presignedUrlCache.isEnabled()) sample.cacheHit(StrUtil.isNotBlank(url));
+            if (StrUtil.isNotBlank(url)) {
+                sample.success();
+                return url;
+            }
+
+            url = minioClient.getPresignedObjectUrl(objectUrlArgs);
+            presignedUrlCache.put(Method.GET.name(), bucketName, objectName, expires, url);
+            sample.success();
+            return url;
+        } catch (Exception e) {
+            sample.failure(e);
+            logger.error("获取对象URL异常 {}", e.getMessage());
+            throw new MinioException("获取对象URL异常", e);
+        }
+    }
+
+    /**
+     * 批量获得对象url
+     *
+     * <p>
+     * 在本地完成签名, 同一批次共用签名时间与派生密钥, 适用于一次渲染大量链接; 生成路径风格的URL.
+     * 全部URL命中缓存时耗时指标的缓存标签为 hit, 否则为 miss
+     * </p>
+     *
+     * @param bucketName  bucket名称
+     * @param objectNames 对象名称集合
+     * @param duration    超时时长，默认：30
+     * @param unit        单位, 默认：分钟
+     * @return {@link Map<String, String>} key: 对象名称, value: 对象url
+     * @throws MinioException minio异常
+     */
+    public Map<String, String> getObjectUrls(String bucketName, Collection<String> objectNames, int duration, TimeUnit unit) throws MinioException {
+
+        MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
+        MinioUtils.notEmpty(objectNames, ExceptionEnum.THE_OBJECT_COLLECTION_CANNOT_BE_EMPTY);
+        if (duration <= ZERO) duration = DURATION;
+        if (ObjectUtil.isNull(unit)) unit = TimeUnit.MINUTES;
+
+        long expires = unit.toSeconds(duration);
+        Assert.isTrue(expires >= 1 && expires <= MAX_PRESIGN_EXPIRES, "有效期必须在1秒到7天之间");
+
+        MinioMeters.Sample sample = meters.start("getObjectUrls", bucketName);
+        try {
+            String region = StrUtil.isNotBlank(minioProperties.getRegion())
+                    ? minioProperties.getRegion() : extendedMinioClient.getRegion(bucketName);
+            ZonedDateTime signedAt = PresignedUrlSigner.now();
+
+            Map<String, String> urls = new LinkedHashMap<>(objectNames.size() * 2);
+            boolean allCached = true;
+            for (String objectName : objectNames) {
+                String url = presignedUrlCache.get(Method.GET.name(), bucketName, objectName, expires);
+                if (StrUtil.isBlank(url)) {
+                    allCached = false;
+                    url = presignedUrlSigner.presign(Method.GET.name(), region, bucketName, objectName, expires, signedAt);
+                    presignedUrlCache.put(Method.GET.name(), bucketName, objectName, expires, url);
+                }
+                urls.put(objectName, url);
+            }
+            if (presignedUrlCache.isEnabled()) sample.cacheHit(allCached);
+            sample.success();
+            return urls;
+        } catch (Exception e) {
+            sample.failure(e);
+            logger.error("批量获取对象URL异常 {}", e.getMessage());
+            throw new MinioException("批量获取对象URL异常", e);
+        }
+    }
+
+    /**
+     * 批量获得对象url
+     *
+     * @param objectNames 对象名称集合
+     * @param duration    超时时长，默认：30
+     * @param unit        单位, 默认：分钟
+     * @return {@link Map<String, String>} key: 对象名称, value: 对象url
+     * @throws MinioException minio异常
+     */
+    public Map<String, String> getObjectUrls(Collection<String> objectNames, int duration, TimeUnit unit) throws MinioException {
+        return getObjectUrls(minioProperties.getBucketName(), objectNames, duration, unit);
+    }
+
+    /**
+     * 获得预签名上传url
+     *
+     * <p>
+     * 按{@link MinioUtils#getFileName(String)}的规则生成对象名, 客户端以 PUT 方法直接上传, 数据不经过本服务
+     * </p>
+     *
+     * @param bucketName bucket名称
+     * @param fileName   文件名称
+     * @param duration   超时时长，默认：30
+     * @param unit       单位, 默认：分钟
+     * @return {@link PresignedUpload} 预签名上传
+     * @throws MinioException minio异常
+     */
+    public PresignedUpload getUploadUrl(String bucketName, String fileName, int duration, TimeUnit unit) throws MinioException {
+
+        MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
+        MinioUtils.notEmpty(fileName, ExceptionEnum.FILE_NAME_CANNOT_BE_EMPTY);
+        if (duration <= ZERO) duration = DURATION;
+        if (ObjectUtil.isNull(unit)) unit = TimeUnit.MINUTES;
+
+        String objectName = MinioUtils.getFileName(fileName);
+        GetPresignedObjectUrlArgs objectUrlArgs = GetPresignedObjectUrlArgs.builder()
+                .method(Method.PUT)
+                .bucket(bucketName)
+                .object(objectName)
+                .expiry(duration, unit)
+                .build();
+
+        MinioMeters.Sample sample = meters.start("getUploadUrl", bucketName, objectName);
+        try {
+            PresignedUpload presignedUpload = new PresignedUpload();
+            presignedUpload.setBucketName(bucketName);
+            presignedUpload.setObjectName(objectName);
+            presignedUpload.setUrl(minioClient.getPresignedObjectUrl(objectUrlArgs));
+            sample.success();
+            return presignedUpload;
+        } catch (Exception e) {
+            sample.failure(e);
+            logger.error("获取对象上传URL异常 {}", e.getMessage());
+            throw new MinioException("获取对象上传URL异常", e);
+        }
+    }
+
+    /**
+     * 获得预签名上传url
+     *
+     * @param fileName 文件名称
+     * @return {@link PresignedUpload} 预签名上传
+     * @throws MinioException minio异常
+     */
+    public PresignedUpload getUploadUrl(String fileName) throws MinioException {
+        return getUploadUrl(minioProperties.getBucketName(), fileName, DURATION, TimeUnit.MINUTES);
+    }
+
+    /**
+     * 获得表单上传策略
+     *
+     * <p>
+     * 按{@link MinioUtils#getFileName(String)}的规则生成对象名, 客户端以表单直接上传;
+     * 服务端校验对象名、文件大小范围及内容类型前缀;
+     * minio 8.3.0 的 PostPolicy 只接受 int 范围的大小, 故单个文件上限为 {@link Integer#MAX_VALUE} 字节(约2GB)
+     * </p>
+     *
+     * @param bucketName  bucket名称
+     * @param fileName    文件名称
+     * @param contentType 内容类型前缀, 如 image/, 为空时不限制
+     * @param minSize     最小文件大小, 单位为字节
+     * @param maxSize     最大文件大小, 单位为字节, 不能超过 {@link Integer#MAX_VALUE}(约2GB)
+     * @param duration    超时时长，默认：30
+     * @param unit        单位, 默认：分钟
+     * @return {@link PresignedPost} 表单上传
+     * @throws MinioException minio异常
+     */
+    public PresignedPost getPostPolicy(String bucketName, String fileName, String contentType,
+                                       long minSize, long maxSize, int duration, TimeUnit unit) throws MinioException {
+
+        MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
+        MinioUtils.notEmpty(fileName, ExceptionEnum.FILE_NAME_CANNOT_BE_EMPTY);
+        Assert.isTrue(minSize >= 0 && minSize <= maxSize && maxSize <= Integer.MAX_VALUE,
+                "非法的文件大小范围, 需满足 0 <= minSize <= maxSize <= {} 字节(约2GB)", Integer.MAX_VALUE);
+        if (duration <= ZERO) duration = DURATION;
+        if (ObjectUtil.isNull(unit)) unit = TimeUnit.MINUTES;
+
+        String objectName = MinioUtils.getFileName(fileName);
+        PostPolicy postPolicy = new PostPolicy(bucketName, ZonedDateTime.now().plusSeconds(unit.toSeconds(duration)));
+        postPolicy.addEqualsCondition(POLICY_KEY, objectName);
+        postPolicy.addContentLengthRangeCondition((int) minSize, (int) maxSize);
+        if (StrUtil.isNotBlank(contentType)) postPolicy.addStartsWithCondition(POLICY_CONTENT_TYPE, contentType);
+
+        MinioMeters.Sample sample = meters.start("getPostPolicy", bucketName, objectName);
+        try {
+            Map<String, String> formData = new LinkedHashMap<>(minioClient.getPresignedPostFormData(postPolicy));
+            formData.put(POLICY_KEY, objectName);
+
+            PresignedPost presignedPost = new PresignedPost();
+            presignedPost.setBucketName(bucketName);
+            presignedPost.setObjectName(objectName);
+            presignedPost.setUrl(StrUtil.removeSuffix(minioProperties.getEndpoint(), StrUtil.SLASH) + StrUtil.SLASH + bucketName);
+            presignedPost.setFormData(formData);
+            sample.success();
+            return presignedPost;
+        } catch (Exception e) {
+            sample.failure(e);
+            logger.error("获取表单上传策略异常 {}", e.getMessage());
+            throw new MinioException("获取表单上传策略异常", e);
+        }
+    }
+
+    /**
+     * 获得表单上传策略
+     *
+     * @param fileName    文件名称
+     * @param contentType 内容类型前缀, 如 image/, 为空时不限制
+     * @param maxSize     最大文件大小, 单位为字节, 不能超过 {@link Integer#MAX_VALUE}(约2GB)
+     * @return {@link PresignedPost} 表单上传
+     * @throws MinioException minio异常
+     */
+    public PresignedPost getPostPolicy(String fileName, String contentType, long maxSize) throws MinioException {
+        return getPostPolicy(minioProperties.getBucketName(), fileName, contentType, ZERO, maxSize, DURATION, TimeUnit.MINUTES);
+    }
+
+    /**
+     * 获得预签名分片上传url
+     *
+     * <p>
+     * 创建分片上传, 并为每个分片生成 PUT 上传地址, 客户端可并行上传各分片; 全部上传后调用
+     * {@link #completeMultipartUpload(String, String, String, int)}完成上传
+     * </p>
+     *
+     * @param bucketName bucket名称
+     * @param fileName   文件名称
+     * @param size       文件大小, 单位为字节
+     * @param duration   超时时长，默认：30
+     * @param unit       单位, 默认：分钟
+     * @return {@link PresignedMultipartUpload} 预签名分片上传
+     * @throws MinioException minio异常
+     */
+    public PresignedMultipartUpload getMultipartUploadUrls(String bucketName, String fileName, long size,
+                                                           int duration, TimeUnit unit) throws MinioException {
+
+        MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
+        MinioUtils.notEmpty(fileName, ExceptionEnum.FILE_NAME_CANNOT_BE_EMPTY);
+        Assert.isTrue(size > 0, "文件大小必须大于0");
+        if (duration <= ZERO) duration = DURATION;
+        if (ObjectUtil.isNull(unit)) unit = TimeUnit.MINUTES;
+
+        long partSize = multipartUploader.getPartSize(size);
+        Assert.isTrue(multipartUploader.isValidPartSize(partSize), "文件过大, 无法分片上传");
+        int partCount = (int) ((size + partSize - 1) / partSize);
+        String objectName = MinioUtils.getFileName(fileName);
+
+        String uploadId = null;
+        MinioMeters.Sample sample = meters.start("getMultipartUploadUrls", bucketName, objectName);
+        try {
+            uploadId = multipartUploader.createMultipartUpload(bucketName, objectName, FileUtil.getMimeType(fileName));
+
+            List<String> partUrls = new ArrayList<>(partCount);
+            for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+                Map<String, String> queryParams = new HashMap<>(4);
+                queryParams.put(PART_NUMBER, String.valueOf(partNumber));
+                queryParams.put(UPLOAD_ID, uploadId);
+
+                partUrls.add(minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                        .method(Method.PUT)
+                        .bucket(bucketName)
+                        .object(objectName)
+                        .expiry(duration, unit)
+                        .extraQueryParams(queryParams)
+                        .build()));
+            }
+
+            PresignedMultipartUpload presignedMultipartUpload = new PresignedMultipartUpload();
+            presignedMultipartUpload.setBucketName(bucketName);
+            presignedMultipartUpload.setObjectName(objectName);
+            presignedMultipartUpload.setUploadId(uploadId);
+            presignedMultipartUpload.setPartSize(partSize);
+            presignedMultipartUpload.setPartUrls(partUrls);
+            sample.success();
+            return presignedMultipartUpload;
+        } catch (Exception e) {
+            sample.failure(e);
+            logger.error("获取分片上传URL异常 {}", e.getMessage());
+            if (StrUtil.isNotBlank(uploadId)) this.abortMultipartUpload(bucketName, objectName, uploadId);
+            throw new MinioException("获取分片上传URL异常", e);
+        }
+    }
+
+    /**
+     * 获得预签名分片上传url
+     *
+     * @param fileName 文件名称
+     * @param size     文件大小, 单位为字节
+     * @return {@link PresignedMultipartUpload} 预签名分片上传
+     * @throws MinioException minio异常
+     */
+    public PresignedMultipartUpload getMultipartUploadUrls(String fileName, long size) throws MinioException {
+        return getMultipartUploadUrls(minioProperties.getBucketName(), fileName, size, DURATION, TimeUnit.MINUTES);
+    }
+
+    /**
+     * 完成分片上传
+     *
+     * <p>
+     * 以服务端已接收的分片完成上传, 客户端无需回传各分片的 ETag. 已接收的分片序号必须恰好为 1 到 partCount,
+     * 有缺失或多余的分片时不完成上传并抛出异常, 避免合并出残缺的对象
+     * </p>
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @param uploadId   上传ID
+     * @param partCount  分片数, 即 {@link PresignedMultipartUpload#getPartUrls()} 的数量
+     * @return {@link String} 对象名
+     * @throws MinioException minio异常
+     */
+    public String completeMultipartUpload(String bucketName, String objectName, String uploadId, int partCount) throws MinioException {
+
+        MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
+        MinioUtils.notEmpty(objectName, ExceptionEnum.OBJECT_NAME_CANNOT_BE_EMPTY);
+        Assert.notBlank(uploadId, "uploadId cannot be empty");
+        Assert.isTrue(partCount > 0, "分片数必须大于0");
+
+        MinioMeters.Sample sample = meters.start("completeMultipartUpload", bucketName, objectName);
+        try {
+            List<Part> parts = new ArrayList<>();
+            Integer partNumberMarker = null;
+            ListPartsResult result;
+            do {
+                result = extendedMinioClient.listParts(bucketName, objectName, uploadId, partNumberMarker).result();
+                parts.addAll(result.partList());
+                partNumberMarker = result.nextPartNumberMarker();
+            } while (result.isTruncated());
+
+            checkParts(parts, partCount);
+            String object = extendedMinioClient.completeMultipartUpload(bucketName, objectName, uploadId, parts.toArray(new Part[0])).object();
+            this.evict(bucketName, objectName);
+            sample.uploaded(parts.stream().mapToLong(Part::partSize).sum()).success();
+            return object;
+        } catch (Exception e) {
+            sample.failure(e);
+            logger.error("完成分片上传异常 {}", e.getMessage());
+            throw new MinioException("完成分片上传异常", e);
+        }
+    }
+
+    /**
+     * 校验已上传的分片序号恰好为 1 到 partCount
+     *
+     * @param parts     已上传的分片, 按序号升序
+     * @param partCount 分片数
+     */
+    private static void checkParts(List<Part> parts, int partCount) {
+        for (int i = 0; i < parts.size(); i++) {
+            if (parts.get(i).partNumber() != i + 1) {
+                throw new IllegalStateException(StrUtil.format("缺少分片 {}", i + 1));
+            }
+        }
+        if (parts.size() != partCount) {
+            throw new IllegalStateException(StrUtil.format("已上传 {} 个分片, 应为 {} 个", parts.size(), partCount));
+        }
+    }
+
+    /**
+     * 终止分片上传
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @param uploadId   上传ID
+     * @return {@link Boolean} 是否成功
+     */
+    public Boolean abortMultipartUpload(String bucketName, String objectName, String uploadId) {
+
+        MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
+        MinioUtils.notEmpty(objectName, ExceptionEnum.OBJECT_NAME_CANNOT_BE_EMPTY);
+
+        MinioMeters.Sample sample = meters.start("abortMultipartUpload", bucketName, objectName);
+        try {
+            extendedMinioClient.abortMultipartUpload(bucketName, objectName, uploadId);
+            sample.success();
+            return Boolean.TRUE;
+        } catch (Exception e) {
+            sample.failure(e);
+            logger.error("终止分片上传异常 {}", e.getMessage());
+        }
+
+        return Boolean.FALSE;
+    }
+
+    /**
+     * 终止过期的未完成分片上传
+     *
+     * <p>
+     * 只终止本模板的上传状态存储中记录、且超过指定时长未更新的可续传上传. 其他应用、其他实例或预签名直传发起的
+     * 未完成上传不受影响, 需清理时请为bucket配置生命周期规则 AbortIncompleteMultipartUpload
+     * </p>
+     *
+     * @param bucketName bucket名称
+     * @param duration   时长
+     * @param unit       时长单位
+     * @return {@link Integer} 终止的上传数
+     * @throws MinioException minio异常
+     */
+    public Integer abortIncompleteUploads(String bucketName, long duration, TimeUnit unit) throws MinioException {
+        MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
+        try {
+            return resumableUploader.abortStale(bucketName, unit.toMillis(duration));
+        } catch (Exception e) {
+            logger.error("终止过期分片上传异常 {}", e.getMessage());
+            throw new MinioException("终止过期分片上传异常", e);
+        }
+    }
+
+    /**
+     * 获得对象url
+     *
+     * @param objectName 对象名称
+     * @param duration   超时时长
+     * @param unit       单位
+     * @return {@link String} 对象url
+     * @throws MinioException minio异常
+     */
+    public String getObjectUrl(String objectName, int duration, TimeUnit unit) throws MinioException {
+        return this.getObjectUrl(minioProperties.getBucketName(), objectName, duration, unit);
+    }
+
+    /**
+     * 获得对象url
+     *
+     * @param objectName 对象名称
+     * @return {@link String} 对象url
+     * @throws MinioException minio异常
+     */
+    public String getObjectUrl(String objectName) throws MinioException {
+        return this.getObjectUrl(objectName, DURATION, TimeUnit.MINUTES);
+    }
+
+    /**
+     * 获得对象url
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @return {@link String} 对象url
+     * @throws MinioException minio异常
+     */
+    public String getObjectUrl(String bucketName, String objectName) throws MinioException {
+        return this.getObjectUrl(bucketName, objectName, DURATION, TimeUnit.MINUTES);
+    }
+
+    /**
+     * 删除对象
+     *
+     * @param bucketName bucket名称
+     * @param versionId  版本ID
+     * @param objectName 对象名称
+     * @return {@link Boolean} 是否成功
+     */
+    public Boolean removeObject(String bucketName, String objectName, String versionId) {
+
+        MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
+        MinioUtils.notEmpty(objectName, ExceptionEnum.OBJECT_NAME_CANNOT_BE_EMPTY);
+
+        RemoveObjectArgs.Builder builder = RemoveObjectArgs.builder().bucket(bucketName).object(objectName);
+        if (StrUtil.isNotBlank(versionId)) {
+            builder.versionId(versionId);
+        }
+
+        MinioMeters.Sample sample = meters.start("removeObject", bucketName, objectName);
+        try {
+            minioClient.removeObject(builder.build());
+            this.evict(bucketName, objectName);
+            sample.success();
+            return Boolean.TRUE;
+        } catch (Exception e) {
+            sample.failure(e);
+            logger.error("删除对象异常 {}", e.getMessage());
+        }
+
+        return Boolean.FALSE;
+    }
+
+    /**
+     * 删除对象
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @return {@link Boolean} 是否成功
+     */
+    public Boolean removeObject(String bucketName, String objectName) {
+        return removeObject(bucketName, objectName, null);
+    }
+
+    /**
+     * 删除对象
+     *
+     * @param objectName 对象名称
+     * @return {@link Boolean} 是否成功
+     */
+    public Boolean removeObject(String objectName) {
+        return removeObject(minioProperties.getBucketName(), objectName);
+    }
+
+    /**
+     * 删除对象
+     *
+     * <p>
+     * 按bucket分组, 每组按批次并发删除; 返回全部删除失败的对象, 包含错误码与错误信息
+     * </p>
+     *
+     * @param removeObjects 删除对象集合
+     * @return {@link List<RemoveObject>}  失败列表
+     */
+    public List<RemoveObject> removeObject(List<RemoveObject> removeObjects) {
+
+        MinioUtils.notEmpty(removeObjects, ExceptionEnum.THE_OBJECT_COLLECTION_CANNOT_BE_EMPTY);
+
+        removeObjects.stream().filter(a -> StrUtil.isBlank(a.getBucketName()))
+                .forEach(a -> a.setBucketName(minioProperties.getBucketName()));
+
+        // key: bucket, value: 删除集合
+        Map<String, List<RemoveObject>> removeObjectMap = removeObjects.stream()
+                .collect(Collectors.groupingBy(RemoveObject::getBucketName));
+
+        List<RemoveObject> failures = new ArrayList<>();
+        removeObjectMap.forEach((bucketName, removeObjectList) -> {
+            MinioMeters.Sample sample = meters.start("removeObjects", bucketName);
+            try {
+                failures.addAll(bulkRemover.remove(bucketName, removeObjectList.iterator(), null));
+                sample.success();
+            } catch (RuntimeException e) {
+                sample.failure(e);
+                throw e;
+            }
+        });
+        removeObjects.forEach(a -> this.evict(a.getBucketName(), a.getObjectName()));
+        return failures;
+    }
+
+    /**
+     * 删除列表中的对象
+     *
+     * <p>
+     * 边列表边删除, 不会一次加载全部对象; 目录项会被忽略, 列出版本时按版本删除
+     * </p>
+     *
+     * @param listObjectParam 列表对象参数
+     * @return {@link List<RemoveObject>}  失败列表
+     */
+    public List<RemoveObject> removeObjects(ListObjectParam listObjectParam) {
+
+        String bucketName = StrUtil.isBlank(listObjectParam.getBucketName()) ? minioProperties.getBucketName() : listObjectParam.getBucketName();
+        boolean includeVersions = listObjectParam.isIncludeVersions();
+
+        MinioMeters.Sample sample = meters.start("removeObjects", bucketName);
+        try (Stream<Item> items = this.streamObjects(listObjectParam)) {
+            List<RemoveObject> failures = bulkRemover.remove(bucketName, items.filter(a -> !a.isDir())
+                    .map(a -> new RemoveObject(bucketName, a.objectName(), includeVersions ? a.versionId() : null))
+                    .iterator(), null);
+            sample.success();
+            return failures;
+        } catch (RuntimeException e) {
+            sample.failure(e);
+            throw e;
+        } finally {
+            this.evictPrefix(bucketName, listObjectParam.getPrefix());
+        }
+    }
+
+    /**
+     * 列表对象信息
+     *
+     * @param listObjectParam 列表对象参数
+     * @return {@link List<Item>} 对象信息
+     * @throws MinioException minio异常
+     */
+    public List<Item> listObjects(ListObjectParam listObjectParam) throws MinioException {
+        ListObjectsArgs listObjectsArgs = this.getListObjectsArgs(listObjectParam);
+        MinioMeters.Sample sample = meters.start("listObjects", listObjectsArgs.bucket());
+        try {
+            List<Item> items = MinioUtils.getItems(minioClient.listObjects(listObjectsArgs));
+            sample.success();
+            return items;
+        } catch (RuntimeException e) {
+            sample.failure(e instanceof MinioException && e.getCause() != null ? e.getCause() : e);
+            throw e;
+        }
+    }
+
+    /**
+     * 列表对象信息, 惰性求值
+     *
+     * <p>
+     * 以 maxKeys 为页大小, 遍历到某一页末尾时才请求下一页, 不会一次加载全部对象
+     * </p>
+     *
+     * @param listObjectParam 列表对象参数
+     * @return {@link Stream<Item>} 对象流
+     * @throws MinioException minio异常
+     */
+    public Stream<Item> streamObjects(ListObjectParam listObjectParam) throws MinioException {
+        return MinioUtils.streamItems(minioClient.listObjects(this.getListObjectsArgs(listObjectParam)));
+    }
+
+    /**
+     * 并行列表对象信息, 递归列出全部对象
+     *
+     * <p>
+     * 以 prefix 下第一层目录为分片并发列出, 适用于对象数量巨大的bucket; 平铺在同一层的对象无法分片, 随第一层列表依次输出.
+     * 有序时输出顺序与顺序列表一致, 无序时先到先出. startAfter 只作用于其所在的目录分片.
+     * 流读取完毕或出现异常时自动释放线程池, 提前结束读取时不会, 必须以 try-with-resources 关闭流
+     * </p>
+     *
+     * @param listObjectParam 列表对象参数
+     * @param ordered         是否按对象名有序输出
+     * @return {@link Stream<Item>} 对象流
+     * @throws MinioException minio异常
+     */
+    public Stream<Item> listObjectsParallel(ListObjectParam listObjectParam, boolean ordered) throws MinioException {
+        Assert.isFalse(listObjectParam.isIncludeVersions(), "并行列表不支持版本");
+        return parallelObjectLister.list(listObjectParam, ordered);
+    }
+
+    /**
+     * 分页列表对象信息
+     *
+     * <p>
+     * 每次请求一页, 页大小为 maxKeys; 将返回的 nextContinuationToken 设置到 continuationToken 获取下一页. 不支持版本列表
+     * </p>
+     *
+     * @param listObjectParam 列表对象参数
+     * @return {@link ObjectPage} 分页结果
+     * @throws MinioException minio异常
+     */
+    public ObjectPage listObjectsPage(ListObjectParam listObjectParam) throws MinioException {
+
+        Assert.isFalse(listObjectParam.isIncludeVersions(), "分页列表不支持版本");
+        String bucketName = StrUtil.isBlank(listObjectParam.getBucketName()) ? minioProperties.getBucketName() : listObjectParam.getBucketName();
+        String delimiter = listObjectParam.isRecursive() ? null : StrUtil.SLASH;
 
+        MinioMeters.Sample sample = meters.start("listObjectsPage", bucketName);
         try {
-            return minioClient.getPresignedObjectUrl(objectUrlArgs);
+            ListBucketResultV2 result = extendedMinioClient.listObjectsV2(bucketName, delimiter,
+                    StrUtil.emptyToNull(listObjectParam.getStartAfter()), listObjectParam.getMaxKeys(),
+                    StrUtil.emptyToNull(listObjectParam.getPrefix()), StrUtil.emptyToNull(listObjectParam.getContinuationToken())).result();
+
+            List<Item> items = new ArrayList<>(result.contents());
+            for (Prefix prefix : result.commonPrefixes()) {
+                items.add(prefix.toItem());
+            }
+            items.forEach(item -> item.setEncodingType(result.encodingType()));
+
+            ObjectPage objectPage = new ObjectPage();
+            objectPage.setItems(items);
+            objectPage.setTruncated(result.isTruncated());
+            objectPage.setNextContinuationToken(result.nextContinuationToken());
+            sample.success();
+            return objectPage;
         } catch (Exception e) {
-            logger.error("获取对象URL异常 {}", e.getMessage());
-            throw new MinioException("获取对象URL异常", e);
+            sample.failure(e);
+            logger.error("分页列表对象异常 {}", e.getMessage());
+            throw new MinioException("分页列表对象异常", e);
         }
     }
 
     /**
-     * 获得对象url
+     * 获取对象读缓存统计
      *
-     * @param objectName 对象名称
-     * @param duration   超时时长
-     * @param unit       单位
-     * @return {@link String} 对象url
-     * @throws MinioException minio异常
+     * @return {@link CacheStats}
      */
-    public String getObjectUrl(String objectName, int duration, TimeUnit unit) throws MinioException {
-        return this.getObjectUrl(minioProperties.getBucketName(), objectName, duration, unit);
+    public CacheStats getObjectCacheStats() {
+        return objectCache.stats();
     }
 
     /**
-     * 获得对象url
+     * 获取对象信息缓存统计
      *
-     * @param objectName 对象名称
-     * @return {@link String} 对象url
-     * @throws MinioException minio异常
+     * @return {@link CacheStats}
      */
-    public String getObjectUrl(String objectName) throws MinioException {
-        return this.getObjectUrl(objectName, DURATION, TimeUnit.MINUTES);
+    public CacheStats getStatCacheStats() {
+        return statCache.stats();
     }
 
     /**
-     * 获得对象url
+     * 获取预签名URL缓存统计
      *
-     * @param bucketName bucket名称
-     * @param objectName 对象名称
-     * @return {@link String} 对象url
-     * @throws MinioException minio异常
+     * @return {@link CacheStats}
      */
-    public String getObjectUrl(String bucketName, String objectName) throws MinioException {
-        return this.getObjectUrl(bucketName, objectName, DURATION, TimeUnit.MINUTES);
+    public CacheStats getPresignCacheStats() {
+        return presignedUrlCache.stats();
     }
 
     /**
-     * 删除对象
+     * 获取传输缓冲区池统计
      *
-     * @param bucketName bucket名称
-     * @param versionId  版本ID
-     * @param objectName 对象名称
-     * @return {@link Boolean} 是否成功
+     * @return {@link BufferPoolStats}
      */
-    public Boolean removeObject(String bucketName, String objectName, String versionId) {
-
-        MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
-        MinioUtils.notEmpty(objectName, ExceptionEnum.OBJECT_NAME_CANNOT_BE_EMPTY);
-
-        RemoveObjectArgs.Builder builder = RemoveObjectArgs.builder().bucket(bucketName).object(objectName);
-        if (StrUtil.isNotBlank(versionId)) {
-            builder.versionId(versionId);
-        }
-
-        try {
-            minioClient.removeObject(builder.build());
-            return Boolean.TRUE;
-        } catch (Exception e) {
-            logger.error("删除对象异常 {}", e.getMessage());
-        }
+    public BufferPoolStats getBufferPoolStats() {
+        return bufferPool.stats();
+    }
 
-        return Boolean.FALSE;
+    /**
+     * 定期终止状态存储中记录的过期分片上传
+     *
+     * @param resumable 可续传上传配置
+     * @return {@link ScheduledExecutorService}
+     */
+    private ScheduledExecutorService scheduleCleanup(MinioProperties.Resumable resumable) {
+        ScheduledExecutorService scheduler = new ScheduledThreadPoolExecutor(1,
+                ThreadFactoryBuilder.create().setNamePrefix("minio-cleanup-").setDaemon(true).build());
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                int aborted = resumableUploader.abortStale(null, resumable.getStaleAfter());
+                if (aborted > 0) logger.info("终止 {} 个过期分片上传", aborted);
+            } catch (Exception e) {
+                logger.warn("清理过期分片上传异常 {}", e.getMessage());
+            }
+        }, resumable.getCleanupInterval(), resumable.getCleanupInterval(), TimeUnit.MILLISECONDS);
+        return scheduler;
     }
 
     /**
-     * 删除对象
+     * 对象变更后使本地缓存失效
      *
      * @param bucketName bucket名称
      * @param objectName 对象名称
-     * @return {@link Boolean} 是否成功
      */
-    public Boolean removeObject(String bucketName, String objectName) {
-        return removeObject(bucketName, objectName, null);
+    private void evict(String bucketName, String objectName) {
+        objectCache.invalidate(bucketName, objectName);
+        statCache.invalidate(bucketName, objectName);
+        contentAddressedUploader.invalidate(bucketName, objectName);
     }
 
     /**
-     * 删除对象
+     * 对象元数据变更后使对象信息缓存失效
      *
+     * @param bucketName bucket名称
      * @param objectName 对象名称
-     * @return {@link Boolean} 是否成功
      */
-    public Boolean removeObject(String objectName) {
-        return removeObject(minioProperties.getBucketName(), objectName);
+    private void evictMetadata(String bucketName, String objectName) {
+        statCache.invalidate(bucketName, objectName);
     }
 
     /**
-     * 删除对象
+     * 前缀下的对象变更后使本地缓存失效
      *
-     * @param removeObjects 删除对象集合
-     * @return {@link List<RemoveObject>}  失败列表
+     * @param bucketName bucket名称
+     * @param prefix     前缀
      */
-    public List<RemoveObject> removeObject(List<RemoveObject> removeObjects) {
-
-        MinioUtils.notEmpty(removeObjects, ExceptionEnum.THE_OBJECT_COLLECTION_CANNOT_BE_EMPTY);
-
-        removeObjects.stream().filter(a -> StrUtil.isBlank(a.getBucketName()))
-                .forEach(a -> a.setBucketName(minioProperties.getBucketName()));
-
-        // key: bucket, value: 删除集合
-        Map<String, List<RemoveObject>> removeObjectMap = removeObjects.stream()
-                .collect(Collectors.groupingBy(RemoveObject::getBucketName));
-
-        return removeObjectMap.entrySet().stream().map(object -> {
-
-            String bucketName = object.getKey();
-            List<RemoveObject> removeObjectList = object.getValue();
-
-            List<DeleteObject> objects = new LinkedList<>();
-            for (RemoveObject removeObject : removeObjectList) {
-                DeleteObject deleteObject = StrUtil.isBlank(removeObject.getVersionId())
-                        ? new DeleteObject(removeObject.getObjectName())
-                        : new DeleteObject(removeObject.getObjectName(), removeObject.getVersionId());
-                objects.add(deleteObject);
-            }
+    private void evictPrefix(String bucketName, String prefix) {
+        objectCache.invalidatePrefix(bucketName, prefix);
+        statCache.invalidatePrefix(bucketName, prefix);
+        contentAddressedUploader.invalidatePrefix(bucketName, prefix);
+    }
 
-            RemoveObjectsArgs removeObjectsArgs = RemoveObjectsArgs.builder()
-                    .objects(objects)
-                    .bucket(bucketName)
-                    .build();
-
-            Iterable<Result<DeleteError>> removeObjectsResults = minioClient.removeObjects(removeObjectsArgs);
-
-            RemoveObject removeObject = null;
-            for (Result<DeleteError> removeObjectsResult : removeObjectsResults) {
-                try {
-                    DeleteError deleteError = removeObjectsResult.get();
-                    logger.error("Error in deleting object " + deleteError.objectName() + "; " + deleteError.message());
-                    removeObject = new RemoveObject(deleteError.bucketName(), deleteError.objectName());
-                } catch (Exception e) {
-                    logger.error("删除对象异常 {}", e.getMessage());
-                }
-            }
-            return removeObject;
-        }).filter(ObjectUtil::isNotNull).collect(Collectors.toList());
+    /**
+     * 获取对象流, 不记录指标, 供模板内部读取对象的方法共用
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @param offset     起始偏移量, 为空时从头读取
+     * @param length     长度, 为空时读取到末尾
+     * @return {@link GetObjectResponse} 对象流
+     * @throws Exception 异常
+     */
+    private GetObjectResponse openObject(String bucketName, String objectName, Long offset, Long length) throws Exception {
+        GetObjectArgs.Builder builder = GetObjectArgs.builder()
+                .bucket(bucketName)
+                .object(objectName);
+        if (offset != null) builder.offset(offset);
+        if (length != null) builder.length(length);
+        return minioClient.getObject(builder.build());
     }
 
     /**
-     * 列表对象信息
+     * 构建列表对象参数, 列表、惰性列表与响应式列表共用
      *
      * @param listObjectParam 列表对象参数
-     * @return {@link List<Item>} 对象信息
-     * @throws MinioException minio异常
+     * @return {@link ListObjectsArgs}
      */
-    public List<Item> listObjects(ListObjectParam listObjectParam) throws MinioException {
+    ListObjectsArgs getListObjectsArgs(ListObjectParam listObjectParam) {
 
         String bucketName = StrUtil.isBlank(listObjectParam.getBucketName()) ? minioProperties.getBucketName() : listObjectParam.getBucketName();
 
@@ -496,15 +1630,13 @@ public class MinioTemplate {
         String prefix = listObjectParam.getPrefix();
         String startAfter = listObjectParam.getStartAfter();
         boolean includeVersions = listObjectParam.isIncludeVersions();
+        boolean recursive = listObjectParam.isRecursive();
 
         ListObjectsArgs.Builder builder = ListObjectsArgs.builder();
-        builder.bucket(bucketName).includeVersions(includeVersions).maxKeys(maxKeys);
+        builder.bucket(bucketName).includeVersions(includeVersions).maxKeys(maxKeys).recursive(recursive);
         if (StrUtil.isNotBlank(startAfter)) builder.startAfter(startAfter);
         if (StrUtil.isNotBlank(prefix)) builder.prefix(prefix);
-        ListObjectsArgs objectsArgs = builder.build();
-
-        Iterable<Result<Item>> listObjects = minioClient.listObjects(objectsArgs);
-        return MinioUtils.getItems(listObjects);
+        return builder.build();
     }
 
     /**
@@ -515,9 +1647,13 @@ public class MinioTemplate {
      */
     public List<Bucket> listBuckets() throws MinioException {
 
+        MinioMeters.Sample sample = meters.start("listBuckets", null);
         try {
-            return minioClient.listBuckets();
+            List<Bucket> buckets = minioClient.listBuckets();
+            sample.success();
+            return buckets;
         } catch (Exception e) {
+            sample.failure(e);
             logger.error("获取bucket集合异常 {}", e.getMessage());
             throw new MinioException("获取bucket集合异常", e);
         }
@@ -719,6 +1855,7 @@ public class MinioTemplate {
 
         try {
             minioClient.setObjectRetention(setObjectRetentionArgs);
+            this.evictMetadata(bucketName, objectName);
             return Boolean.TRUE;
         } catch (Exception e) {
             logger.error("设置对象保留时间异常 {}", e.getMessage());
@@ -792,6 +1929,7 @@ public class MinioTemplate {
 
         try {
             minioClient.enableObjectLegalHold(objectLegalHoldArgs);
+            this.evictMetadata(bucketName, objectName);
             return Boolean.TRUE;
         } catch (Exception e) {
             logger.error("enableObjectLegalHold {}", e.getMessage());
@@ -827,6 +1965,7 @@ public class MinioTemplate {
 
         try {
             minioClient.disableObjectLegalHold(objectLegalHoldArgs);
+            this.evictMetadata(bucketName, objectName);
             return Boolean.TRUE;
         } catch (Exception e) {
             logger.error("disableObjectLegalHold {}", e.getMessage());
@@ -904,6 +2043,10 @@ public class MinioTemplate {
     /**
      * 上传对象
      *
+     * <p>
+     * 长度未知, 经分片缓冲区暂存后上传; 已知长度时使用{@link #putObject(String, String, InputStream, long, String)}
+     * </p>
+     *
      * @param bucketName  bucket名称
      * @param objectName  对象名称
      * @param file        文件
@@ -912,19 +2055,48 @@ public class MinioTemplate {
      * @throws MinioException minio异常
      */
     public String putObject(String bucketName, String objectName, InputStream file, String contentType) throws MinioException {
+        return this.putObject(bucketName, objectName, file, -1L, contentType);
+    }
+
+    /**
+     * 上传已知长度的对象
+     *
+     * <p>
+     * 长度不超过一个分片时以确定的长度单次上传, 不占用分片缓冲区; 长度未知(小于0)或超过一个分片时按分片并发上传
+     * </p>
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  对象名称
+     * @param file        文件
+     * @param size        长度, 单位为字节, 未知时小于0
+     * @param contentType 内容类型
+     * @return {@link String} 上传对象名
+     * @throws MinioException minio异常
+     */
+    public String putObject(String bucketName, String objectName, InputStream file, long size, String contentType) throws MinioException {
         MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
         MinioUtils.notEmpty(objectName, ExceptionEnum.OBJECT_NAME_CANNOT_BE_EMPTY);
         MinioUtils.notEmpty(file, ExceptionEnum.FILE_NAME_CANNOT_BE_EMPTY);
         objectName = MinioUtils.getDateFolder() + StrUtil.SLASH + objectName;
+        MinioMeters.Sample sample = meters.start("putObject", bucketName, objectName);
+        CountingInputStream in = new CountingInputStream(file);
         try {
-            PutObjectArgs.Builder builder = PutObjectArgs.builder()
-                    .bucket(bucketName)
-                    .object(objectName)
-                    .stream(file, file.available(), -1);
-
-            if (StrUtil.isNotBlank(contentType)) builder.contentType(contentType);
-            return minioClient.putObject(builder.build()).object();
+            String object;
+            if (size >= 0 && size <= multipartUploader.getPartSize()) {
+                PutObjectArgs.Builder builder = PutObjectArgs.builder()
+                        .bucket(bucketName)
+                        .object(objectName)
+                        .stream(in, size, multipartUploader.getPartSize());
+                if (StrUtil.isNotBlank(contentType)) builder.contentType(contentType);
+                object = minioClient.putObject(builder.build()).object();
+            } else {
+                object = multipartUploader.upload(bucketName, objectName, in, contentType);
+            }
+            this.evict(bucketName, objectName);
+            sample.uploaded(in.getCount()).success();
+            return object;
         } catch (Exception e) {
+            sample.failure(e);
             logger.error("对象 : {} 上传异常 {}", objectName, e.getMessage());
             throw new MinioException("上传对象异常", e);
         }finally {
@@ -932,6 +2104,20 @@ public class MinioTemplate {
         }
     }
 
+    /**
+     * 上传已知长度的对象
+     *
+     * @param objectName  对象名称
+     * @param file        文件
+     * @param size        长度, 单位为字节, 未知时小于0
+     * @param contentType 内容类型
+     * @return {@link String} 上传对象名
+     * @throws MinioException minio异常
+     */
+    public String putObject(String objectName, InputStream file, long size, String contentType) throws MinioException {
+        return this.putObject(minioProperties.getBucketName(), objectName, file, size, contentType);
+    }
+
     /**
      * 上传对象
      *
@@ -973,6 +2159,11 @@ public class MinioTemplate {
     /**
      * 上传对象
      *
+     * <p>
+     * 以{@link MultipartFile#getSize()}作为确定的长度单次上传, 不占用分片缓冲区, 内容类型取自表单; 超过一个分片的文件先转存为临时文件
+     * (磁盘暂存的文件通常只需移动), 再按文件分片并发上传, 上传后删除临时文件
+     * </p>
+     *
      * @param bucketName bucket名称
      * @param objectName 对象名称
      * @param file       文件
@@ -980,11 +2171,45 @@ public class MinioTemplate {
      * @throws MinioException minio异常
      */
     public String putObject(String bucketName, String objectName, MultipartFile file) throws MinioException {
+        MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
+        MinioUtils.notEmpty(objectName, ExceptionEnum.OBJECT_NAME_CANNOT_BE_EMPTY);
         Assert.isFalse(file.isEmpty(), ExceptionEnum.FILE_NAME_CANNOT_BE_EMPTY.getValue());
-        try {
-            return this.putObject(bucketName, objectName, file.getInputStream(), null);
-        }catch (IOException e) {
-            logger.error("上传对象异常 {}", e.getMessage());
+
+        String contentType = file.getContentType();
+        long size = file.getSize();
+
+        MinioMeters.Sample sample = meters.start("putObject", bucketName, objectName);
+        if (size > multipartUploader.getPartSize()) {
+            File temp = FileUtil.file(FileUtil.getTmpDir(), UPLOAD_TEMP_PREFIX + IdUtil.fastSimpleUUID());
+            try {
+                file.transferTo(temp);
+                String object = this.uploadFile(bucketName, objectName, temp, contentType);
+                sample.uploaded(size).success();
+                return object;
+            } catch (Exception e) {
+                sample.failure(e);
+                logger.error("上传对象异常 {}", e.getMessage());
+                throw new MinioException("上传对象异常", e);
+            } finally {
+                FileUtil.del(temp);
+            }
+        }
+
+        objectName = MinioUtils.getDateFolder() + StrUtil.SLASH + objectName;
+        try (InputStream in = file.getInputStream()) {
+            PutObjectArgs.Builder builder = PutObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectName)
+                    .stream(in, size, multipartUploader.getPartSize());
+            if (StrUtil.isNotBlank(contentType)) builder.contentType(contentType);
+
+            String object = minioClient.putObject(builder.build()).object();
+            this.evict(bucketName, objectName);
+            sample.uploaded(size).success();
+            return object;
+        } catch (Exception e) {
+            sample.failure(e);
+            logger.error("对象 : {} 上传异常 {}", objectName, e.getMessage());
             throw new MinioException("上传对象异常", e);
         }
     }
@@ -1012,9 +2237,155 @@ public class MinioTemplate {
         Assert.isFalse(file.isEmpty(), ExceptionEnum.FILE_NAME_CANNOT_BE_EMPTY.getValue());
         String extName = FileUtil.extName(file.getOriginalFilename());
         Assert.notBlank(extName, "非法文件名称：" + file.getOriginalFilename());
+        if (minioProperties.getDedup().isEnabled()) {
+            return this.putObjectByHash(minioProperties.getBucketName(), file);
+        }
         return this.putObject(minioProperties.getBucketName(), IdUtil.fastSimpleUUID() + DateUtil.current() + StrUtil.DOT + extName, file);
     }
 
+    /**
+     * 按内容寻址上传对象
+     *
+     * <p>
+     * 以内容的 SHA-256 与原文件扩展名命名对象, 同名对象已存在时不重复上传, 直接返回已有的对象名.
+     * 不足一个分片的文件在内存中计算哈希, 否则先转存为临时文件
+     * </p>
+     *
+     * @param bucketName bucket名称
+     * @param file       文件
+     * @return {@link String} 对象名
+     * @throws MinioException minio异常
+     */
+    public String putObjectByHash(String bucketName, MultipartFile file) throws MinioException {
+        MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
+        Assert.isFalse(file.isEmpty(), ExceptionEnum.FILE_NAME_CANNOT_BE_EMPTY.getValue());
+
+        String extName = FileUtil.extName(file.getOriginalFilename());
+        String contentType = file.getContentType();
+        MinioMeters.Sample sample = meters.start("putObjectByHash", bucketName);
+        if (file.getSize() < multipartUploader.getPartSize()) {
+            try {
+                String object = contentAddressedUploader.upload(bucketName, file.getBytes(), extName, contentType);
+                sample.uploaded(file.getSize()).success();
+                return object;
+            } catch (Exception e) {
+                sample.failure(e);
+                logger.error("内容寻址上传异常 {}", e.getMessage());
+                throw new MinioException("内容寻址上传异常", e);
+            }
+        }
+
+        File temp = FileUtil.file(FileUtil.getTmpDir(), UPLOAD_TEMP_PREFIX + IdUtil.fastSimpleUUID());
+        try {
+            file.transferTo(temp);
+            String object = contentAddressedUploader.upload(bucketName, temp, extName, contentType);
+            sample.uploaded(file.getSize()).success();
+            return object;
+        } catch (Exception e) {
+            sample.failure(e);
+            logger.error("内容寻址上传异常 {}", e.getMessage());
+            throw new MinioException("内容寻址上传异常", e);
+        } finally {
+            FileUtil.del(temp);
+        }
+    }
+
+    /**
+     * 按内容寻址上传对象
+     *
+     * @param file 文件
+     * @return {@link String} 对象名
+     * @throws MinioException minio异常
+     */
+    public String putObjectByHash(MultipartFile file) throws MinioException {
+        return this.putObjectByHash(minioProperties.getBucketName(), file);
+    }
+
+    /**
+     * 按内容寻址上传对象
+     *
+     * <p>
+     * 上传前计算文件的 SHA-256, 同名对象已存在时不重复上传
+     * </p>
+     *
+     * @param bucketName  bucket名称
+     * @param file        文件
+     * @param contentType 内容类型
+     * @return {@link String} 对象名
+     * @throws MinioException minio异常
+     */
+    public String putObjectByHash(String bucketName, File file, String contentType) throws MinioException {
+        MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
+        Assert.isTrue(FileUtil.exist(file), ExceptionEnum.FILE_NAME_CANNOT_BE_EMPTY.getValue());
+        MinioMeters.Sample sample = meters.start("putObjectByHash", bucketName);
+        try {
+            String object = contentAddressedUploader.upload(bucketName, file, FileUtil.extName(file), contentType);
+            sample.uploaded(file.length()).success();
+            return object;
+        } catch (Exception e) {
+            sample.failure(e);
+            logger.error("内容寻址上传异常 {}", e.getMessage());
+            throw new MinioException("内容寻址上传异常", e);
+        }
+    }
+
+    /**
+     * 按内容寻址上传对象
+     *
+     * @param bucketName bucket名称
+     * @param data       字节数组
+     * @param extName    扩展名, 可为空
+     * @return {@link String} 对象名
+     * @throws MinioException minio异常
+     */
+    public String putObjectByHash(String bucketName, byte[] data, String extName) throws MinioException {
+        MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
+        MinioUtils.notEmpty(data, ExceptionEnum.FILE_NAME_CANNOT_BE_EMPTY);
+        String contentType = StrUtil.isBlank(extName) ? null : FileUtil.getMimeType(StrUtil.DOT + extName);
+        MinioMeters.Sample sample = meters.start("putObjectByHash", bucketName);
+        try {
+            String object = contentAddressedUploader.upload(bucketName, data, extName, contentType);
+            sample.uploaded(data.length).success();
+            return object;
+        } catch (Exception e) {
+            sample.failure(e);
+            logger.error("内容寻址上传异常 {}", e.getMessage());
+            throw new MinioException("内容寻址上传异常", e);
+        }
+    }
+
+    /**
+     * 按内容寻址上传对象
+     *
+     * <p>
+     * 输入流转存为临时文件的同时增量计算 SHA-256, 同名对象已存在时不重复上传; 输入流会被关闭
+     * </p>
+     *
+     * @param bucketName  bucket名称
+     * @param in          输入流
+     * @param extName     扩展名, 可为空
+     * @param contentType 内容类型
+     * @return {@link String} 对象名
+     * @throws MinioException minio异常
+     */
+    public String putObjectByHash(String bucketName, InputStream in, String extName, String contentType) throws MinioException {
+        MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
+        MinioUtils.notEmpty(in, ExceptionEnum.FILE_NAME_CANNOT_BE_EMPTY);
+        MinioMeters.Sample sample = meters.start("putObjectByHash", bucketName);
+        CountingInputStream countingIn = new CountingInputStream(in);
+        try {
+            String object = contentAddressedUploader.upload(bucketName, countingIn, extName, contentType);
+            sample.uploaded(countingIn.getCount()).success();
+            return object;
+        } catch (Exception e) {
+            sample.failure(e);
+            logger.error("内容寻址上传异常 {}", e.getMessage());
+            throw new MinioException("内容寻址上传异常", e);
+        } finally {
+            IoUtil.close(in);
+        }
+    }
+
     /**
      * 上传对象
      *
@@ -1025,7 +2396,21 @@ public class MinioTemplate {
      * @throws MinioException minio异常
      */
     public String putObject(String bucketName, String objectName, byte[] file) throws MinioException {
-        return this.putObject(bucketName, objectName, new ByteArrayInputStream(file));
+        MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
+        MinioUtils.notEmpty(objectName, ExceptionEnum.OBJECT_NAME_CANNOT_BE_EMPTY);
+        MinioUtils.notEmpty(file, ExceptionEnum.FILE_NAME_CANNOT_BE_EMPTY);
+        objectName = MinioUtils.getDateFolder() + StrUtil.SLASH + objectName;
+        MinioMeters.Sample sample = meters.start("putObject", bucketName, objectName);
+        try {
+            String object = multipartUploader.upload(bucketName, objectName, file, null);
+            this.evict(bucketName, objectName);
+            sample.uploaded(file.length).success();
+            return object;
+        } catch (Exception e) {
+            sample.failure(e);
+            logger.error("对象 : {} 上传异常 {}", objectName, e.getMessage());
+            throw new MinioException("上传对象异常", e);
+        }
     }
 
     /**
@@ -1043,6 +2428,11 @@ public class MinioTemplate {
     /**
      * 上传对象
      *
+     * <p>
+     * 超过一个分片的文件分片并发上传; 开启 minio.resumable 时持久化上传状态, 以相同的 bucket、对象名称与文件路径重试时
+     * 只上传缺失的分片, 续传的对象沿用首次上传时的日期目录
+     * </p>
+     *
      * @param bucketName  bucket名称
      * @param objectName  对象名称
      * @param file        文件
@@ -1054,20 +2444,46 @@ public class MinioTemplate {
         MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
         MinioUtils.notEmpty(objectName, ExceptionEnum.OBJECT_NAME_CANNOT_BE_EMPTY);
         Assert.isTrue(FileUtil.exist(file), ExceptionEnum.FILE_NAME_CANNOT_BE_EMPTY.getValue());
-        objectName = MinioUtils.getDateFolder() + StrUtil.SLASH + objectName;
+        MinioMeters.Sample sample = meters.start("putObject", bucketName, objectName);
         try {
+            String object = this.uploadFile(bucketName, objectName, file, contentType);
+            sample.uploaded(file.length()).success();
+            return object;
+        } catch (Exception e) {
+            sample.failure(e);
+            logger.error("文件 : {} 上传异常,  {}", objectName, e.getMessage());
+            throw new MinioException("文件上传异常", e);
+        }
+    }
 
+    /**
+     * 上传文件, 对象名称前加日期目录
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  对象名称
+     * @param file        文件
+     * @param contentType 内容类型
+     * @return {@link String} 文件名
+     * @throws Exception 异常
+     */
+    private String uploadFile(String bucketName, String objectName, File file, String contentType) throws Exception {
+        String datedObjectName = MinioUtils.getDateFolder() + StrUtil.SLASH + objectName;
+        String object;
+        if (file.length() > multipartUploader.getPartSize() && minioProperties.getResumable().isEnabled()) {
+            String stateKey = bucketName + StrUtil.SLASH + objectName + StrUtil.C_SPACE + file.getAbsolutePath();
+            object = resumableUploader.upload(bucketName, stateKey, datedObjectName, file, contentType);
+        } else if (file.length() > multipartUploader.getPartSize()) {
+            object = multipartUploader.upload(bucketName, datedObjectName, file, contentType);
+        } else {
             UploadObjectArgs.Builder builder = UploadObjectArgs.builder()
                     .bucket(bucketName)
-                    .object(objectName)
+                    .object(datedObjectName)
                     .filename(file.getAbsolutePath());
             if (StrUtil.isNotBlank(contentType)) builder.contentType(contentType);
-
-            return minioClient.uploadObject(builder.build()).object();
-        } catch (Exception e) {
-            logger.error("文件 : {} 上传异常,  {}", objectName, e.getMessage());
-            throw new MinioException("文件上传异常", e);
+            object = minioClient.uploadObject(builder.build()).object();
         }
+        this.evict(bucketName, object);
+        return object;
     }
 
     /**
@@ -1579,6 +2995,7 @@ public class MinioTemplate {
 
         try {
             minioClient.setObjectTags(objectTagsArgs);
+            this.evictMetadata(bucketName, objectName);
             return Boolean.TRUE;
         }catch (Exception e) {
             logger.error("设置对象标签异常 {}", e.getMessage());
@@ -1614,6 +3031,7 @@ public class MinioTemplate {
 
         try {
             minioClient.deleteObjectTags(objectTagsArgs);
+            this.evictMetadata(bucketName, objectName);
             return Boolean.TRUE;
         }catch (Exception e) {
             logger.error("删除对象标签异常 {}", e.getMessage());
@@ -1635,6 +3053,7 @@ public class MinioTemplate {
 
         try {
             minioClient.deleteObjectTags(objectTagsArgs);
+            this.evictMetadata(minioProperties.getBucketName(), objectName);
             return Boolean.TRUE;
         }catch (Exception e) {
             logger.error("删除对象标签异常 {}", e.getMessage());
@@ -0,0 +1,152 @@
+package cn.darkjrong.minio;
+
+import java.util.function.BiConsumer;
+
+/**
+ * 链路追踪
+ *
+ * <p>
+ * 模板操作、分片上传的各分片、分段下载的各段以及每次 HTTP 请求(含重试)各对应一个 span,
+ * HTTP 请求发出前通过 {@link #inject} 将链路上下文写入请求头. 默认不追踪;
+ * 使用 OpenTelemetry、Spring Cloud Sleuth 或 Micrometer Tracing 时注册适配对应追踪器的实现bean即可
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/11 09:15:26
+ */
+public interface MinioTracer {
+
+    String BUCKET = "minio.bucket";
+    String OBJECT = "minio.object";
+    String BYTES = "minio.bytes";
+    String PART_NUMBER = "minio.part.number";
+    String RETRY_ATTEMPT = "minio.retry.attempt";
+
+    /**
+     * 不追踪
+     */
+    MinioTracer NOOP = new MinioTracer() {
+
+        @Override
+        public Span currentSpan() {
+            return null;
+        }
+
+        @Override
+        public Span nextSpan(String name, Span parent) {
+            return Span.NOOP;
+        }
+
+        @Override
+        public void inject(Span span, BiConsumer<String, String> setter) {
+        }
+    };
+
+    /**
+     * 获取当前线程的span
+     *
+     * @return {@link Span} 当前span, 不存在时为空
+     */
+    Span currentSpan();
+
+    /**
+     * 创建并开始一个span
+     *
+     * @param name   名称
+     * @param parent 父span, 为空时以当前线程的span为父, 当前线程也没有时开始新的链路
+     * @return {@link Span}
+     */
+    Span nextSpan(String name, Span parent);
+
+    /**
+     * 将span的链路上下文写入请求头
+     *
+     * @param span   span
+     * @param setter 请求头设置
+     */
+    void inject(Span span, BiConsumer<String, String> setter);
+
+    /**
+     * span
+     */
+    interface Span {
+
+        Span NOOP = new Span() {
+
+            @Override
+            public Span tag(String key, String value) {
+                return this;
+            }
+
+            @Override
+            public Span tag(String key, long value) {
+                return this;
+            }
+
+            @Override
+            public void error(Throwable throwable) {
+            }
+
+            @Override
+            public Scope makeCurrent() {
+                return Scope.NOOP;
+            }
+
+            @Override
+            public void end() {
+            }
+        };
+
+        /**
+         * 设置属性
+         *
+         * @param key   属性名
+         * @param value 属性值
+         * @return {@link Span}
+         */
+        Span tag(String key, String value);
+
+        /**
+         * 设置属性
+         *
+         * @param key   属性名
+         * @param value 属性值
+         * @return {@link Span}
+         */
+        Span tag(String key, long value);
+
+        /**
+         * 记录异常
+         *
+         * @param throwable 异常
+         */
+        void error(Throwable throwable);
+
+        /**
+         * 设为当前线程的span, 关闭返回的作用域后恢复
+         *
+         * @return {@link Scope} 作用域
+         */
+        Scope makeCurrent();
+
+        /**
+         * 结束
+         */
+        void end();
+
+    }
+
+    /**
+     * 作用域
+     */
+    interface Scope extends AutoCloseable {
+
+        Scope NOOP = () -> {
+        };
+
+        @Override
+        void close();
+
+    }
+
+}
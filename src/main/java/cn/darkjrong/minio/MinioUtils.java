@@ -1,13 +1,19 @@
 package cn.darkjrong.minio;
 
 import cn.darkjrong.minio.enums.ExceptionEnum;
+import cn.darkjrong.minio.exceptions.MinioException;
+import cn.darkjrong.spring.boot.autoconfigure.MinioProperties;
+import cn.hutool.core.convert.Convert;
 import cn.hutool.core.date.DatePattern;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.lang.Assert;
+import cn.hutool.core.thread.ExecutorBuilder;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
 import cn.hutool.core.util.IdUtil;
 import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
+import io.minio.GetObjectResponse;
 import io.minio.Result;
 import io.minio.messages.Item;
 import org.slf4j.Logger;
@@ -16,7 +22,11 @@ import org.slf4j.LoggerFactory;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 /**
@@ -29,6 +39,8 @@ class MinioUtils {
 
     private static final Logger logger = LoggerFactory.getLogger(MinioUtils.class);
 
+    private static final String CONTENT_LENGTH = "Content-Length";
+
     /**
      * 数据转换
      *
@@ -37,7 +49,7 @@ class MinioUtils {
      */
     protected static List<Item> getItems(Iterable<Result<Item>> objects) {
         return StreamSupport
-                .stream(objects.spliterator(), true)
+                .stream(objects.spliterator(), false)
                 .map(itemResult -> {
                     try {
                         return itemResult.get();
@@ -48,6 +60,29 @@ class MinioUtils {
                 }).filter(ObjectUtil::isNotNull).collect(Collectors.toList());
     }
 
+    /**
+     * 数据转换, 惰性求值
+     *
+     * <p>
+     * 遍历到某一页末尾时才请求下一页, 解析失败抛出异常
+     * </p>
+     *
+     * @param objects 返回列表
+     * @return {@link Stream<Item>} 对象流
+     */
+    protected static Stream<Item> streamItems(Iterable<Result<Item>> objects) {
+        return StreamSupport
+                .stream(objects.spliterator(), false)
+                .map(itemResult -> {
+                    try {
+                        return itemResult.get();
+                    } catch (Exception e) {
+                        logger.error("Error while parsing list of objects {}", e.getMessage());
+                        throw new MinioException("列表对象异常", e);
+                    }
+                });
+    }
+
     /**
      * 判断是否为空
      *
@@ -81,6 +116,39 @@ class MinioUtils {
         Assert.notNull(object, exceptionEnum.getValue());
     }
 
+    /**
+     * 获取对象响应的内容长度
+     *
+     * @param response 对象响应
+     * @return long 内容长度, 未知时为-1
+     */
+    protected static long getContentLength(GetObjectResponse response) {
+        return Convert.toLong(response.headers().get(CONTENT_LENGTH), -1L);
+    }
+
+    /**
+     * 创建线程池
+     *
+     * <p>
+     * 线程为守护线程
+     * </p>
+     *
+     * @param executor   线程池配置
+     * @param namePrefix 线程名前缀
+     * @param handler    队列满时的拒绝策略
+     * @return {@link ExecutorService} 线程池
+     */
+    protected static ExecutorService newExecutor(MinioProperties.Executor executor, String namePrefix, RejectedExecutionHandler handler) {
+        return ExecutorBuilder.create()
+                .setCorePoolSize(executor.getCorePoolSize())
+                .setMaxPoolSize(executor.getMaxPoolSize())
+                .setKeepAliveTime(executor.getKeepAliveTime(), TimeUnit.MILLISECONDS)
+                .useArrayBlockingQueue(executor.getQueueCapacity())
+                .setThreadFactory(ThreadFactoryBuilder.create().setNamePrefix(namePrefix).setDaemon(true).build())
+                .setHandler(handler)
+                .build();
+    }
+
     /**
      * 获取日期文件夹
      *
@@ -0,0 +1,469 @@
+package cn.darkjrong.minio;
+
+import cn.darkjrong.minio.exceptions.MinioException;
+import cn.darkjrong.spring.boot.autoconfigure.MinioProperties;
+import cn.hutool.core.lang.Assert;
+import cn.hutool.core.thread.ThreadUtil;
+import cn.hutool.core.util.StrUtil;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.messages.Part;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * 分片上传引擎
+ *
+ * <p>
+ * 输入流按分片大小暂存到共享缓冲区池后并发上传; 文件按偏移量切分, 各分片直接从文件读取.
+ * HTTP客户端未安装重试拦截器时单个分片失败会单独重试, 已安装时由拦截器按重试预算重试, 不再叠加; 整体失败时尚未开始的分片直接跳过,
+ * 等待全部分片任务结束、缓冲区归还后再终止分片上传, 不取消任务, 以免排队中的任务持有的缓冲区无法归还. 每个分片是发起上传的线程当前span的子span
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/03/25 10:05:47
+ */
+class MultipartUploader {
+
+    private static final Logger logger = LoggerFactory.getLogger(MultipartUploader.class);
+
+    private static final long MIN_PART_SIZE = 5 * 1024 * 1024L;
+    private static final long MAX_PART_SIZE = 5 * 1024 * 1024 * 1024L;
+    private static final long MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+    private static final int MAX_PARTS = 10000;
+    private static final long RETRY_INTERVAL = 200L;
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+    private static final String SPAN_NAME = "minio.uploadPart";
+
+    private final ExtendedMinioClient minioClient;
+    private final ExecutorService executor;
+    private final BufferPool bufferPool;
+    private final int partSize;
+    private final int parallelism;
+    private final int maxRetries;
+    private final MinioTracer tracer;
+
+    MultipartUploader(ExtendedMinioClient minioClient, ExecutorService executor, MinioProperties.Multipart multipart,
+                      MinioTracer tracer, boolean httpRetry) {
+        this.minioClient = minioClient;
+        this.executor = executor;
+        this.tracer = tracer;
+        long configuredPartSize = Math.max(MIN_PART_SIZE, multipart.getPartSize());
+        Assert.isTrue(configuredPartSize <= MAX_PART_SIZE, "分片大小 {} 超过上限 {}", configuredPartSize, MAX_PART_SIZE);
+        Assert.isTrue(configuredPartSize <= MAX_BUFFER_SIZE, "分片大小 {} 超过分片缓冲区上限 {}", configuredPartSize, MAX_BUFFER_SIZE);
+        this.partSize = (int) configuredPartSize;
+        this.parallelism = Math.max(1, multipart.getParallelism());
+        this.maxRetries = httpRetry ? 0 : Math.max(0, multipart.getMaxRetries());
+        this.bufferPool = new BufferPool(partSize, Math.max(parallelism + 1, multipart.getBufferCount()));
+    }
+
+    BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * 获取分片大小
+     *
+     * @return int 分片大小
+     */
+    int getPartSize() {
+        return partSize;
+    }
+
+    /**
+     * 获取指定大小对象的分片大小, 保证分片数不超过上限
+     *
+     * @param size 对象大小
+     * @return long 分片大小, 超过单片上限时对象无法分片上传
+     */
+    long getPartSize(long size) {
+        return Math.max(partSize, (size + MAX_PARTS - 1) / MAX_PARTS);
+    }
+
+    /**
+     * 分片大小是否有效
+     *
+     * @param objectPartSize 分片大小
+     * @return boolean 是否有效
+     */
+    boolean isValidPartSize(long objectPartSize) {
+        return objectPartSize <= MAX_PART_SIZE;
+    }
+
+    /**
+     * 上传输入流
+     *
+     * <p>
+     * 不足一个分片的数据直接以确定的长度上传, 否则按分片并发上传
+     * </p>
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  对象名称
+     * @param in          输入流
+     * @param contentType 内容类型
+     * @return {@link String} 对象名
+     * @throws Exception 异常
+     */
+    String upload(String bucketName, String objectName, InputStream in, String contentType) throws Exception {
+
+        byte[] buffer = bufferPool.acquire();
+        int length;
+        try {
+            length = fill(in, buffer);
+        } catch (IOException e) {
+            bufferPool.release(buffer);
+            throw e;
+        }
+
+        if (length < partSize) {
+            try {
+                return this.putObject(bucketName, objectName, buffer, length, contentType);
+            } finally {
+                bufferPool.release(buffer);
+            }
+        }
+
+        String uploadId = createMultipartUpload(bucketName, objectName, contentType);
+        MinioTracer.Span parent = tracer.currentSpan();
+        Semaphore permits = new Semaphore(parallelism);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Future<Part>> futures = new ArrayList<>();
+
+        try {
+            for (int partNumber = 1; ; partNumber++) {
+                if (partNumber > MAX_PARTS) {
+                    throw new MinioException("对象 : {} 超过最大分片数 {}", objectName, MAX_PARTS);
+                }
+
+                permits.acquire();
+                futures.add(submitPart(bucketName, objectName, uploadId, partNumber, buffer, length, permits, failure, parent));
+                buffer = null;
+                if (length < partSize || failure.get() != null) break;
+
+                buffer = bufferPool.acquire();
+                length = fill(in, buffer);
+                if (length == 0) break;
+            }
+            return minioClient.completeMultipartUpload(bucketName, objectName, uploadId, await(futures)).object();
+        } catch (Exception e) {
+            failure.compareAndSet(null, e);
+            abort(bucketName, objectName, uploadId, futures);
+            throw e;
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    /**
+     * 上传字节数组
+     *
+     * <p>
+     * 不足一个分片的数组直接作为请求体上传, 不经过任何拷贝; 否则按输入流分片上传
+     * </p>
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  对象名称
+     * @param data        字节数组
+     * @param contentType 内容类型
+     * @return {@link String} 对象名
+     * @throws Exception 异常
+     */
+    String upload(String bucketName, String objectName, byte[] data, String contentType) throws Exception {
+        if (data.length < partSize) {
+            return this.putObject(bucketName, objectName, data, data.length, contentType);
+        }
+        return this.upload(bucketName, objectName, new ByteArrayInputStream(data), contentType);
+    }
+
+    /**
+     * 上传文件
+     *
+     * <p>
+     * 各分片从文件的对应偏移量直接读取, 不经过缓冲区池
+     * </p>
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  对象名称
+     * @param file        文件
+     * @param contentType 内容类型
+     * @return {@link String} 对象名
+     * @throws Exception 异常
+     */
+    String upload(String bucketName, String objectName, File file, String contentType) throws Exception {
+
+        long filePartSize = this.getFilePartSize(file);
+        String uploadId = createMultipartUpload(bucketName, objectName, contentType);
+        try {
+            return this.upload(bucketName, objectName, file, uploadId, filePartSize, Collections.emptyMap(), null);
+        } catch (Exception e) {
+            abort(bucketName, objectName, uploadId, Collections.emptyList());
+            throw e;
+        }
+    }
+
+    /**
+     * 上传文件中尚未完成的分片, 全部完成后合并
+     *
+     * <p>
+     * 失败时跳过尚未开始的分片, 等待进行中的分片结束后返回, 但不终止分片上传, 已完成的分片可用于续传
+     * </p>
+     *
+     * @param bucketName   bucket名称
+     * @param objectName   对象名称
+     * @param file         文件
+     * @param uploadId     上传ID
+     * @param filePartSize 分片大小
+     * @param completed    已完成的分片, 以分片序号为键
+     * @param listener     单个分片完成后的回调, 可为空
+     * @return {@link String} 对象名
+     * @throws Exception 异常
+     */
+    String upload(String bucketName, String objectName, File file, String uploadId, long filePartSize,
+                  Map<Integer, Part> completed, Consumer<Part> listener) throws Exception {
+
+        long size = file.length();
+        int partCount = (int) ((size + filePartSize - 1) / filePartSize);
+        MinioTracer.Span parent = tracer.currentSpan();
+        Semaphore permits = new Semaphore(parallelism);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Future<Part>> futures = new ArrayList<>(partCount);
+
+        try {
+            for (int i = 0; i < partCount; i++) {
+                int partNumber = i + 1;
+                if (completed.containsKey(partNumber)) continue;
+
+                long offset = i * filePartSize;
+                long length = Math.min(filePartSize, size - offset);
+
+                permits.acquire();
+                if (failure.get() != null) break;
+                futures.add(executor.submit(() -> {
+                    try {
+                        if (failure.get() != null) return null;
+                        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                            Part part = uploadPart(bucketName, objectName, uploadId, partNumber, () -> {
+                                raf.seek(offset);
+                                return raf;
+                            }, length, parent);
+                            if (listener != null) listener.accept(part);
+                            return part;
+                        }
+                    } catch (Exception e) {
+                        failure.compareAndSet(null, e);
+                        throw e;
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+
+            List<Part> parts = new ArrayList<>(completed.values());
+            parts.addAll(Arrays.asList(await(futures)));
+            parts.sort(Comparator.comparingInt(Part::partNumber));
+            return minioClient.completeMultipartUpload(bucketName, objectName, uploadId, parts.toArray(new Part[0])).object();
+        } catch (Exception e) {
+            failure.compareAndSet(null, e);
+            awaitQuietly(futures);
+            throw e;
+        }
+    }
+
+    /**
+     * 获取文件的分片大小
+     *
+     * @param file 文件
+     * @return long 分片大小
+     * @throws MinioException 文件过大时抛出
+     */
+    long getFilePartSize(File file) throws MinioException {
+        long filePartSize = this.getPartSize(file.length());
+        if (!this.isValidPartSize(filePartSize)) {
+            throw new MinioException("文件 : {} 过大, 无法分片上传", file.getName());
+        }
+        return filePartSize;
+    }
+
+    /**
+     * 提交缓冲区分片, 已有分片失败时跳过上传, 无论是否执行都归还缓冲区
+     */
+    private Future<Part> submitPart(String bucketName, String objectName, String uploadId, int partNumber,
+                                    byte[] buffer, int length, Semaphore permits, AtomicReference<Throwable> failure,
+                                    MinioTracer.Span parent) {
+        return executor.submit(() -> {
+            try {
+                if (failure.get() != null) return null;
+                return uploadPart(bucketName, objectName, uploadId, partNumber, () -> buffer, length, parent);
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+                throw e;
+            } finally {
+                bufferPool.release(buffer);
+                permits.release();
+            }
+        });
+    }
+
+    /**
+     * 上传分片, 失败时重试, 整个过程为一个 span
+     */
+    private Part uploadPart(String bucketName, String objectName, String uploadId, int partNumber,
+                            PartData data, long length, MinioTracer.Span parent) throws Exception {
+        MinioTracer.Span span = tracer.nextSpan(SPAN_NAME, parent)
+                .tag(MinioTracer.BUCKET, bucketName)
+                .tag(MinioTracer.OBJECT, objectName)
+                .tag(MinioTracer.PART_NUMBER, partNumber)
+                .tag(MinioTracer.BYTES, length);
+        MinioTracer.Scope scope = span.makeCurrent();
+        try {
+            return this.uploadPartWithRetry(bucketName, objectName, uploadId, partNumber, data, length, span);
+        } catch (Exception e) {
+            span.error(e);
+            throw e;
+        } finally {
+            scope.close();
+            span.end();
+        }
+    }
+
+    /**
+     * 上传分片, 失败时重试, HTTP 层已重试时不重试
+     */
+    private Part uploadPartWithRetry(String bucketName, String objectName, String uploadId, int partNumber,
+                                     PartData data, long length, MinioTracer.Span span) throws Exception {
+        for (int attempt = 0; ; attempt++) {
+            span.tag(MinioTracer.RETRY_ATTEMPT, attempt + 1);
+            try {
+                String etag = minioClient.uploadPart(bucketName, objectName, data.get(), length, uploadId, partNumber).etag();
+                return new Part(partNumber, etag);
+            } catch (Exception e) {
+                if (attempt >= maxRetries) {
+                    logger.error("对象 : {} 分片 {} 上传失败 {}", objectName, partNumber, e.getMessage());
+                    throw e;
+                }
+                logger.warn("对象 : {} 分片 {} 上传失败, 第 {} 次重试 {}", objectName, partNumber, attempt + 1, e.getMessage());
+                ThreadUtil.sleep(RETRY_INTERVAL << attempt);
+            }
+        }
+    }
+
+    /**
+     * 以单个请求上传数组的前 length 个字节
+     */
+    private String putObject(String bucketName, String objectName, byte[] data, int length, String contentType) throws Exception {
+        return minioClient.putObject(bucketName, objectName, data, length, headers(contentType)).object();
+    }
+
+    /**
+     * 创建分片上传
+     */
+    String createMultipartUpload(String bucketName, String objectName, String contentType) throws Exception {
+        return minioClient.createMultipartUpload(bucketName, objectName, headers(contentType)).result().uploadId();
+    }
+
+    /**
+     * 构建内容类型请求头
+     */
+    private static Multimap<String, String> headers(String contentType) {
+        Multimap<String, String> headers = HashMultimap.create();
+        headers.put(CONTENT_TYPE, StrUtil.isBlank(contentType) ? DEFAULT_CONTENT_TYPE : contentType);
+        return headers;
+    }
+
+    /**
+     * 等待全部分片完成
+     */
+    private Part[] await(List<Future<Part>> futures) throws Exception {
+        Part[] parts = new Part[futures.size()];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                parts[i] = futures.get(i).get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof Exception ? (Exception) cause : e;
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * 等待全部分片任务结束, 忽略其结果
+     */
+    private static void awaitQuietly(List<Future<Part>> futures) {
+        boolean interrupted = false;
+        for (Future<Part> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (Exception e) {
+                    break;
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * 等待全部分片任务结束后终止分片上传
+     */
+    private void abort(String bucketName, String objectName, String uploadId, List<Future<Part>> futures) {
+        awaitQuietly(futures);
+        try {
+            minioClient.abortMultipartUpload(bucketName, objectName, uploadId);
+        } catch (Exception e) {
+            logger.error("对象 : {} 终止分片上传异常 {}", objectName, e.getMessage());
+        }
+    }
+
+    /**
+     * 读取分片到缓冲区
+     *
+     * @param in     输入流
+     * @param buffer 缓冲区
+     * @return int 读取的字节数, 小于缓冲区大小表示流已结束
+     * @throws IOException IO异常
+     */
+    private static int fill(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = in.read(buffer, total, buffer.length - total);
+            if (read == -1) break;
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * 分片数据, 每次重试重新获取
+     */
+    @FunctionalInterface
+    private interface PartData {
+
+        Object get() throws IOException;
+
+    }
+
+
+}
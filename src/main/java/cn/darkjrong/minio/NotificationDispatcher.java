@@ -0,0 +1,320 @@
+package cn.darkjrong.minio;
+
+import cn.darkjrong.minio.enums.ExceptionEnum;
+import cn.darkjrong.spring.boot.autoconfigure.MinioProperties;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.StrUtil;
+import io.minio.CloseableIterator;
+import io.minio.ListenBucketNotificationArgs;
+import io.minio.MinioClient;
+import io.minio.Result;
+import io.minio.messages.NotificationRecords;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 对象通知分发引擎
+ *
+ * <p>
+ * bucket、前缀、后缀与事件相同的订阅共享一个长连接通知流, 由一个监听线程读取, 每条通知到达后立即分发给各处理器.
+ * 每个处理器有独立的有界队列, 在共享线程池上按到达顺序串行处理; 队列满时监听线程阻塞, 暂停读取通知流.
+ * 通知流断开后按指数退避重新连接, 关闭时停止监听, 在关闭超时内处理完各队列中剩余的通知
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/13 10:16:42
+ */
+public class NotificationDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private static final int BATCH_SIZE = 64;
+    private static final long OFFER_INTERVAL = 100L;
+
+    private final MinioClient minioClient;
+    private final int queueCapacity;
+    private final long initialBackoff;
+    private final long maxBackoff;
+    private final long shutdownTimeout;
+    private final ExecutorService executor;
+    private final ThreadFactory listenerFactory;
+    private final Map<String, Subscription> subscriptions = new LinkedHashMap<>();
+
+    private volatile boolean running;
+    private boolean closed;
+
+    public NotificationDispatcher(MinioClient minioClient, MinioProperties.Notification notification) {
+        this.minioClient = minioClient;
+        this.queueCapacity = Math.max(1, notification.getQueueCapacity());
+        this.initialBackoff = Math.max(1L, notification.getInitialBackoff());
+        this.maxBackoff = Math.max(initialBackoff, notification.getMaxBackoff());
+        this.shutdownTimeout = Math.max(0L, notification.getShutdownTimeout());
+        this.executor = MinioUtils.newExecutor(notification.getExecutor(), "minio-notification-", new ThreadPoolExecutor.CallerRunsPolicy());
+        this.listenerFactory = ThreadFactoryBuilder.create().setNamePrefix("minio-notification-listener-").setDaemon(true).build();
+    }
+
+    /**
+     * 订阅通知, 启动后订阅的立即开始监听
+     *
+     * @param bucketName bucket名称
+     * @param prefix     前缀
+     * @param suffix     后缀
+     * @param events     事件 , 支持的事件类型：https://docs.min.io/docs/minio-bucket-notification-guide.html
+     * @param name       处理器名称, 用于日志
+     * @param handler    处理器
+     */
+    public synchronized void subscribe(String bucketName, String prefix, String suffix, String[] events,
+                                       String name, Consumer<NotificationRecords> handler) {
+
+        MinioUtils.notEmpty(bucketName, ExceptionEnum.BUCKET_NAME_CANNOT_BE_EMPTY);
+        if (closed) throw new IllegalStateException("通知分发已关闭");
+
+        String[] sortedEvents = events.clone();
+        Arrays.sort(sortedEvents);
+        String key = StrUtil.join(StrUtil.SLASH, bucketName, prefix, suffix, StrUtil.join(StrUtil.COMMA, (Object[]) sortedEvents));
+
+        Subscription subscription = subscriptions.get(key);
+        if (subscription == null) {
+            subscription = new Subscription(key, ListenBucketNotificationArgs.builder()
+                    .bucket(bucketName).prefix(prefix).suffix(suffix).events(sortedEvents).build());
+            subscriptions.put(key, subscription);
+            if (running) subscription.start();
+        }
+        subscription.handlers.add(new Handler(name, handler));
+        logger.info("处理器 {} 订阅 {}", name, key);
+    }
+
+    /**
+     * 开始监听全部订阅
+     */
+    public synchronized void start() {
+        if (running || closed) return;
+        running = true;
+        subscriptions.values().forEach(Subscription::start);
+    }
+
+    /**
+     * 停止监听并关闭处理器线程池
+     *
+     * <p>
+     * 线程池关闭后不再接受处理器的后续批次, 线程池结束后由当前线程依次处理各队列中剩余的通知,
+     * 全部步骤共用关闭超时, 超时后尚未处理的通知被丢弃
+     * </p>
+     */
+    public void shutdown() {
+        List<Subscription> current;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            running = false;
+            current = new ArrayList<>(subscriptions.values());
+        }
+
+        current.forEach(Subscription::close);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeout);
+        try {
+            for (Subscription subscription : current) {
+                if (subscription.thread != null) subscription.thread.join(Math.max(1L, remaining(deadline, TimeUnit.MILLISECONDS)));
+            }
+            executor.shutdown();
+            if (executor.awaitTermination(remaining(deadline, TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS)) {
+                for (Subscription subscription : current) {
+                    for (Handler handler : subscription.handlers) {
+                        handler.drain(deadline);
+                    }
+                }
+            } else {
+                logger.warn("通知处理器未在 {} 毫秒内完成, 强制关闭", shutdownTimeout);
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+
+        for (Subscription subscription : current) {
+            for (Handler handler : subscription.handlers) {
+                int dropped = handler.queue.size();
+                if (dropped > 0) logger.warn("处理器 {} 丢弃 {} 条未处理的通知", handler.name, dropped);
+            }
+        }
+    }
+
+    private static long remaining(long deadline, TimeUnit unit) {
+        return unit.convert(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 计算重新连接的退避时间, 取指数增长上限的一半到上限之间的随机值
+     */
+    private long backoff(int failures) {
+        long ceiling = Math.min(maxBackoff, initialBackoff << Math.min(failures, 30));
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+
+    /**
+     * 订阅, 持有一个通知流
+     */
+    private class Subscription implements Runnable {
+
+        private final String key;
+        private final ListenBucketNotificationArgs args;
+        private final List<Handler> handlers = new CopyOnWriteArrayList<>();
+
+        private volatile Thread thread;
+        private volatile CloseableIterator<Result<NotificationRecords>> stream;
+
+        Subscription(String key, ListenBucketNotificationArgs args) {
+            this.key = key;
+            this.args = args;
+        }
+
+        void start() {
+            thread = listenerFactory.newThread(this);
+            thread.start();
+        }
+
+        /**
+         * 关闭通知流, 唤醒阻塞在读取或入队上的监听线程
+         */
+        void close() {
+            CloseableIterator<Result<NotificationRecords>> current = stream;
+            if (current != null) {
+                try {
+                    current.close();
+                } catch (Exception e) {
+                    logger.debug("订阅 {} 关闭通知流异常 {}", key, e.getMessage());
+                }
+            }
+            if (thread != null) thread.interrupt();
+        }
+
+        /**
+         * 持续监听, 一次连接收到过通知或保持超过最大退避时间时重置退避
+         */
+        @Override
+        public void run() {
+            int failures = 0;
+            while (running) {
+                long connectedAt = System.currentTimeMillis();
+                boolean received = false;
+                try (CloseableIterator<Result<NotificationRecords>> iterator = minioClient.listenBucketNotification(args)) {
+                    stream = iterator;
+                    if (!running) break;
+                    logger.info("订阅 {} 开始监听", key);
+
+                    while (running && iterator.hasNext()) {
+                        NotificationRecords records = iterator.next().get();
+                        received = true;
+                        for (Handler handler : handlers) {
+                            handler.offer(records);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (Exception e) {
+                    if (!running) break;
+                    logger.warn("订阅 {} 监听异常 {}", key, e.getMessage());
+                } finally {
+                    stream = null;
+                }
+                if (!running) break;
+
+                if (received || System.currentTimeMillis() - connectedAt >= maxBackoff) failures = 0;
+                long delay = backoff(failures++);
+                logger.info("订阅 {} 通知流断开, {} 毫秒后重新连接", key, delay);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            logger.info("订阅 {} 停止监听", key);
+        }
+    }
+
+    /**
+     * 处理器, 同一时间最多一个线程处理其队列, 每次最多处理一批后让出线程
+     */
+    private class Handler implements Runnable {
+
+        private final String name;
+        private final Consumer<NotificationRecords> consumer;
+        private final BlockingQueue<NotificationRecords> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Handler(String name, Consumer<NotificationRecords> consumer) {
+            this.name = name;
+            this.consumer = consumer;
+        }
+
+        /**
+         * 通知入队, 队列满时阻塞直到有空位或停止监听
+         */
+        void offer(NotificationRecords records) throws InterruptedException {
+            while (!queue.offer(records, OFFER_INTERVAL, TimeUnit.MILLISECONDS)) {
+                if (!running) return;
+            }
+            this.schedule();
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(Boolean.FALSE, Boolean.TRUE)) executor.execute(this);
+        }
+
+        /**
+         * 在当前线程处理队列中剩余的通知, 直到队列为空或超过截止时间, 只在线程池结束后调用
+         *
+         * @param deadline 截止时间, {@link System#nanoTime()} 的取值
+         */
+        void drain(long deadline) {
+            while (System.nanoTime() < deadline) {
+                NotificationRecords records = queue.poll();
+                if (records == null) return;
+                this.accept(records);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    NotificationRecords records = queue.poll();
+                    if (records == null) break;
+                    this.accept(records);
+                }
+            } finally {
+                scheduled.set(Boolean.FALSE);
+                if (!queue.isEmpty()) this.schedule();
+            }
+        }
+
+        private void accept(NotificationRecords records) {
+            try {
+                consumer.accept(records);
+            } catch (Exception e) {
+                logger.error("处理器 {} 处理通知异常 {}", name, e.getMessage());
+            }
+        }
+    }
+
+
+}
@@ -0,0 +1,419 @@
+package cn.darkjrong.minio;
+
+import cn.darkjrong.minio.domain.CacheStats;
+import cn.darkjrong.spring.boot.autoconfigure.MinioProperties;
+import cn.hutool.core.collection.CollectionUtil;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.SecureUtil;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.MinioClient;
+import io.minio.StatObjectArgs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 对象读缓存
+ *
+ * <p>
+ * 两级缓存: 堆内按总字节数做 LRU 淘汰, 淘汰的条目降级到可选的磁盘目录, 磁盘同样按总字节数 LRU 淘汰.
+ * 条目超过再验证间隔后以 statObject 比对 ETag, 一致则继续使用; 本模板的上传、复制、删除会使对应条目失效.
+ * 失效时递增对象名所在分段的版本号, 条目记录读取时的版本号, 放入堆内或降级到磁盘时版本号已变化则丢弃, 避免失效后写回旧数据.
+ * 磁盘缓存使用配置目录下专属的子目录, 索引只保存在内存中, 启动时清空该子目录
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/02 09:41:18
+ */
+class ObjectCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ObjectCache.class);
+
+    private static final String QUOTE = "\"";
+    private static final String FILE_SUFFIX = ".cache";
+    private static final String DISK_SUBDIR = "minio-object-cache";
+    private static final int VERSION_STRIPES = 256;
+
+    private final MinioClient minioClient;
+    private final TransferBufferPool bufferPool;
+    private final boolean enabled;
+    private final long maxBytes;
+    private final long maxObjectSize;
+    private final long revalidateInterval;
+    private final List<String> includes;
+    private final DiskTier diskTier;
+
+    private final LinkedHashMap<String, Entry> heap = new LinkedHashMap<>(16, 0.75F, true);
+    private long heapBytes;
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+    private final AtomicLong fileSequence = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    ObjectCache(MinioClient minioClient, MinioProperties.Cache cache, TransferBufferPool bufferPool) {
+        this.minioClient = minioClient;
+        this.bufferPool = bufferPool;
+        this.enabled = cache.isEnabled();
+        this.maxBytes = cache.getMaxBytes();
+        this.maxObjectSize = Math.min(cache.getMaxObjectSize(), cache.getMaxBytes());
+        this.revalidateInterval = cache.getRevalidateInterval();
+        this.includes = CollectionUtil.isEmpty(cache.getIncludes()) ? new ArrayList<>() : new ArrayList<>(cache.getIncludes());
+        this.diskTier = enabled && StrUtil.isNotBlank(cache.getDiskDir()) ? new DiskTier(cache.getDiskDir(), cache.getDiskMaxBytes()) : null;
+    }
+
+    /**
+     * 是否缓存该对象
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @return boolean 是否缓存
+     */
+    boolean isCacheable(String bucketName, String objectName) {
+        if (!enabled) return false;
+        if (includes.isEmpty()) return true;
+
+        String path = bucketName + StrUtil.SLASH + objectName;
+        for (String include : includes) {
+            boolean matched = StrUtil.contains(include, StrUtil.SLASH)
+                    ? StrUtil.startWith(path, include)
+                    : StrUtil.equals(include, bucketName);
+            if (matched) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 读取对象, 未命中或已变更时从服务端获取
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @param sample     操作记录, 记录是否命中缓存
+     * @return {@link byte[]} 对象字节数组, 每次返回新的副本
+     * @throws Exception 异常
+     */
+    byte[] get(String bucketName, String objectName, MinioMeters.Sample sample) throws Exception {
+
+        String key = key(bucketName, objectName);
+        Entry entry = this.lookup(key);
+
+        if (entry != null) {
+            if (System.currentTimeMillis() - entry.validatedAt < revalidateInterval) {
+                hits.increment();
+                sample.cacheHit(Boolean.TRUE);
+                return entry.data.clone();
+            }
+
+            String etag;
+            try {
+                etag = stripQuote(minioClient.statObject(StatObjectArgs.builder().bucket(bucketName).object(objectName).build()).etag());
+            } catch (Exception e) {
+                this.invalidate(bucketName, objectName);
+                throw e;
+            }
+            if (StrUtil.equals(etag, entry.etag)) {
+                hits.increment();
+                sample.cacheHit(Boolean.TRUE);
+                entry.validatedAt = System.currentTimeMillis();
+                return entry.data.clone();
+            }
+            this.invalidate(bucketName, objectName);
+        }
+
+        misses.increment();
+        sample.cacheHit(Boolean.FALSE);
+        long version = this.version(key);
+        GetObjectArgs getObjectArgs = GetObjectArgs.builder()
+                .bucket(bucketName)
+                .object(objectName)
+                .build();
+
+        try (GetObjectResponse response = minioClient.getObject(getObjectArgs)) {
+            String etag = stripQuote(response.headers().get("ETag"));
+            byte[] data = bufferPool.readBytes(response, MinioUtils.getContentLength(response));
+            if (StrUtil.isNotBlank(etag) && data.length <= maxObjectSize) {
+                this.put(key, new Entry(etag, data.clone(), System.currentTimeMillis(), version));
+            }
+            return data;
+        }
+    }
+
+    /**
+     * 使对象失效
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     */
+    void invalidate(String bucketName, String objectName) {
+        if (!enabled) return;
+
+        String key = key(bucketName, objectName);
+        versions.incrementAndGet(stripe(key));
+        synchronized (heap) {
+            Entry entry = heap.remove(key);
+            if (entry != null) heapBytes -= entry.data.length;
+        }
+        if (diskTier != null) diskTier.remove(key);
+    }
+
+    /**
+     * 使前缀下的对象失效
+     *
+     * @param bucketName bucket名称
+     * @param prefix     前缀, 为空时使整个bucket失效
+     */
+    void invalidatePrefix(String bucketName, String prefix) {
+        if (!enabled) return;
+
+        String keyPrefix = key(bucketName, StrUtil.nullToEmpty(prefix));
+        for (int i = 0; i < VERSION_STRIPES; i++) {
+            versions.incrementAndGet(i);
+        }
+        synchronized (heap) {
+            Iterator<Map.Entry<String, Entry>> iterator = heap.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Entry> entry = iterator.next();
+                if (entry.getKey().startsWith(keyPrefix)) {
+                    heapBytes -= entry.getValue().data.length;
+                    iterator.remove();
+                }
+            }
+        }
+        if (diskTier != null) diskTier.removePrefix(keyPrefix);
+    }
+
+    /**
+     * 获取统计信息
+     *
+     * @return {@link CacheStats}
+     */
+    CacheStats stats() {
+        long size;
+        long bytes;
+        synchronized (heap) {
+            size = heap.size();
+            bytes = heapBytes;
+        }
+        if (diskTier != null) {
+            synchronized (diskTier) {
+                size += diskTier.index.size();
+                bytes += diskTier.bytes;
+            }
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size, bytes);
+    }
+
+    /**
+     * 查找条目, 磁盘命中时提升到堆内
+     */
+    private Entry lookup(String key) {
+        synchronized (heap) {
+            Entry entry = heap.get(key);
+            if (entry != null) return entry;
+        }
+        if (diskTier == null) return null;
+
+        Entry entry = diskTier.get(key);
+        if (entry != null) this.put(key, entry);
+        return entry;
+    }
+
+    /**
+     * 放入堆内, 超出容量时按 LRU 淘汰到磁盘; 读取后对象已失效时丢弃
+     */
+    private void put(String key, Entry entry) {
+        List<Map.Entry<String, Entry>> evicted = new ArrayList<>();
+        synchronized (heap) {
+            if (this.version(key) != entry.version) return;
+            Entry previous = heap.put(key, entry);
+            if (previous != null) heapBytes -= previous.data.length;
+            heapBytes += entry.data.length;
+
+            Iterator<Map.Entry<String, Entry>> iterator = heap.entrySet().iterator();
+            while (heapBytes > maxBytes && iterator.hasNext()) {
+                Map.Entry<String, Entry> eldest = iterator.next();
+                heapBytes -= eldest.getValue().data.length;
+                iterator.remove();
+                evicted.add(eldest);
+            }
+        }
+
+        for (Map.Entry<String, Entry> eldest : evicted) {
+            if (diskTier == null) {
+                evictions.increment();
+            } else {
+                diskTier.put(eldest.getKey(), eldest.getValue());
+            }
+        }
+        if (diskTier != null) diskTier.remove(key);
+    }
+
+    private long version(String key) {
+        return versions.get(stripe(key));
+    }
+
+    private static int stripe(String key) {
+        return (key.hashCode() & Integer.MAX_VALUE) % VERSION_STRIPES;
+    }
+
+    private static String key(String bucketName, String objectName) {
+        return bucketName + StrUtil.SLASH + objectName;
+    }
+
+    private static String stripQuote(String etag) {
+        return StrUtil.strip(etag, QUOTE);
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static class Entry {
+
+        private final String etag;
+        private final byte[] data;
+        private final long version;
+        private volatile long validatedAt;
+
+        Entry(String etag, byte[] data, long validatedAt, long version) {
+            this.etag = etag;
+            this.data = data;
+            this.validatedAt = validatedAt;
+            this.version = version;
+        }
+    }
+
+    /**
+     * 磁盘条目
+     */
+    private static class DiskEntry {
+
+        private final String etag;
+        private final File file;
+        private final long size;
+        private final long validatedAt;
+        private final long version;
+
+        DiskEntry(String etag, File file, long size, long validatedAt, long version) {
+            this.etag = etag;
+            this.file = file;
+            this.size = size;
+            this.validatedAt = validatedAt;
+            this.version = version;
+        }
+    }
+
+    /**
+     * 磁盘缓存, 每次写入使用新文件, 同一对象的并发写入互不覆盖
+     */
+    private class DiskTier {
+
+        private final File dir;
+        private final long maxBytes;
+        private final LinkedHashMap<String, DiskEntry> index = new LinkedHashMap<>(16, 0.75F, true);
+        private long bytes;
+
+        DiskTier(String dir, long maxBytes) {
+            this.dir = FileUtil.mkdir(FileUtil.file(dir, DISK_SUBDIR));
+            this.maxBytes = maxBytes;
+            File[] files = this.dir.listFiles((d, name) -> name.endsWith(FILE_SUFFIX));
+            if (files != null) {
+                for (File file : files) FileUtil.del(file);
+            }
+        }
+
+        Entry get(String key) {
+            DiskEntry diskEntry;
+            synchronized (this) {
+                diskEntry = index.get(key);
+            }
+            if (diskEntry == null) return null;
+
+            try {
+                return new Entry(diskEntry.etag, FileUtil.readBytes(diskEntry.file), diskEntry.validatedAt, diskEntry.version);
+            } catch (Exception e) {
+                logger.warn("读取磁盘缓存 : {} 异常 {}", key, e.getMessage());
+                this.remove(key);
+                return null;
+            }
+        }
+
+        void put(String key, Entry entry) {
+            if (entry.data.length > maxBytes) {
+                evictions.increment();
+                return;
+            }
+
+            File file = FileUtil.file(dir, SecureUtil.sha256(key) + StrUtil.DASHED + fileSequence.incrementAndGet() + FILE_SUFFIX);
+            try {
+                FileUtil.writeBytes(entry.data, file);
+            } catch (Exception e) {
+                logger.warn("写入磁盘缓存 : {} 异常 {}", key, e.getMessage());
+                evictions.increment();
+                return;
+            }
+
+            List<File> deleted = new ArrayList<>();
+            synchronized (this) {
+                if (version(key) != entry.version) {
+                    FileUtil.del(file);
+                    return;
+                }
+                DiskEntry previous = index.put(key, new DiskEntry(entry.etag, file, entry.data.length, entry.validatedAt, entry.version));
+                if (previous != null) {
+                    bytes -= previous.size;
+                    deleted.add(previous.file);
+                }
+                bytes += entry.data.length;
+
+                Iterator<DiskEntry> iterator = index.values().iterator();
+                while (bytes > maxBytes && iterator.hasNext()) {
+                    DiskEntry eldest = iterator.next();
+                    bytes -= eldest.size;
+                    iterator.remove();
+                    deleted.add(eldest.file);
+                    evictions.increment();
+                }
+            }
+            deleted.forEach(FileUtil::del);
+        }
+
+        void remove(String key) {
+            DiskEntry diskEntry;
+            synchronized (this) {
+                diskEntry = index.remove(key);
+                if (diskEntry != null) bytes -= diskEntry.size;
+            }
+            if (diskEntry != null) FileUtil.del(diskEntry.file);
+        }
+
+        void removePrefix(String keyPrefix) {
+            List<File> deleted = new ArrayList<>();
+            synchronized (this) {
+                Iterator<Map.Entry<String, DiskEntry>> iterator = index.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<String, DiskEntry> entry = iterator.next();
+                    if (entry.getKey().startsWith(keyPrefix)) {
+                        bytes -= entry.getValue().size;
+                        iterator.remove();
+                        deleted.add(entry.getValue().file);
+                    }
+                }
+            }
+            deleted.forEach(FileUtil::del);
+        }
+    }
+
+
+}
@@ -0,0 +1,319 @@
+package cn.darkjrong.minio;
+
+import cn.darkjrong.minio.domain.ListObjectParam;
+import cn.darkjrong.minio.exceptions.MinioException;
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.StrUtil;
+import io.minio.messages.Item;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 并行对象列表
+ *
+ * <p>
+ * 以分隔符惰性列出第一层, 每个目录作为一个分片并发递归列出, 合并为一个对象流; 第一层的对象不缓存, 随第一层列表依次输出.
+ * 有序模式下按对象名顺序输出, 结果与顺序列表一致; 无序模式下第一层列表作为一个分片, 与各目录分片先到先出.
+ * 每次列表使用独立的线程池, 流读取完毕、出现异常或关闭时释放; 提前结束读取(如 findFirst、limit)时不会自动关闭,
+ * 调用方应以 try-with-resources 关闭流
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/03/31 16:05:13
+ */
+class ParallelObjectLister {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelObjectLister.class);
+    private static final Object DONE = new Object();
+
+    private final MinioTemplate minioTemplate;
+    private final int parallelism;
+    private final int queueCapacity;
+
+    ParallelObjectLister(MinioTemplate minioTemplate, int parallelism, int queueCapacity) {
+        this.minioTemplate = minioTemplate;
+        this.parallelism = Math.max(1, parallelism);
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    /**
+     * 并行列表对象, 返回的流需要关闭
+     *
+     * @param listObjectParam 列表对象参数
+     * @param ordered         是否按对象名有序输出
+     * @return {@link Stream<Item>} 对象流
+     */
+    Stream<Item> list(ListObjectParam listObjectParam, boolean ordered) {
+
+        ListObjectParam root = BeanUtil.copyProperties(listObjectParam, ListObjectParam.class);
+        root.setRecursive(false);
+        root.setContinuationToken(null);
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                ThreadFactoryBuilder.create().setNamePrefix("minio-list-").setDaemon(true).build());
+        Iterator<Item> iterator;
+        try {
+            iterator = ordered
+                    ? new OrderedIterator(root, listObjectParam, executor)
+                    : new UnorderedIterator(root, listObjectParam, executor);
+        } catch (RuntimeException e) {
+            executor.shutdownNow();
+            throw e;
+        }
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.NONNULL | (ordered ? Spliterator.ORDERED : 0)), false)
+                .onClose(executor::shutdownNow);
+    }
+
+    /**
+     * 列出一个目录分片, 结果依次放入队列, 最后放入结束标记或异常
+     *
+     * <p>
+     * startAfter 落在该目录下时保留, 否则该目录从头列出: 第一层列表已按 startAfter 跳过了之前的目录
+     * </p>
+     */
+    private void listShard(String prefix, ListObjectParam listObjectParam, BlockingQueue<Object> queue) {
+        ListObjectParam param = BeanUtil.copyProperties(listObjectParam, ListObjectParam.class);
+        param.setPrefix(prefix);
+        param.setRecursive(true);
+        param.setStartAfter(StrUtil.startWith(listObjectParam.getStartAfter(), prefix) ? listObjectParam.getStartAfter() : null);
+        param.setContinuationToken(null);
+
+        Object last = DONE;
+        try {
+            Iterator<Item> items = minioTemplate.streamObjects(param).iterator();
+            while (items.hasNext()) {
+                queue.put(items.next());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            logger.error("分片 : {} 列表异常 {}", prefix, e.getMessage());
+            last = e;
+        }
+
+        put(queue, last);
+    }
+
+    /**
+     * 结束标记或异常放入队列, 线程池已关闭时放弃
+     */
+    private static void put(BlockingQueue<Object> queue, Object value) {
+        try {
+            queue.put(value);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 从队列取出下一个元素
+     */
+    private static Object take(BlockingQueue<Object> queue) {
+        try {
+            Object value = queue.take();
+            if (value instanceof Throwable) {
+                throw new MinioException("并行列表对象异常", (Throwable) value);
+            }
+            return value;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MinioException("并行列表对象被中断", e);
+        }
+    }
+
+    /**
+     * 有序迭代器
+     *
+     * <p>
+     * 在读取线程上惰性遍历两次第一层列表, 一次只取对象, 一次只取目录, 两者各自有序; 按名称归并对象与目录分片, 保证输出顺序与顺序列表一致.
+     * 最多同时列出 parallelism 个目录分片, 当前分片读完后才启动下一个
+     * </p>
+     */
+    private class OrderedIterator implements Iterator<Item> {
+
+        private final Iterator<Item> objects;
+        private final Iterator<Item> dirs;
+        private final ListObjectParam listObjectParam;
+        private final ExecutorService executor;
+        private final Deque<Shard> window = new ArrayDeque<>();
+
+        private Item object;
+        private Shard current;
+        private Item next;
+
+        OrderedIterator(ListObjectParam root, ListObjectParam listObjectParam, ExecutorService executor) {
+            this.objects = minioTemplate.streamObjects(root).filter(item -> !item.isDir()).iterator();
+            this.dirs = minioTemplate.streamObjects(root).filter(Item::isDir).iterator();
+            this.listObjectParam = listObjectParam;
+            this.executor = executor;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null) {
+                    if (current != null) {
+                        Object value = take(current.queue);
+                        if (value == DONE) {
+                            current = null;
+                        } else {
+                            next = (Item) value;
+                        }
+                        continue;
+                    }
+
+                    fill();
+                    if (object == null && objects.hasNext()) object = objects.next();
+                    Shard shard = window.peek();
+                    if (object == null && shard == null) {
+                        executor.shutdown();
+                        return false;
+                    }
+
+                    // 第一层的对象名不以目录前缀开头, 与前缀比较即可确定与整个目录的先后
+                    if (shard == null || (object != null && object.objectName().compareTo(shard.prefix) < 0)) {
+                        next = object;
+                        object = null;
+                    } else {
+                        current = window.poll();
+                    }
+                }
+                return true;
+            } catch (RuntimeException e) {
+                executor.shutdownNow();
+                throw e;
+            }
+        }
+
+        @Override
+        public Item next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Item item = next;
+            next = null;
+            return item;
+        }
+
+        /**
+         * 启动目录分片直到窗口填满
+         */
+        private void fill() {
+            while (window.size() < parallelism && dirs.hasNext()) {
+                String prefix = dirs.next().objectName();
+                BlockingQueue<Object> queue = new ArrayBlockingQueue<>(queueCapacity);
+                executor.execute(() -> listShard(prefix, listObjectParam, queue));
+                window.add(new Shard(prefix, queue));
+            }
+        }
+    }
+
+    /**
+     * 目录分片
+     */
+    private static class Shard {
+
+        private final String prefix;
+        private final BlockingQueue<Object> queue;
+
+        Shard(String prefix, BlockingQueue<Object> queue) {
+            this.prefix = prefix;
+            this.queue = queue;
+        }
+    }
+
+    /**
+     * 无序迭代器
+     *
+     * <p>
+     * 第一层列表作为一个分片提交到线程池, 输出第一层的对象并提交各目录分片; 全部分片共享一个有界队列, 先到先出
+     * </p>
+     */
+    private class UnorderedIterator implements Iterator<Item> {
+
+        private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final ExecutorService executor;
+
+        private Item next;
+
+        UnorderedIterator(ListObjectParam root, ListObjectParam listObjectParam, ExecutorService executor) {
+            this.executor = executor;
+            executor.execute(() -> listRoot(root, listObjectParam));
+        }
+
+        /**
+         * 列出第一层, 先计数再提交目录分片, 保证第一层结束前未完成分片数不为零
+         */
+        private void listRoot(ListObjectParam root, ListObjectParam listObjectParam) {
+            Object last = DONE;
+            try {
+                Iterator<Item> items = minioTemplate.streamObjects(root).iterator();
+                while (items.hasNext()) {
+                    Item item = items.next();
+                    if (item.isDir()) {
+                        pending.incrementAndGet();
+                        executor.execute(() -> listShard(item.objectName(), listObjectParam, queue));
+                    } else {
+                        queue.put(item);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("第一层列表异常 {}", e.getMessage());
+                last = e;
+            }
+
+            put(queue, last);
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null) {
+                    if (pending.get() == 0) {
+                        executor.shutdown();
+                        return false;
+                    }
+                    Object value = take(queue);
+                    if (value == DONE) {
+                        pending.decrementAndGet();
+                    } else {
+                        next = (Item) value;
+                    }
+                }
+                return true;
+            } catch (RuntimeException e) {
+                executor.shutdownNow();
+                throw e;
+            }
+        }
+
+        @Override
+        public Item next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Item item = next;
+            next = null;
+            return item;
+        }
+    }
+
+
+}
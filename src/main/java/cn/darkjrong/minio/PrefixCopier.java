@@ -0,0 +1,152 @@
+package cn.darkjrong.minio;
+
+import cn.darkjrong.minio.domain.FailedObject;
+import cn.darkjrong.minio.domain.PrefixResult;
+import cn.darkjrong.minio.exceptions.MinioException;
+import cn.darkjrong.spring.boot.autoconfigure.MinioProperties;
+import io.minio.ComposeObjectArgs;
+import io.minio.ComposeSource;
+import io.minio.CopyObjectArgs;
+import io.minio.CopySource;
+import io.minio.MinioClient;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.Item;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 前缀复制引擎
+ *
+ * <p>
+ * 边列表边复制, 以有界并发执行服务端复制; 超过单次复制上限(5GB)的对象使用分片复制
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/01 15:36:17
+ */
+class PrefixCopier {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrefixCopier.class);
+
+    private static final long MAX_COPY_SIZE = 5L * 1024 * 1024 * 1024;
+
+    private final MinioClient minioClient;
+    private final ExecutorService executor;
+    private final int concurrency;
+
+    PrefixCopier(MinioClient minioClient, ExecutorService executor, MinioProperties.Copy copy) {
+        this.minioClient = minioClient;
+        this.executor = executor;
+        this.concurrency = Math.max(1, copy.getConcurrency());
+    }
+
+    /**
+     * 复制前缀下的对象
+     *
+     * @param items            源对象
+     * @param srcBucketName    源bucket名称
+     * @param srcPrefix        源前缀
+     * @param targetBucketName 目标bucket名称
+     * @param targetPrefix     目标前缀
+     * @param listener         进度监听, 可为空
+     * @return {@link PrefixResult} 复制结果
+     */
+    PrefixResult copy(Iterator<Item> items, String srcBucketName, String srcPrefix,
+                      String targetBucketName, String targetPrefix, ProgressListener listener) {
+
+        Queue<FailedObject> failures = new ConcurrentLinkedQueue<>();
+        Semaphore permits = new Semaphore(concurrency);
+        AtomicLong completed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+
+        try {
+            try {
+                while (items.hasNext()) {
+                    Item item = items.next();
+                    if (item.isDir()) continue;
+
+                    String targetObjectName = targetPrefix + item.objectName().substring(srcPrefix.length());
+
+                    permits.acquire();
+                    try {
+                        executor.execute(() -> {
+                            try {
+                                FailedObject failure = this.copyObject(srcBucketName, item, targetBucketName, targetObjectName);
+                                if (failure != null) failures.add(failure);
+                                long count = completed.incrementAndGet();
+                                long failedCount = failure == null ? failed.get() : failed.incrementAndGet();
+                                if (listener != null) listener.onProgress(count, failedCount);
+                            } finally {
+                                permits.release();
+                            }
+                        });
+                    } catch (RuntimeException e) {
+                        permits.release();
+                        throw e;
+                    }
+                }
+            } finally {
+                // 等待进行中的复制全部结束
+                permits.acquire(concurrency);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MinioException("复制前缀被中断", e);
+        }
+
+        PrefixResult prefixResult = new PrefixResult();
+        prefixResult.setTotal(completed.get());
+        prefixResult.setSucceeded(completed.get() - failed.get());
+        prefixResult.setFailures(new ArrayList<>(failures));
+        return prefixResult;
+    }
+
+    /**
+     * 复制单个对象
+     *
+     * @return 失败信息, 成功时为空
+     */
+    private FailedObject copyObject(String srcBucketName, Item item, String targetBucketName, String targetObjectName) {
+        try {
+            if (item.size() > MAX_COPY_SIZE) {
+                ComposeSource composeSource = ComposeSource.builder()
+                        .bucket(srcBucketName)
+                        .object(item.objectName())
+                        .build();
+                minioClient.composeObject(ComposeObjectArgs.builder()
+                        .bucket(targetBucketName)
+                        .object(targetObjectName)
+                        .sources(Collections.singletonList(composeSource))
+                        .build());
+            } else {
+                CopySource copySource = CopySource.builder()
+                        .bucket(srcBucketName)
+                        .object(item.objectName())
+                        .build();
+                minioClient.copyObject(CopyObjectArgs.builder()
+                        .bucket(targetBucketName)
+                        .object(targetObjectName)
+                        .source(copySource)
+                        .build());
+            }
+            return null;
+        } catch (Exception e) {
+            logger.error("复制对象 : {} 异常 {}", item.objectName(), e.getMessage());
+            String errorCode = e instanceof ErrorResponseException
+                    ? ((ErrorResponseException) e).errorResponse().code()
+                    : e.getClass().getSimpleName();
+            return new FailedObject(srcBucketName, item.objectName(), errorCode, e.getMessage());
+        }
+    }
+
+
+}
@@ -0,0 +1,83 @@
+package cn.darkjrong.minio;
+
+import cn.darkjrong.minio.domain.CacheStats;
+import cn.darkjrong.spring.boot.autoconfigure.MinioProperties;
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.core.util.StrUtil;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 预签名URL缓存
+ *
+ * <p>
+ * 以 (方法, bucket, 对象, 有效期) 为键缓存预签名URL, URL 在有效期的指定比例内被复用, 之后重新签名
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/03 11:02:37
+ */
+class PresignedUrlCache {
+
+    private final boolean enabled;
+    private final double reuseRatio;
+    private final LRUCache<String, String> cache;
+    private final LongAdder evictions = new LongAdder();
+
+    PresignedUrlCache(MinioProperties.PresignCache presignCache) {
+        this.enabled = presignCache.isEnabled();
+        this.reuseRatio = Math.max(0D, Math.min(1D, presignCache.getReuseRatio()));
+        this.cache = CacheUtil.newLRUCache(presignCache.getMaxEntries());
+        this.cache.setListener((key, value) -> evictions.increment());
+    }
+
+    /**
+     * 获取缓存的URL
+     *
+     * @param method     请求方法
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @param expires    有效期, 单位为秒
+     * @return {@link String} 预签名URL, 未命中时为空
+     */
+    String get(String method, String bucketName, String objectName, long expires) {
+        if (!enabled) return null;
+        return cache.get(key(method, bucketName, objectName, expires), false);
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 缓存URL
+     *
+     * @param method     请求方法
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @param expires    有效期, 单位为秒
+     * @param url        预签名URL
+     */
+    void put(String method, String bucketName, String objectName, long expires, String url) {
+        long timeout = (long) (TimeUnit.SECONDS.toMillis(expires) * reuseRatio);
+        if (!enabled || timeout <= 0) return;
+        cache.put(key(method, bucketName, objectName, expires), url, timeout);
+    }
+
+    /**
+     * 获取统计信息
+     *
+     * @return {@link CacheStats}
+     */
+    CacheStats stats() {
+        return new CacheStats(cache.getHitCount(), cache.getMissCount(), evictions.sum(), cache.size(), 0);
+    }
+
+    private static String key(String method, String bucketName, String objectName, long expires) {
+        return method + StrUtil.C_SPACE + expires + StrUtil.C_SPACE + bucketName + StrUtil.SLASH + objectName;
+    }
+
+
+}
@@ -0,0 +1,207 @@
+package cn.darkjrong.minio;
+
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.core.util.StrUtil;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 预签名URL签名器
+ *
+ * <p>
+ * 本地计算 AWS Signature V4 查询串签名, 不发起网络请求. 派生的签名密钥按日期与区域缓存,
+ * 每个线程复用一个{@link Mac}与{@link MessageDigest}实例. 只生成路径风格(path-style)的URL
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/03 10:18:45
+ */
+class PresignedUrlSigner {
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    private static final String HMAC_SHA256 = "HmacSHA256";
+    private static final String SERVICE = "s3";
+    private static final String TERMINATOR = "aws4_request";
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final String HEX = "0123456789ABCDEF";
+
+    private static final DateTimeFormatter AMZ_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(HMAC_SHA256);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final String baseUrl;
+    private final String host;
+    private final String accessKey;
+    private final String secretKey;
+
+    private volatile SigningKey signingKey;
+
+    PresignedUrlSigner(URL endpoint, String accessKey, String secretKey) {
+        int port = endpoint.getPort();
+        boolean defaultPort = port == -1 || port == endpoint.getDefaultPort();
+        this.host = defaultPort ? endpoint.getHost() : endpoint.getHost() + StrUtil.COLON + port;
+        this.baseUrl = endpoint.getProtocol() + "://" + host;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+    }
+
+    /**
+     * 签名时间
+     *
+     * @return {@link ZonedDateTime} 当前 UTC 时间
+     */
+    static ZonedDateTime now() {
+        return ZonedDateTime.now(ZoneOffset.UTC);
+    }
+
+    /**
+     * 生成预签名URL
+     *
+     * @param method     请求方法
+     * @param region     区域
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @param expires    有效期, 单位为秒
+     * @param signedAt   签名时间, 同一批次使用同一时间
+     * @return {@link String} 预签名URL
+     */
+    String presign(String method, String region, String bucketName, String objectName, long expires, ZonedDateTime signedAt) {
+
+        String amzDate = signedAt.format(AMZ_DATE_FORMAT);
+        String date = signedAt.format(DATE_FORMAT);
+        String scope = date + StrUtil.SLASH + region + StrUtil.SLASH + SERVICE + StrUtil.SLASH + TERMINATOR;
+
+        String canonicalUri = StrUtil.SLASH + bucketName + StrUtil.SLASH + encodePath(objectName);
+
+        // 参数名已按字典序排列
+        String canonicalQuery = "X-Amz-Algorithm=" + ALGORITHM
+                + "&X-Amz-Credential=" + encode(accessKey + StrUtil.SLASH + scope)
+                + "&X-Amz-Date=" + amzDate
+                + "&X-Amz-Expires=" + expires
+                + "&X-Amz-SignedHeaders=host";
+
+        String canonicalRequest = method + StrUtil.LF
+                + canonicalUri + StrUtil.LF
+                + canonicalQuery + StrUtil.LF
+                + "host:" + host + StrUtil.LF
+                + StrUtil.LF
+                + "host" + StrUtil.LF
+                + UNSIGNED_PAYLOAD;
+
+        MessageDigest digest = SHA256.get();
+        String stringToSign = ALGORITHM + StrUtil.LF
+                + amzDate + StrUtil.LF
+                + scope + StrUtil.LF
+                + HexUtil.encodeHexStr(digest.digest(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+
+        String signature = HexUtil.encodeHexStr(hmac(this.getSigningKey(date, region), stringToSign));
+        return baseUrl + canonicalUri + "?" + canonicalQuery + "&X-Amz-Signature=" + signature;
+    }
+
+    /**
+     * 获取派生的签名密钥, 日期或区域变化时重新派生
+     */
+    private byte[] getSigningKey(String date, String region) {
+        SigningKey current = signingKey;
+        if (current != null && current.date.equals(date) && current.region.equals(region)) {
+            return current.key;
+        }
+
+        byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        key = hmac(key, region);
+        key = hmac(key, SERVICE);
+        key = hmac(key, TERMINATOR);
+        signingKey = new SigningKey(date, region, key);
+        return key;
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = MAC.get();
+            mac.init(new SecretKeySpec(key, HMAC_SHA256));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 编码对象路径, 与 minio 客户端一致: 忽略空的路径段, 保留开头与末尾的路径分隔符
+     *
+     * @param objectName 对象名称
+     * @return {@link String} 编码结果
+     */
+    private static String encodePath(String objectName) {
+        StringBuilder builder = new StringBuilder(objectName.length() * 2);
+        for (String segment : StrUtil.split(objectName, StrUtil.C_SLASH)) {
+            if (segment.isEmpty()) continue;
+            if (builder.length() > 0) builder.append(StrUtil.C_SLASH);
+            builder.append(encode(segment));
+        }
+        if (objectName.startsWith(StrUtil.SLASH)) builder.insert(0, StrUtil.C_SLASH);
+        if (objectName.endsWith(StrUtil.SLASH)) builder.append(StrUtil.C_SLASH);
+        return builder.toString();
+    }
+
+    /**
+     * 按 RFC 3986 编码, 保留非保留字符
+     *
+     * @param value 待编码字符串
+     * @return {@link String} 编码结果
+     */
+    private static String encode(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~') {
+                builder.append(c);
+            } else {
+                builder.append('%').append(HEX.charAt(c >> 4)).append(HEX.charAt(c & 0xF));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 派生的签名密钥
+     */
+    private static class SigningKey {
+
+        private final String date;
+        private final String region;
+        private final byte[] key;
+
+        SigningKey(String date, String region, byte[] key) {
+            this.date = date;
+            this.region = region;
+            this.key = key;
+        }
+    }
+
+
+}
@@ -0,0 +1,24 @@
+package cn.darkjrong.minio;
+
+/**
+ * 批量操作进度监听
+ *
+ * <p>
+ * 在执行任务的线程中回调, 实现需线程安全且不应阻塞
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/01 15:20:05
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    /**
+     * 进度更新
+     *
+     * @param completed 已处理的对象数, 包含失败的对象
+     * @param failed    失败的对象数
+     */
+    void onProgress(long completed, long failed);
+
+}
@@ -0,0 +1,178 @@
+package cn.darkjrong.minio;
+
+import cn.darkjrong.minio.domain.ListObjectParam;
+import cn.darkjrong.minio.exceptions.MinioException;
+import cn.hutool.core.io.IoUtil;
+import io.minio.Result;
+import io.minio.StatObjectResponse;
+import io.minio.messages.Item;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.InputStream;
+import java.util.function.Function;
+
+/**
+ * minio 响应式操作
+ *
+ * <p>
+ * 基于{@link MinioTemplate}的 Reactor 门面: 列表按页惰性拉取并支持背压, 对象以{@link DataBuffer}分块流式读写,
+ * 不会在内存中聚合整个对象. 阻塞的网络调用在 boundedElastic 调度器上执行
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/03/29 14:18:26
+ */
+public class ReactiveMinioTemplate {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveMinioTemplate.class);
+    private static final int BUFFER_SIZE = IoUtil.DEFAULT_LARGE_BUFFER_SIZE;
+    private static final int PREFETCH = 16;
+
+    private final MinioTemplate minioTemplate;
+    private final DataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+    private final Scheduler scheduler = Schedulers.boundedElastic();
+
+    public ReactiveMinioTemplate(MinioTemplate minioTemplate) {
+        this.minioTemplate = minioTemplate;
+    }
+
+    /**
+     * 获取同步操作
+     *
+     * @return {@link MinioTemplate}
+     */
+    public MinioTemplate getMinioTemplate() {
+        return minioTemplate;
+    }
+
+    /**
+     * 列表对象信息
+     *
+     * <p>
+     * 下游请求时才拉取下一页, maxKeys 为每页大小
+     * </p>
+     *
+     * @param listObjectParam 列表对象参数
+     * @return {@link Flux<Item>} 对象信息
+     */
+    public Flux<Item> listObjects(ListObjectParam listObjectParam) {
+        return Flux.defer(() -> Flux.fromIterable(minioTemplate.getMinioClient().listObjects(minioTemplate.getListObjectsArgs(listObjectParam))))
+                .map(this::getItem)
+                .subscribeOn(scheduler);
+    }
+
+    /**
+     * 获取对象信息
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @return {@link Mono<StatObjectResponse>}
+     */
+    public Mono<StatObjectResponse> statObject(String bucketName, String objectName) {
+        return Mono.fromCallable(() -> minioTemplate.statObject(bucketName, objectName)).subscribeOn(scheduler);
+    }
+
+    /**
+     * 获取对象
+     *
+     * <p>
+     * 对象按块读取, 取消订阅或读取结束后关闭对象流
+     * </p>
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @return {@link Flux<DataBuffer>} 对象数据块
+     */
+    public Flux<DataBuffer> getObject(String bucketName, String objectName) {
+        return DataBufferUtils.readInputStream(() -> minioTemplate.getObjectStream(bucketName, objectName), bufferFactory, BUFFER_SIZE)
+                .subscribeOn(scheduler);
+    }
+
+    /**
+     * 获取对象
+     *
+     * @param objectName 对象名称
+     * @return {@link Flux<DataBuffer>} 对象数据块
+     */
+    public Flux<DataBuffer> getObject(String objectName) {
+        return DataBufferUtils.readInputStream(() -> minioTemplate.getObjectStream(objectName), bufferFactory, BUFFER_SIZE)
+                .subscribeOn(scheduler);
+    }
+
+    /**
+     * 上传对象
+     *
+     * <p>
+     * 数据块边到达边上传, 最多预取固定数量的数据块, 不会先聚合到内存
+     * </p>
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  对象名称
+     * @param content     对象数据块
+     * @param contentType 内容类型
+     * @return {@link Mono<String>} 上传对象名
+     */
+    public Mono<String> putObject(String bucketName, String objectName, Publisher<DataBuffer> content, String contentType) {
+        return this.upload(content, in -> minioTemplate.putObject(bucketName, objectName, in, contentType));
+    }
+
+    /**
+     * 上传对象
+     *
+     * @param objectName  对象名称
+     * @param content     对象数据块
+     * @param contentType 内容类型
+     * @return {@link Mono<String>} 上传对象名
+     */
+    public Mono<String> putObject(String objectName, Publisher<DataBuffer> content, String contentType) {
+        return this.upload(content, in -> minioTemplate.putObject(objectName, in, contentType));
+    }
+
+    /**
+     * 删除对象
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @return {@link Mono<Boolean>} 是否成功
+     */
+    public Mono<Boolean> removeObject(String bucketName, String objectName) {
+        return Mono.fromCallable(() -> minioTemplate.removeObject(bucketName, objectName)).subscribeOn(scheduler);
+    }
+
+    /**
+     * 订阅数据块并以输入流上传, 输入流由上传操作关闭; 取消时取消数据块的订阅, 上传因读取失败而结束
+     */
+    private Mono<String> upload(Publisher<DataBuffer> content, Function<InputStream, String> uploader) {
+        return Mono.defer(() -> {
+            DataBufferInputStream in = new DataBufferInputStream(PREFETCH);
+            return Mono.fromCallable(() -> {
+                Flux.from(content).subscribe(in.getSubscriber());
+                return uploader.apply(in);
+            }).subscribeOn(scheduler).doOnCancel(in::cancel);
+        });
+    }
+
+    /**
+     * 解析列表结果
+     */
+    private Item getItem(Result<Item> result) {
+        try {
+            return result.get();
+        } catch (Exception e) {
+            logger.error("Error while parsing list of objects {}", e.getMessage());
+            throw new MinioException("列表对象异常", e);
+        }
+    }
+
+
+}
@@ -0,0 +1,197 @@
+package cn.darkjrong.minio;
+
+import cn.darkjrong.minio.domain.UploadState;
+import cn.darkjrong.minio.domain.UploadedPart;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.ListPartsResult;
+import io.minio.messages.Part;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 可续传上传
+ *
+ * <p>
+ * 分片上传的上传ID与已完成的分片保存在状态存储中, 上传失败时不终止分片上传. 重试时若文件未变化,
+ * 以服务端列出的分片为准跳过已完成的分片, 只上传缺失的分片; 文件已变化或上传已不存在时重新开始
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/06 10:12:08
+ */
+class ResumableUploader {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumableUploader.class);
+
+    private static final String NO_SUCH_UPLOAD = "NoSuchUpload";
+
+    private final ExtendedMinioClient minioClient;
+    private final MultipartUploader multipartUploader;
+    private final UploadStateStore store;
+
+    ResumableUploader(ExtendedMinioClient minioClient, MultipartUploader multipartUploader, UploadStateStore store) {
+        this.minioClient = minioClient;
+        this.multipartUploader = multipartUploader;
+        this.store = store;
+    }
+
+    /**
+     * 上传文件, 存在未完成的上传时续传
+     *
+     * @param bucketName  bucket名称
+     * @param stateKey    状态键, 同一文件的重试需使用相同的键
+     * @param objectName  新建上传时使用的对象名称, 续传时沿用原上传的对象名称
+     * @param file        文件
+     * @param contentType 内容类型
+     * @return {@link String} 对象名
+     * @throws Exception 异常
+     */
+    String upload(String bucketName, String stateKey, String objectName, File file, String contentType) throws Exception {
+
+        long filePartSize = multipartUploader.getFilePartSize(file);
+        UploadState state = store.load(stateKey);
+        Map<Integer, Part> completed = new HashMap<>();
+
+        if (state != null && !matches(state, bucketName, file, filePartSize)) {
+            logger.info("文件 : {} 已变化, 重新上传", file.getName());
+            this.abort(state);
+            store.remove(stateKey);
+            state = null;
+        }
+
+        if (state != null) {
+            try {
+                completed = this.listParts(state, file.length());
+            } catch (ErrorResponseException e) {
+                if (!NO_SUCH_UPLOAD.equals(e.errorResponse().code())) throw e;
+                logger.info("对象 : {} 的分片上传已不存在, 重新上传", state.getObjectName());
+                store.remove(stateKey);
+                state = null;
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        if (state == null) {
+            state = new UploadState();
+            state.setBucketName(bucketName);
+            state.setObjectName(objectName);
+            state.setUploadId(multipartUploader.createMultipartUpload(bucketName, objectName, contentType));
+            state.setFilePath(file.getAbsolutePath());
+            state.setFileLength(file.length());
+            state.setFileLastModified(file.lastModified());
+            state.setPartSize(filePartSize);
+            state.setCreateTime(now);
+        } else {
+            logger.info("对象 : {} 续传, 已完成 {} 个分片", state.getObjectName(), completed.size());
+        }
+
+        List<UploadedPart> parts = new ArrayList<>();
+        completed.values().forEach(part -> parts.add(new UploadedPart(part.partNumber(), part.etag())));
+        state.setParts(parts);
+        state.setUpdateTime(now);
+        store.save(stateKey, state);
+
+        UploadState current = state;
+        String object = multipartUploader.upload(bucketName, state.getObjectName(), file, state.getUploadId(),
+                filePartSize, completed, part -> this.record(stateKey, current, part));
+        store.remove(stateKey);
+        return object;
+    }
+
+    /**
+     * 终止过期的分片上传
+     *
+     * <p>
+     * 只处理状态存储中记录的上传: 超过过期时间未更新的上传被终止并删除其状态. 状态存储之外的未完成上传,
+     * 如其他应用、其他实例或客户端直传发起的上传, 不在此处理, 应由bucket生命周期规则 AbortIncompleteMultipartUpload 清理
+     * </p>
+     *
+     * @param bucketName bucket名称, 为空时处理全部bucket
+     * @param staleAfter 过期时间, 单位为毫秒
+     * @return int 终止的上传数
+     */
+    int abortStale(String bucketName, long staleAfter) {
+
+        long cutoff = System.currentTimeMillis() - staleAfter;
+        int aborted = 0;
+        for (Map.Entry<String, UploadState> entry : store.loadAll().entrySet()) {
+            UploadState state = entry.getValue();
+            if (bucketName != null && !bucketName.equals(state.getBucketName())) continue;
+            if (state.getUpdateTime() != null && state.getUpdateTime() >= cutoff) continue;
+
+            try {
+                minioClient.abortMultipartUpload(state.getBucketName(), state.getObjectName(), state.getUploadId());
+                aborted++;
+            } catch (ErrorResponseException e) {
+                if (!NO_SUCH_UPLOAD.equals(e.errorResponse().code())) {
+                    logger.warn("对象 : {} 终止过期分片上传异常 {}", state.getObjectName(), e.getMessage());
+                    continue;
+                }
+            } catch (Exception e) {
+                logger.warn("对象 : {} 终止过期分片上传异常 {}", state.getObjectName(), e.getMessage());
+                continue;
+            }
+            store.remove(entry.getKey());
+        }
+        return aborted;
+    }
+
+    /**
+     * 列出服务端已完成且大小正确的分片
+     */
+    private Map<Integer, Part> listParts(UploadState state, long size) throws Exception {
+        Map<Integer, Part> parts = new HashMap<>();
+        long partSize = state.getPartSize();
+        Integer partNumberMarker = null;
+        ListPartsResult result;
+        do {
+            result = minioClient.listParts(state.getBucketName(), state.getObjectName(), state.getUploadId(), partNumberMarker).result();
+            for (Part part : result.partList()) {
+                long offset = (part.partNumber() - 1) * partSize;
+                if (offset < size && part.partSize() == Math.min(partSize, size - offset)) {
+                    parts.put(part.partNumber(), part);
+                }
+            }
+            partNumberMarker = result.nextPartNumberMarker();
+        } while (result.isTruncated());
+        return parts;
+    }
+
+    /**
+     * 记录完成的分片, 状态保存失败不影响上传
+     */
+    private void record(String stateKey, UploadState state, Part part) {
+        synchronized (state) {
+            state.getParts().add(new UploadedPart(part.partNumber(), part.etag()));
+            state.setUpdateTime(System.currentTimeMillis());
+            try {
+                store.save(stateKey, state);
+            } catch (Exception e) {
+                logger.warn("对象 : {} 保存上传状态异常 {}", state.getObjectName(), e.getMessage());
+            }
+        }
+    }
+
+    private void abort(UploadState state) {
+        try {
+            minioClient.abortMultipartUpload(state.getBucketName(), state.getObjectName(), state.getUploadId());
+        } catch (Exception e) {
+            logger.warn("对象 : {} 终止分片上传异常 {}", state.getObjectName(), e.getMessage());
+        }
+    }
+
+    private static boolean matches(UploadState state, String bucketName, File file, long partSize) {
+        return bucketName.equals(state.getBucketName())
+                && Long.valueOf(file.length()).equals(state.getFileLength())
+                && Long.valueOf(file.lastModified()).equals(state.getFileLastModified())
+                && Long.valueOf(partSize).equals(state.getPartSize());
+    }
+
+
+}
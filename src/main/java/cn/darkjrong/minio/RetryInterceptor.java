@@ -0,0 +1,236 @@
+package cn.darkjrong.minio;
+
+import cn.darkjrong.minio.domain.RetryStats;
+import cn.darkjrong.minio.enums.RetryOperation;
+import cn.darkjrong.spring.boot.autoconfigure.MinioProperties;
+import cn.hutool.core.convert.Convert;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 请求重试拦截器
+ *
+ * <p>
+ * 在 HTTP 层透明重试可重试的失败: IO 异常(连接失败、连接重置、超时)以及 408、429、500、502、503、504 响应.
+ * 按请求方法区分操作类型, 各类型有独立的最大尝试次数; 非幂等的 POST 请求与一次性请求体不重试.
+ * 退避时间为指数增长上限内的随机值(full jitter), 服务端返回 Retry-After 时不少于该值.
+ * 所有请求共享一个令牌桶作为重试预算, 重试消耗令牌、成功归还令牌, 令牌不足时直接放弃, 避免重试放大故障.
+ * 只重试请求本身, 响应体读取过程中的失败不重试
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/07 10:05:33
+ */
+public class RetryInterceptor implements Interceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryInterceptor.class);
+
+    private static final List<Integer> RETRYABLE_STATUS = Arrays.asList(408, 429, 500, 502, 503, 504);
+    private static final String RETRY_AFTER = "Retry-After";
+    private static final String DELETE_QUERY = "delete";
+
+    private final Map<RetryOperation, Integer> maxAttempts = new EnumMap<>(RetryOperation.class);
+    private final long initialBackoff;
+    private final long maxBackoff;
+    private final long capacity;
+    private final long retryCost;
+    private final AtomicLong tokens;
+
+    private final Map<RetryOperation, Counters> counters = new EnumMap<>(RetryOperation.class);
+
+    public RetryInterceptor(MinioProperties.Retry retry) {
+        for (RetryOperation operation : RetryOperation.values()) {
+            Integer attempts = retry.getMaxAttempts().get(operation);
+            this.maxAttempts.put(operation, attempts == null ? 1 : Math.max(1, attempts));
+            this.counters.put(operation, new Counters());
+        }
+        this.initialBackoff = Math.max(1L, retry.getInitialBackoff());
+        this.maxBackoff = Math.max(initialBackoff, retry.getMaxBackoff());
+        this.capacity = Math.max(0, retry.getBudgetCapacity());
+        this.retryCost = Math.max(0, retry.getRetryCost());
+        this.tokens = new AtomicLong(capacity);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+
+        Request request = chain.request();
+        RetryOperation operation = classify(request);
+        int attempts = operation == null ? 1 : maxAttempts.get(operation);
+
+        for (int attempt = 1; ; attempt++) {
+            Response response = null;
+            IOException failure = null;
+            try {
+                response = chain.proceed(attempt == 1 ? request : request.newBuilder().tag(Attempt.class, new Attempt(attempt)).build());
+            } catch (IOException e) {
+                failure = e;
+            }
+
+            boolean retryable = response == null
+                    ? isRetryable(failure) && !chain.call().isCanceled()
+                    : RETRYABLE_STATUS.contains(response.code());
+            if (!retryable) {
+                if (response != null && response.isSuccessful()) this.release();
+                if (failure != null) throw failure;
+                return response;
+            }
+
+            if (operation == null) {
+                if (failure != null) throw failure;
+                return response;
+            }
+
+            Counters operationCounters = counters.get(operation);
+            if (attempt >= attempts || !this.acquire()) {
+                if (attempt < attempts) operationCounters.throttled.increment();
+                operationCounters.giveUps.increment();
+                if (failure != null) throw failure;
+                return response;
+            }
+
+            long delay = this.backoff(attempt, response);
+            logger.debug("{} {} 第 {} 次重试, {} 毫秒后执行, 原因: {}", request.method(), request.url().encodedPath(),
+                    attempt, delay, failure != null ? failure.getMessage() : response.code());
+            if (response != null) response.close();
+            operationCounters.retries.increment();
+
+            try {
+                TimeUnit.MILLISECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                InterruptedIOException interrupted = new InterruptedIOException("重试等待被中断");
+                if (failure != null) interrupted.addSuppressed(failure);
+                throw interrupted;
+            }
+        }
+    }
+
+    /**
+     * 获取统计信息
+     *
+     * @param operation 操作类型
+     * @return {@link RetryStats}
+     */
+    public RetryStats getStats(RetryOperation operation) {
+        Counters operationCounters = counters.get(operation);
+        return new RetryStats(operationCounters.retries.sum(), operationCounters.giveUps.sum(),
+                operationCounters.throttled.sum(), tokens.get());
+    }
+
+    /**
+     * 判断请求的操作类型
+     *
+     * @param request 请求
+     * @return {@link RetryOperation} 操作类型, 不可重试时为空
+     */
+    static RetryOperation classify(Request request) {
+        switch (request.method()) {
+            case "GET":
+                return RetryOperation.READ;
+            case "HEAD":
+                return RetryOperation.STAT;
+            case "DELETE":
+                return RetryOperation.DELETE;
+            case "PUT":
+                return request.body() == null || !request.body().isOneShot() ? RetryOperation.WRITE : null;
+            case "POST":
+                return request.url().queryParameterNames().contains(DELETE_QUERY) ? RetryOperation.DELETE : null;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 获取请求是第几次尝试
+     *
+     * @param request 请求
+     * @return int 尝试次数, 首次请求为1
+     */
+    static int attemptOf(Request request) {
+        Attempt attempt = request.tag(Attempt.class);
+        return attempt == null ? 1 : attempt.value;
+    }
+
+    /**
+     * 判断 IO 异常是否可重试, 证书等 TLS 错误与线程中断不重试
+     */
+    private static boolean isRetryable(IOException e) {
+        if (e instanceof SSLException) return false;
+        return !(e instanceof InterruptedIOException) || e instanceof SocketTimeoutException;
+    }
+
+    /**
+     * 计算退避时间
+     */
+    private long backoff(int attempt, Response response) {
+        long ceiling = Math.min(maxBackoff, initialBackoff << Math.min(attempt - 1, 30));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        if (response != null) {
+            long retryAfter = TimeUnit.SECONDS.toMillis(Convert.toLong(response.header(RETRY_AFTER), 0L));
+            delay = Math.max(delay, Math.min(retryAfter, maxBackoff));
+        }
+        return delay;
+    }
+
+    /**
+     * 重试前获取令牌
+     */
+    private boolean acquire() {
+        for (long current = tokens.get(); current >= retryCost; current = tokens.get()) {
+            if (tokens.compareAndSet(current, current - retryCost)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 成功后归还令牌
+     */
+    private void release() {
+        for (long current = tokens.get(); current < capacity; current = tokens.get()) {
+            if (tokens.compareAndSet(current, current + 1)) return;
+        }
+    }
+
+    /**
+     * 尝试次数, 作为请求标签传给内层拦截器
+     */
+    private static class Attempt {
+
+        private final int value;
+
+        Attempt(int value) {
+            this.value = value;
+        }
+
+    }
+
+    /**
+     * 计数器
+     */
+    private static class Counters {
+
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder giveUps = new LongAdder();
+        private final LongAdder throttled = new LongAdder();
+
+    }
+
+
+}
@@ -0,0 +1,227 @@
+package cn.darkjrong.minio;
+
+import cn.darkjrong.spring.boot.autoconfigure.MinioProperties;
+import cn.hutool.core.util.StrUtil;
+import io.minio.GetObjectArgs;
+import io.minio.MinioClient;
+import io.minio.StatObjectResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 分段下载引擎
+ *
+ * <p>
+ * 按字节范围并发获取对象, 每段直接写入预分配临时文件的对应位置, 全部完成后重命名为目标文件; 不需要分段的对象以单个请求写入临时文件.
+ * 每段是发起下载的线程当前span的子span
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/03/26 14:20:09
+ */
+class SegmentedDownloader {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentedDownloader.class);
+
+    private static final long MIN_SEGMENT_SIZE = 1024 * 1024L;
+    private static final String PART_SUFFIX = ".part.minio";
+    private static final String SPAN_NAME = "minio.getObjectRange";
+
+    private final MinioClient minioClient;
+    private final ExecutorService executor;
+    private final long segmentSize;
+    private final int parallelism;
+    private final TransferBufferPool bufferPool;
+    private final MinioTracer tracer;
+
+    SegmentedDownloader(MinioClient minioClient, ExecutorService executor, MinioProperties.Download download,
+                        TransferBufferPool bufferPool, MinioTracer tracer) {
+        this.minioClient = minioClient;
+        this.executor = executor;
+        this.segmentSize = Math.max(MIN_SEGMENT_SIZE, download.getSegmentSize());
+        this.parallelism = Math.max(1, download.getParallelism());
+        this.bufferPool = bufferPool;
+        this.tracer = tracer;
+    }
+
+    /**
+     * 是否需要分段下载
+     *
+     * @param size 对象大小
+     * @return boolean 是否分段
+     */
+    boolean isSegmented(long size) {
+        return parallelism > 1 && size > segmentSize;
+    }
+
+    /**
+     * 下载对象, 不需要分段时在当前线程以单个请求下载
+     *
+     * <p>
+     * 使用已获取的对象信息, 不再重复请求; 下载失败时不取消分段任务, 未开始的分段检查失败标记后直接结束,
+     * 等待全部分段任务结束后才关闭并删除临时文件, 避免分段仍在写入时文件被关闭或删除
+     * </p>
+     *
+     * @param stat     对象信息
+     * @param fileName 文件全限定路径名
+     * @throws Exception 异常
+     */
+    void download(StatObjectResponse stat, String fileName) throws Exception {
+
+        Path target = Paths.get(fileName);
+        if (Files.exists(target)) {
+            throw new IllegalArgumentException("Destination file " + fileName + " already exists");
+        }
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+
+        long size = stat.size();
+        Path temp = Paths.get(fileName + StrUtil.DOT + stat.etag() + PART_SUFFIX);
+        MinioTracer.Span span = tracer.currentSpan();
+        List<Future<?>> futures = new ArrayList<>();
+        AtomicBoolean failed = new AtomicBoolean();
+
+        RandomAccessFile raf = new RandomAccessFile(temp.toFile(), "rw");
+        try {
+            raf.setLength(size);
+            FileChannel channel = raf.getChannel();
+            if (this.isSegmented(size)) {
+                this.fetchSegments(stat, channel, span, futures, failed);
+            } else if (size > 0) {
+                this.fetch(stat, 1, 0, size, channel, span);
+            }
+            channel.force(false);
+        } catch (Exception e) {
+            failed.set(Boolean.TRUE);
+            awaitQuietly(futures);
+            closeQuietly(raf);
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        raf.close();
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * 并发获取各段, 任一段失败后不再提交新的分段
+     */
+    private void fetchSegments(StatObjectResponse stat, FileChannel channel, MinioTracer.Span span,
+                               List<Future<?>> futures, AtomicBoolean failed) throws Exception {
+
+        long size = stat.size();
+        int segmentCount = (int) ((size + segmentSize - 1) / segmentSize);
+        Semaphore permits = new Semaphore(parallelism);
+
+        for (int i = 0; i < segmentCount && !failed.get(); i++) {
+            int segment = i + 1;
+            long offset = i * segmentSize;
+            long length = Math.min(segmentSize, size - offset);
+
+            permits.acquire();
+            futures.add(executor.submit(() -> {
+                try {
+                    if (failed.get()) return null;
+                    fetch(stat, segment, offset, length, channel, span);
+                    return null;
+                } catch (Exception e) {
+                    failed.set(Boolean.TRUE);
+                    throw e;
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof Exception ? (Exception) cause : e;
+            }
+        }
+    }
+
+    /**
+     * 等待已提交的分段任务全部结束, 不取消也不中断: 取消后 get 立即返回而分段仍在写入, 中断会关闭共享的文件通道
+     */
+    private static void awaitQuietly(List<Future<?>> futures) {
+        boolean interrupted = false;
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (Exception e) {
+                    break;
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    private static void closeQuietly(RandomAccessFile raf) {
+        try {
+            raf.close();
+        } catch (IOException e) {
+            logger.warn("关闭临时文件异常 {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取一段数据并写入文件对应位置
+     */
+    private void fetch(StatObjectResponse stat, int segment, long offset, long length, FileChannel channel,
+                       MinioTracer.Span parent) throws Exception {
+
+        GetObjectArgs args = GetObjectArgs.builder()
+                .bucket(stat.bucket())
+                .object(stat.object())
+                .offset(offset)
+                .length(length)
+                .matchETag(stat.etag())
+                .build();
+
+        MinioTracer.Span span = tracer.nextSpan(SPAN_NAME, parent)
+                .tag(MinioTracer.BUCKET, stat.bucket())
+                .tag(MinioTracer.OBJECT, stat.object())
+                .tag(MinioTracer.PART_NUMBER, segment)
+                .tag(MinioTracer.BYTES, length);
+
+        MinioTracer.Scope scope = span.makeCurrent();
+        try (InputStream in = minioClient.getObject(args)) {
+            long written = bufferPool.copy(in, channel, offset);
+            if (written != length) {
+                throw new IllegalStateException("对象 : " + stat.object() + " 分段数据不完整, offset: " + offset);
+            }
+        } catch (Exception e) {
+            span.error(e);
+            logger.error("对象 : {} 分段下载异常, offset: {}, {}", stat.object(), offset, e.getMessage());
+            throw e;
+        } finally {
+            scope.close();
+            span.end();
+        }
+    }
+
+
+}
@@ -0,0 +1,161 @@
+package cn.darkjrong.minio;
+
+import cn.darkjrong.minio.domain.CacheStats;
+import cn.darkjrong.spring.boot.autoconfigure.MinioProperties;
+import cn.hutool.core.util.StrUtil;
+import io.minio.MinioClient;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.ErrorResponse;
+import okhttp3.Response;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 对象信息缓存
+ *
+ * <p>
+ * 按 TTL 与条目数上限缓存 statObject 结果; 对象不存在时在较短的时间内缓存不可变的不存在标记, 期间每次调用各抛出一个新的异常.
+ * 条目在写入后固定时间过期, 读取不会延长有效期; 本模板对对象的变更会使对应条目失效
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/02 16:27:50
+ */
+class StatCache {
+
+    private static final List<String> NOT_FOUND_CODES = Arrays.asList("NoSuchKey", "NoSuchObject", "NoSuchVersion");
+
+    private final MinioClient minioClient;
+    private final boolean enabled;
+    private final long ttl;
+    private final long negativeTtl;
+    private final ExpiringCache<Object> cache;
+
+    StatCache(MinioClient minioClient, MinioProperties.StatCache statCache) {
+        this.minioClient = minioClient;
+        this.enabled = statCache.isEnabled();
+        this.ttl = statCache.getTtl();
+        this.negativeTtl = statCache.getNegativeTtl();
+        this.cache = new ExpiringCache<>(statCache.getMaxEntries());
+    }
+
+    /**
+     * 获取对象信息
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @return {@link StatObjectResponse}
+     * @throws Exception 异常
+     */
+    StatObjectResponse get(String bucketName, String objectName) throws Exception {
+
+        StatObjectResponse response = this.getIfPresent(bucketName, objectName);
+        return response != null ? response : this.load(bucketName, objectName);
+    }
+
+    /**
+     * 获取已缓存的对象信息
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @return {@link StatObjectResponse} 未缓存或未启用缓存时为空
+     * @throws ErrorResponseException 缓存了对象不存在
+     */
+    StatObjectResponse getIfPresent(String bucketName, String objectName) throws ErrorResponseException {
+        if (!enabled) return null;
+
+        Object value = cache.get(key(bucketName, objectName));
+        if (value instanceof NotFound) throw ((NotFound) value).newException();
+        return (StatObjectResponse) value;
+    }
+
+    /**
+     * 从服务端获取对象信息, 启用缓存时写入缓存
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     * @return {@link StatObjectResponse}
+     * @throws Exception 异常
+     */
+    StatObjectResponse load(String bucketName, String objectName) throws Exception {
+
+        StatObjectArgs statObjectArgs = StatObjectArgs.builder().bucket(bucketName).object(objectName).build();
+        if (!enabled) return minioClient.statObject(statObjectArgs);
+
+        String key = key(bucketName, objectName);
+        try {
+            StatObjectResponse response = minioClient.statObject(statObjectArgs);
+            cache.put(key, response, ttl);
+            return response;
+        } catch (ErrorResponseException e) {
+            if (negativeTtl > 0 && NOT_FOUND_CODES.contains(e.errorResponse().code())) {
+                cache.put(key, new NotFound(e), negativeTtl);
+            }
+            throw e;
+        }
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 使对象失效
+     *
+     * @param bucketName bucket名称
+     * @param objectName 对象名称
+     */
+    void invalidate(String bucketName, String objectName) {
+        if (!enabled) return;
+        cache.remove(key(bucketName, objectName));
+    }
+
+    /**
+     * 使前缀下的对象失效
+     *
+     * @param bucketName bucket名称
+     * @param prefix     前缀, 为空时使整个bucket失效
+     */
+    void invalidatePrefix(String bucketName, String prefix) {
+        if (!enabled) return;
+        cache.removePrefix(key(bucketName, StrUtil.nullToEmpty(prefix)));
+    }
+
+    /**
+     * 获取统计信息
+     *
+     * @return {@link CacheStats}
+     */
+    CacheStats stats() {
+        return new CacheStats(cache.hits(), cache.misses(), cache.evictions(), cache.size(), 0);
+    }
+
+    private static String key(String bucketName, String objectName) {
+        return bucketName + StrUtil.SLASH + objectName;
+    }
+
+    /**
+     * 对象不存在的标记, 保存异常的组成部分, 命中时为每次调用创建新的异常
+     */
+    private static class NotFound {
+
+        private final ErrorResponse errorResponse;
+        private final Response response;
+        private final String httpTrace;
+
+        NotFound(ErrorResponseException e) {
+            this.errorResponse = e.errorResponse();
+            this.response = e.response();
+            this.httpTrace = e.httpTrace();
+        }
+
+        ErrorResponseException newException() {
+            return new ErrorResponseException(errorResponse, response, httpTrace);
+        }
+    }
+
+
+}
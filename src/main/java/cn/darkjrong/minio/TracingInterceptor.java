@@ -0,0 +1,62 @@
+package cn.darkjrong.minio;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+import java.io.IOException;
+
+/**
+ * 链路追踪拦截器
+ *
+ * <p>
+ * 每次 HTTP 请求创建一个 span, 父span为发起请求的线程的当前span, 并将链路上下文写入请求头.
+ * 位于重试拦截器之内, 每次重试各有一个 span 并标记为第几次尝试; span 在收到响应头时结束, 响应体的读取计入父span.
+ * 追踪请求头不在签名范围内, 写入后不影响请求签名
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/11 10:02:41
+ */
+public class TracingInterceptor implements Interceptor {
+
+    private static final String SPAN_NAME = "minio.http";
+
+    private final MinioTracer tracer;
+
+    public TracingInterceptor(MinioTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+
+        Request request = chain.request();
+        MinioTracer.Span span = tracer.nextSpan(SPAN_NAME, null)
+                .tag("http.method", request.method())
+                .tag("http.path", request.url().encodedPath())
+                .tag(MinioTracer.RETRY_ATTEMPT, RetryInterceptor.attemptOf(request));
+
+        RequestBody body = request.body();
+        if (body != null && body.contentLength() >= 0) span.tag(MinioTracer.BYTES, body.contentLength());
+
+        Request.Builder builder = request.newBuilder();
+        tracer.inject(span, builder::header);
+
+        MinioTracer.Scope scope = span.makeCurrent();
+        try {
+            Response response = chain.proceed(builder.build());
+            span.tag("http.status_code", response.code());
+            return response;
+        } catch (IOException | RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            scope.close();
+            span.end();
+        }
+    }
+
+
+}
@@ -0,0 +1,239 @@
+package cn.darkjrong.minio;
+
+import cn.darkjrong.minio.domain.BufferPoolStats;
+import cn.darkjrong.spring.boot.autoconfigure.MinioProperties;
+import cn.hutool.core.io.FastByteArrayOutputStream;
+import cn.hutool.core.util.StrUtil;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 传输缓冲区池
+ *
+ * <p>
+ * 所有拷贝循环共享的固定大小缓冲区, 可选堆外(direct)缓冲区. 缓冲区按需创建, 池中最多保留上限个;
+ * 池耗尽时不阻塞, 临时分配一个缓冲区并计入耗尽次数, 归还时池已满则丢弃.
+ * 堆外缓冲区从输入流读取时需经过通道适配, 更适合写入文件通道的场景
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/04 09:12:40
+ */
+class TransferBufferPool {
+
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private final int bufferSize;
+    private final int maxBuffers;
+    private final boolean direct;
+    private final BlockingQueue<ByteBuffer> buffers;
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder allocations = new LongAdder();
+    private final LongAdder exhaustions = new LongAdder();
+
+    TransferBufferPool(MinioProperties.Buffer buffer) {
+        this.bufferSize = Math.max(1024, buffer.getBufferSize());
+        this.maxBuffers = Math.max(1, buffer.getMaxBuffers());
+        this.direct = buffer.isDirect();
+        this.buffers = new ArrayBlockingQueue<>(maxBuffers);
+    }
+
+    /**
+     * 获取缓冲区
+     *
+     * @return {@link ByteBuffer} 已清空的缓冲区
+     */
+    ByteBuffer acquire() {
+        acquisitions.increment();
+        ByteBuffer buffer = buffers.poll();
+        if (buffer != null) {
+            buffer.clear();
+            return buffer;
+        }
+
+        for (int count = pooled.get(); count < maxBuffers; count = pooled.get()) {
+            if (pooled.compareAndSet(count, count + 1)) return this.allocate();
+        }
+        exhaustions.increment();
+        return this.allocate();
+    }
+
+    /**
+     * 归还缓冲区
+     *
+     * @param buffer 缓冲区
+     */
+    void release(ByteBuffer buffer) {
+        if (buffer != null && buffer.capacity() == bufferSize && buffer.isDirect() == direct) {
+            buffers.offer(buffer);
+        }
+    }
+
+    /**
+     * 拷贝输入流到输出流, 流不会被关闭
+     *
+     * @param in  输入流
+     * @param out 输出流
+     * @return long 拷贝的字节数
+     * @throws IOException IO异常
+     */
+    long copy(InputStream in, OutputStream out) throws IOException {
+        ByteBuffer buffer = this.acquire();
+        try {
+            if (!buffer.hasArray()) {
+                return this.copy(in, Channels.newChannel(out), buffer);
+            }
+
+            byte[] array = buffer.array();
+            int offset = buffer.arrayOffset();
+            long total = 0;
+            for (int n; (n = in.read(array, offset, bufferSize)) != -1; ) {
+                out.write(array, offset, n);
+                total += n;
+            }
+            return total;
+        } finally {
+            this.release(buffer);
+        }
+    }
+
+    /**
+     * 拷贝输入流到通道, 流与通道不会被关闭
+     *
+     * @param in      输入流
+     * @param channel 可写通道
+     * @return long 拷贝的字节数
+     * @throws IOException IO异常
+     */
+    long copy(InputStream in, WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = this.acquire();
+        try {
+            return this.copy(in, channel, buffer);
+        } finally {
+            this.release(buffer);
+        }
+    }
+
+    /**
+     * 拷贝输入流到文件通道的指定位置, 不改变通道的当前位置
+     *
+     * @param in       输入流
+     * @param channel  文件通道
+     * @param position 起始位置
+     * @return long 拷贝的字节数
+     * @throws IOException IO异常
+     */
+    long copy(InputStream in, FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = this.acquire();
+        try {
+            ReadableByteChannel source = buffer.hasArray() ? null : Channels.newChannel(in);
+            long current = position;
+            while (read(in, source, buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    current += channel.write(buffer, current);
+                }
+                buffer.clear();
+            }
+            return current - position;
+        } finally {
+            this.release(buffer);
+        }
+    }
+
+    /**
+     * 读取输入流的全部数据, 流不会被关闭
+     *
+     * <p>
+     * 长度已知时直接读入等长的数组, 不产生中间缓冲; 否则经池中缓冲区拷贝
+     * </p>
+     *
+     * @param in     输入流
+     * @param length 数据长度, 未知时为-1
+     * @return {@link byte[]} 字节数组
+     * @throws IOException IO异常
+     */
+    byte[] readBytes(InputStream in, long length) throws IOException {
+        if (length >= 0 && length <= MAX_ARRAY_SIZE) {
+            byte[] data = new byte[(int) length];
+            int offset = 0;
+            while (offset < data.length) {
+                int n = in.read(data, offset, data.length - offset);
+                if (n == -1) {
+                    throw new EOFException(StrUtil.format("数据不完整, 期望 {} 字节, 实际 {} 字节", length, offset));
+                }
+                offset += n;
+            }
+            return data;
+        }
+
+        FastByteArrayOutputStream out = new FastByteArrayOutputStream(bufferSize);
+        this.copy(in, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * 获取统计信息
+     *
+     * @return {@link BufferPoolStats}
+     */
+    BufferPoolStats stats() {
+        long count = pooled.get();
+        return new BufferPoolStats(acquisitions.sum(), allocations.sum(), exhaustions.sum(),
+                buffers.size(), count * bufferSize);
+    }
+
+    /**
+     * 获取缓冲区大小
+     *
+     * @return int 缓冲区大小
+     */
+    int getBufferSize() {
+        return bufferSize;
+    }
+
+    private long copy(InputStream in, WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        ReadableByteChannel source = buffer.hasArray() ? null : Channels.newChannel(in);
+        long total = 0;
+        while (read(in, source, buffer) != -1) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                total += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+        return total;
+    }
+
+    private ByteBuffer allocate() {
+        allocations.increment();
+        return direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
+    }
+
+    /**
+     * 读入缓冲区, 堆内缓冲区直接读入其底层数组
+     */
+    private static int read(InputStream in, ReadableByteChannel source, ByteBuffer buffer) throws IOException {
+        if (source != null) return source.read(buffer);
+
+        int n = in.read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        if (n > 0) buffer.position(buffer.position() + n);
+        return n;
+    }
+
+
+}
@@ -0,0 +1,50 @@
+package cn.darkjrong.minio;
+
+import cn.darkjrong.minio.domain.UploadState;
+
+import java.util.Map;
+
+/**
+ * 分片上传状态存储
+ *
+ * <p>
+ * 保存可续传上传的上传ID与已完成的分片, 默认保存在本地目录; 多实例共享续传状态时可注册自定义实现的bean.
+ * 同一个键的写入由调用方串行化, 实现需保证不同键之间的线程安全
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/06 09:31:27
+ */
+public interface UploadStateStore {
+
+    /**
+     * 读取状态
+     *
+     * @param key 状态键
+     * @return {@link UploadState} 状态, 不存在时为空
+     */
+    UploadState load(String key);
+
+    /**
+     * 保存状态
+     *
+     * @param key   状态键
+     * @param state 状态
+     */
+    void save(String key, UploadState state);
+
+    /**
+     * 删除状态
+     *
+     * @param key 状态键
+     */
+    void remove(String key);
+
+    /**
+     * 读取全部状态
+     *
+     * @return {@link Map} 状态键与状态
+     */
+    Map<String, UploadState> loadAll();
+
+}
@@ -23,6 +23,11 @@ public @interface MinioNotification {
      */
     String[] value();
 
+    /**
+     * bucket名称, 为空时为默认bucket
+     */
+    String bucket() default "";
+
     /**
      * 前缀
      */
@@ -1,30 +1,96 @@
 package cn.darkjrong.minio.config;
 
+import cn.darkjrong.minio.CircuitBreakerInterceptor;
+import cn.darkjrong.minio.HttpClientMetrics;
 import cn.darkjrong.minio.MinioTemplate;
+import cn.darkjrong.minio.domain.HttpClientStats;
+import cn.darkjrong.minio.enums.CircuitBreakerState;
 import cn.darkjrong.spring.boot.autoconfigure.MinioProperties;
+import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.thread.ThreadFactoryBuilder;
 import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.core.util.StrUtil;
+import io.minio.BucketExistsArgs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.actuate.autoconfigure.web.server.ManagementContextAutoConfiguration;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 /**
  * 设置Minio运行状况指示器
  *
+ * <p>
+ * 后台线程按 minio.health.interval 定时探测默认bucket及 minio.health.buckets 中的各bucket,
+ * 健康检查只返回最近一次探测的结果, 不发起请求. 详情包含各bucket的状态、最近若干次探测耗时的百分位数、
+ * 熔断器状态及连接池状态; 只有探测失败或进行超过超时时间时报告为不可用.
+ * 熔断器按bucket或端点熔断, 单个熔断器打开只反映在详情中, 不会使整个应用不可用
+ * </p>
+ *
  * @author Rong.Jia
  * @date 2021/08/08 19:24:24
  */
 @Component
 @ConditionalOnClass(ManagementContextAutoConfiguration.class)
-public class MinioHealthIndicator implements HealthIndicator {
+public class MinioHealthIndicator implements HealthIndicator, InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(MinioHealthIndicator.class);
+
+    private static final String UP = "UP";
+    private static final String NOT_FOUND = "NOT_FOUND";
+    private static final String DOWN = "DOWN";
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99};
 
     private final MinioTemplate minioTemplate;
     private final MinioProperties minioProperties;
+    private final ObjectProvider<CircuitBreakerInterceptor> circuitBreakerInterceptorProvider;
+    private final ObjectProvider<HttpClientMetrics> httpClientMetricsProvider;
+    private final long[] latencies;
+
+    private int position;
+    private int count;
+    private volatile Probe lastProbe;
+    private volatile long probeStartedAt;
+    private ScheduledExecutorService scheduler;
 
-    public MinioHealthIndicator(MinioTemplate minioTemplate, MinioProperties minioProperties) {
+    public MinioHealthIndicator(MinioTemplate minioTemplate, MinioProperties minioProperties,
+                                ObjectProvider<CircuitBreakerInterceptor> circuitBreakerInterceptorProvider,
+                                ObjectProvider<HttpClientMetrics> httpClientMetricsProvider) {
         this.minioTemplate = minioTemplate;
         this.minioProperties = minioProperties;
+        this.circuitBreakerInterceptorProvider = circuitBreakerInterceptorProvider;
+        this.httpClientMetricsProvider = httpClientMetricsProvider;
+        this.latencies = new long[Math.max(1, minioProperties.getHealth().getHistorySize())];
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (ObjectUtil.isNull(minioTemplate)) return;
+
+        scheduler = new ScheduledThreadPoolExecutor(1,
+                ThreadFactoryBuilder.create().setNamePrefix("minio-health-").setDaemon(true).build());
+        scheduler.scheduleWithFixedDelay(this::probe, 0L, Math.max(1L, minioProperties.getHealth().getInterval()),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) scheduler.shutdownNow();
     }
 
     @Override
@@ -33,21 +99,119 @@ public class MinioHealthIndicator implements HealthIndicator {
             return Health.down().build();
         }
 
+        Probe probe = lastProbe;
+        long startedAt = probeStartedAt;
+        long elapsed = startedAt > 0 ? System.currentTimeMillis() - startedAt : 0L;
+
+        CircuitBreakerInterceptor circuitBreakerInterceptor = circuitBreakerInterceptorProvider.getIfAvailable();
+        Map<String, CircuitBreakerState> circuitBreakers = circuitBreakerInterceptor == null ? null : circuitBreakerInterceptor.getStates();
+
+        Health.Builder builder;
+        if (elapsed > minioProperties.getHealth().getTimeout()) {
+            builder = Health.down().withDetail("error", StrUtil.format("探测超时, 已进行 {} 毫秒", elapsed));
+        } else if (probe == null) {
+            builder = Health.unknown();
+        } else {
+            builder = probe.up ? Health.up() : Health.down();
+        }
+
+        builder.withDetail("bucketName", minioProperties.getBucketName());
+        if (probe != null) {
+            builder.withDetail("buckets", probe.buckets)
+                    .withDetail("checkedAt", DateUtil.formatDateTime(new Date(probe.checkedAt)));
+        }
+
+        Map<String, Long> latency = this.latency();
+        if (latency != null) builder.withDetail("latency", latency);
+        if (circuitBreakers != null) builder.withDetail("circuitBreakers", circuitBreakers);
+
+        HttpClientMetrics httpClientMetrics = httpClientMetricsProvider.getIfAvailable();
+        HttpClientStats httpClient = httpClientMetrics == null ? null : httpClientMetrics.getStats();
+        if (httpClient != null) builder.withDetail("httpClient", httpClient);
+        return builder.build();
+    }
+
+    /**
+     * 探测各bucket
+     */
+    private void probe() {
+        Set<String> bucketNames = new LinkedHashSet<>();
+        bucketNames.add(minioProperties.getBucketName());
+        bucketNames.addAll(minioProperties.getHealth().getBuckets());
+
+        probeStartedAt = System.currentTimeMillis();
         try {
+            boolean up = true;
+            Map<String, String> buckets = new LinkedHashMap<>();
+            for (String bucketName : bucketNames) {
+                String status = this.probeBucket(bucketName);
+                buckets.put(bucketName, status);
+                up &= UP.equals(status);
+            }
+            lastProbe = new Probe(up, buckets, System.currentTimeMillis());
+        } finally {
+            probeStartedAt = 0L;
+        }
+    }
 
-           if (minioTemplate.bucketExists(minioProperties.getBucketName())) {
-               return Health.up()
-                       .withDetail("bucketName", minioProperties.getBucketName())
-                       .build();
-           }else {
-               return Health.down()
-                       .withDetail("bucketName", minioProperties.getBucketName())
-                       .build();
-           }
+    /**
+     * 探测bucket, 记录耗时
+     *
+     * @param bucketName bucket名称
+     * @return {@link String} 状态
+     */
+    private String probeBucket(String bucketName) {
+        long start = System.nanoTime();
+        try {
+            boolean exists = minioTemplate.getMinioClient().bucketExists(BucketExistsArgs.builder().bucket(bucketName).build());
+            return exists ? UP : NOT_FOUND;
         } catch (Exception e) {
-            return Health.down(e)
-                    .withDetail("bucketName", minioProperties.getBucketName())
-                    .build();
+            logger.warn("bucket : {} 健康检查异常 {}", bucketName, e.getMessage());
+            return DOWN + StrUtil.COLON + StrUtil.SPACE + e.getMessage();
+        } finally {
+            this.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
         }
     }
+
+    private synchronized void record(long millis) {
+        latencies[position] = millis;
+        position = (position + 1) % latencies.length;
+        count = Math.min(count + 1, latencies.length);
+    }
+
+    /**
+     * 最近若干次探测耗时的百分位数与最大值, 单位为毫秒
+     */
+    private synchronized Map<String, Long> latency() {
+        if (count == 0) return null;
+
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        Map<String, Long> latency = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            int index = Math.max(0, (int) Math.ceil(percentile * count) - 1);
+            latency.put("p" + Math.round(percentile * 100), sorted[index]);
+        }
+        latency.put("max", sorted[count - 1]);
+        return latency;
+    }
+
+    /**
+     * 一次探测的结果
+     */
+    private static class Probe {
+
+        private final boolean up;
+        private final Map<String, String> buckets;
+        private final long checkedAt;
+
+        Probe(boolean up, Map<String, String> buckets, long checkedAt) {
+            this.up = up;
+            this.buckets = buckets;
+            this.checkedAt = checkedAt;
+        }
+
+    }
+
+
 }
@@ -2,24 +2,31 @@ package cn.darkjrong.minio.config;
 
 import cn.darkjrong.spring.boot.autoconfigure.MinioAutoConfiguration;
 import cn.darkjrong.spring.boot.autoconfigure.MinioProperties;
+import cn.darkjrong.minio.BulkheadInterceptor;
+import cn.darkjrong.minio.CircuitBreakerInterceptor;
+import cn.darkjrong.minio.HttpClientMetrics;
+import cn.darkjrong.minio.MinioTemplate;
+import cn.darkjrong.minio.RetryInterceptor;
+import cn.darkjrong.minio.domain.CacheStats;
+import cn.darkjrong.minio.enums.BulkheadOperation;
+import cn.darkjrong.minio.enums.CircuitBreakerState;
+import cn.darkjrong.minio.enums.RetryOperation;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.Timer;
 import io.minio.MinioClient;
-import org.aspectj.lang.ProceedingJoinPoint;
-import org.aspectj.lang.annotation.Around;
-import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.actuate.autoconfigure.health.ConditionalOnEnabledHealthIndicator;
 import org.springframework.boot.actuate.autoconfigure.health.HealthContributorAutoConfiguration;
 import org.springframework.boot.actuate.autoconfigure.web.server.ManagementContextAutoConfiguration;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
 import javax.annotation.PostConstruct;
-import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * minio指标配置
@@ -27,7 +34,6 @@ import java.util.concurrent.TimeUnit;
  * @author Rong.Jia
  * @date 2021/08/08 19:35:13
  */
-@Aspect
 @Configuration
 @EnableConfigurationProperties({MinioProperties.class})
 @ConditionalOnClass({MinioClient.class, ManagementContextAutoConfiguration.class})
@@ -38,167 +44,158 @@ public class MinioMetricConfiguration {
 
     private final MeterRegistry meterRegistry;
     private final MinioProperties minioProperties;
-
-    private Timer listOkTimer;
-    private Timer listKoTimer;
-    private Timer getOkTimer;
-    private Timer getKoTimer;
-    private Timer putOkTimer;
-    private Timer putKoTimer;
-    private Timer removeOkTimer;
-    private Timer removeKoTimer;
-    private Timer listBucketOkTimer;
-    private Timer listBucketKoTimer;
-
-    public MinioMetricConfiguration(MeterRegistry meterRegistry, MinioProperties minioProperties) {
+    private final ObjectProvider<MinioTemplate> minioTemplateProvider;
+    private final ObjectProvider<RetryInterceptor> retryInterceptorProvider;
+    private final ObjectProvider<CircuitBreakerInterceptor> circuitBreakerInterceptorProvider;
+    private final ObjectProvider<BulkheadInterceptor> bulkheadInterceptorProvider;
+    private final ObjectProvider<HttpClientMetrics> httpClientMetricsProvider;
+
+    public MinioMetricConfiguration(MeterRegistry meterRegistry, MinioProperties minioProperties,
+                                    ObjectProvider<MinioTemplate> minioTemplateProvider,
+                                    ObjectProvider<RetryInterceptor> retryInterceptorProvider,
+                                    ObjectProvider<CircuitBreakerInterceptor> circuitBreakerInterceptorProvider,
+                                    ObjectProvider<BulkheadInterceptor> bulkheadInterceptorProvider,
+                                    ObjectProvider<HttpClientMetrics> httpClientMetricsProvider) {
         this.meterRegistry = meterRegistry;
         this.minioProperties = minioProperties;
+        this.minioTemplateProvider = minioTemplateProvider;
+        this.retryInterceptorProvider = retryInterceptorProvider;
+        this.circuitBreakerInterceptorProvider = circuitBreakerInterceptorProvider;
+        this.bulkheadInterceptorProvider = bulkheadInterceptorProvider;
+        this.httpClientMetricsProvider = httpClientMetricsProvider;
     }
 
     @PostConstruct
-    public void initTimers() {
-        listOkTimer = Timer
-                .builder(minioProperties.getMetricName())
-                .tag("operation", "listObjects")
-                .tag("status", "ok")
-                .tag("bucket", minioProperties.getBucketName())
-                .register(meterRegistry);
+    public void initHttpMeters() {
+        HttpClientMetrics httpClientMetrics = httpClientMetricsProvider.getIfAvailable();
+        if (httpClientMetrics != null) httpClientMetrics.bindTo(meterRegistry);
+    }
 
-        listKoTimer = Timer
-                .builder(minioProperties.getMetricName())
-                .tag("operation", "listObjects")
-                .tag("status", "ko")
-                .tag("bucket", minioProperties.getBucketName())
-                .register(meterRegistry);
+    @PostConstruct
+    public void initOperationMeters() {
+        MinioTemplate minioTemplate = minioTemplateProvider.getIfAvailable();
+        if (minioTemplate != null) minioTemplate.bindTo(meterRegistry);
+    }
 
-        getOkTimer = Timer
-                .builder(minioProperties.getMetricName())
-                .tag("operation", "getObject")
-                .tag("status", "ok")
-                .tag("bucket", minioProperties.getBucketName())
-                .register(meterRegistry);
+    @PostConstruct
+    public void initCircuitBreakerMeters() {
+        CircuitBreakerInterceptor circuitBreakerInterceptor = circuitBreakerInterceptorProvider.getIfAvailable();
+        if (circuitBreakerInterceptor == null) return;
 
-        getKoTimer = Timer
-                .builder(minioProperties.getMetricName())
-                .tag("operation", "getObject")
-                .tag("status", "ko")
-                .tag("bucket", minioProperties.getBucketName())
+        FunctionCounter.builder(minioProperties.getMetricName() + ".circuit.rejected", circuitBreakerInterceptor, CircuitBreakerInterceptor::getRejected)
                 .register(meterRegistry);
 
-        putOkTimer = Timer
-                .builder(minioProperties.getMetricName())
-                .tag("operation", "putObject")
-                .tag("status", "ok")
-                .tag("bucket", minioProperties.getBucketName())
+        for (CircuitBreakerState state : CircuitBreakerState.values()) {
+            Gauge.builder(minioProperties.getMetricName() + ".circuit.breakers", circuitBreakerInterceptor,
+                            a -> a.getStates().values().stream().filter(state::equals).count())
+                    .tag("state", state.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+    }
+
+    @PostConstruct
+    public void initBulkheadMeters() {
+        BulkheadInterceptor bulkheadInterceptor = bulkheadInterceptorProvider.getIfAvailable();
+        if (bulkheadInterceptor == null) return;
+
+        for (BulkheadOperation operation : BulkheadOperation.values()) {
+            String tag = operation.name().toLowerCase();
+            Gauge.builder(minioProperties.getMetricName() + ".bulkhead.available", bulkheadInterceptor, a -> a.getStats(operation).getAvailable())
+                    .tag("operation", tag)
+                    .register(meterRegistry);
+
+            FunctionCounter.builder(minioProperties.getMetricName() + ".bulkhead.rejected", bulkheadInterceptor, a -> a.getStats(operation).getRejected())
+                    .tag("operation", tag)
+                    .register(meterRegistry);
+        }
+    }
+
+    @PostConstruct
+    public void initRetryMeters() {
+        RetryInterceptor retryInterceptor = retryInterceptorProvider.getIfAvailable();
+        if (retryInterceptor == null) return;
+
+        for (RetryOperation operation : RetryOperation.values()) {
+            String tag = operation.name().toLowerCase();
+            FunctionCounter.builder(minioProperties.getMetricName() + ".retry.retries", retryInterceptor, a -> a.getStats(operation).getRetries())
+                    .tag("operation", tag)
+                    .register(meterRegistry);
+
+            FunctionCounter.builder(minioProperties.getMetricName() + ".retry.give.ups", retryInterceptor, a -> a.getStats(operation).getGiveUps())
+                    .tag("operation", tag)
+                    .register(meterRegistry);
+
+            FunctionCounter.builder(minioProperties.getMetricName() + ".retry.throttled", retryInterceptor, a -> a.getStats(operation).getThrottled())
+                    .tag("operation", tag)
+                    .register(meterRegistry);
+        }
+
+        Gauge.builder(minioProperties.getMetricName() + ".retry.tokens", retryInterceptor, a -> a.getStats(RetryOperation.READ).getAvailableTokens())
                 .register(meterRegistry);
+    }
 
-        putKoTimer = Timer
-                .builder(minioProperties.getMetricName())
-                .tag("operation", "putObject")
-                .tag("status", "ko")
-                .tag("bucket", minioProperties.getBucketName())
+    @PostConstruct
+    public void initCacheMeters() {
+        MinioTemplate minioTemplate = minioTemplateProvider.getIfAvailable();
+        if (minioTemplate == null) return;
+
+        if (minioProperties.getCache().isEnabled()) {
+            this.registerCacheMeters(minioTemplate, "object", MinioTemplate::getObjectCacheStats);
+            Gauge.builder(minioProperties.getMetricName() + ".cache.bytes", minioTemplate, a -> a.getObjectCacheStats().getBytes())
+                    .tag("cache", "object")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+        if (minioProperties.getStatCache().isEnabled()) {
+            this.registerCacheMeters(minioTemplate, "stat", MinioTemplate::getStatCacheStats);
+        }
+        if (minioProperties.getPresignCache().isEnabled()) {
+            this.registerCacheMeters(minioTemplate, "presign", MinioTemplate::getPresignCacheStats);
+        }
+        this.registerBufferPoolMeters(minioTemplate);
+    }
+
+    private void registerBufferPoolMeters(MinioTemplate minioTemplate) {
+        FunctionCounter.builder(minioProperties.getMetricName() + ".buffer.acquisitions", minioTemplate, a -> a.getBufferPoolStats().getAcquisitions())
                 .register(meterRegistry);
 
-        listBucketOkTimer = Timer
-                .builder(minioProperties.getMetricName() + ".list.bucket")
-                .tag("operation", "listBuckets")
-                .tag("status", "ok")
+        FunctionCounter.builder(minioProperties.getMetricName() + ".buffer.allocations", minioTemplate, a -> a.getBufferPoolStats().getAllocations())
                 .register(meterRegistry);
 
-        listBucketKoTimer = Timer
-                .builder(minioProperties.getMetricName() + ".list.bucket")
-                .tag("operation", "listBuckets")
-                .tag("status", "ko")
+        FunctionCounter.builder(minioProperties.getMetricName() + ".buffer.exhaustions", minioTemplate, a -> a.getBufferPoolStats().getExhaustions())
                 .register(meterRegistry);
 
-        removeOkTimer = Timer
-                .builder(minioProperties.getMetricName())
-                .tag("operation", "removeObject")
-                .tag("status", "ok")
-                .tag("bucket", minioProperties.getBucketName())
+        Gauge.builder(minioProperties.getMetricName() + ".buffer.idle", minioTemplate, a -> a.getBufferPoolStats().getIdle())
                 .register(meterRegistry);
 
-        removeKoTimer = Timer
-                .builder(minioProperties.getMetricName())
-                .tag("operation", "removeObject")
-                .tag("status", "ko")
-                .tag("bucket", minioProperties.getBucketName())
+        Gauge.builder(minioProperties.getMetricName() + ".buffer.bytes", minioTemplate, a -> a.getBufferPoolStats().getBytes())
+                .baseUnit("bytes")
                 .register(meterRegistry);
     }
 
+    private void registerCacheMeters(MinioTemplate minioTemplate, String cache, Function<MinioTemplate, CacheStats> stats) {
+        FunctionCounter.builder(minioProperties.getMetricName() + ".cache.hits", minioTemplate, a -> stats.apply(a).getHits())
+                .tag("cache", cache)
+                .register(meterRegistry);
 
-    @ConditionalOnBean(MinioClient.class)
-    @Around("execution(* io.minio.MinioClient.getObject(..))")
-    public Object getMeter(ProceedingJoinPoint pjp) throws Throwable {
-        long l = System.currentTimeMillis();
-
-        try {
-            Object proceed = pjp.proceed();
-            getOkTimer.record(System.currentTimeMillis() - l, TimeUnit.MILLISECONDS);
-            return proceed;
-        } catch (Exception e) {
-            getKoTimer.record(System.currentTimeMillis() - l, TimeUnit.MILLISECONDS);
-            throw e;
-        }
-    }
-
-    @ConditionalOnBean(MinioClient.class)
-    @Around("execution(* io.minio.MinioClient.listObjects(..))")
-    public Object listMeter(ProceedingJoinPoint pjp) throws Throwable {
-        long l = System.currentTimeMillis();
-
-        try {
-            Object proceed = pjp.proceed();
-            listOkTimer.record(System.currentTimeMillis() - l, TimeUnit.MILLISECONDS);
-            return proceed;
-        } catch (Exception e) {
-            listKoTimer.record(System.currentTimeMillis() - l, TimeUnit.MILLISECONDS);
-            throw e;
-        }
-    }
+        FunctionCounter.builder(minioProperties.getMetricName() + ".cache.misses", minioTemplate, a -> stats.apply(a).getMisses())
+                .tag("cache", cache)
+                .register(meterRegistry);
 
-    @ConditionalOnBean(MinioClient.class)
-    @Around("execution(* io.minio.MinioClient.putObject(..))")
-    public Object putMeter(ProceedingJoinPoint pjp) throws Throwable {
-        long l = System.currentTimeMillis();
-
-        try {
-            Object proceed = pjp.proceed();
-            putOkTimer.record(System.currentTimeMillis() - l, TimeUnit.MILLISECONDS);
-            return proceed;
-        } catch (Exception e) {
-            putKoTimer.record(System.currentTimeMillis() - l, TimeUnit.MILLISECONDS);
-            throw e;
-        }
-    }
+        FunctionCounter.builder(minioProperties.getMetricName() + ".cache.evictions", minioTemplate, a -> stats.apply(a).getEvictions())
+                .tag("cache", cache)
+                .register(meterRegistry);
 
-    @ConditionalOnBean(MinioClient.class)
-    @Around("execution(* io.minio.MinioClient.listBuckets(..))")
-    public Object listBucketMeter(ProceedingJoinPoint pjp) throws Throwable {
-        long l = System.currentTimeMillis();
-
-        try {
-            Object proceed = pjp.proceed();
-            listBucketOkTimer.record(System.currentTimeMillis() - l, TimeUnit.MILLISECONDS);
-            return proceed;
-        } catch (Exception e) {
-            listBucketKoTimer.record(System.currentTimeMillis() - l, TimeUnit.MILLISECONDS);
-            throw e;
-        }
-    }
+        Gauge.builder(minioProperties.getMetricName() + ".cache.size", minioTemplate, a -> stats.apply(a).getSize())
+                .tag("cache", cache)
+                .register(meterRegistry);
 
-    @ConditionalOnBean(MinioClient.class)
-    @Around("execution(* io.minio.MinioClient.removeObject(..))")
-    public Object removeMeter(ProceedingJoinPoint pjp) throws Throwable {
-        long l = System.currentTimeMillis();
-
-        try {
-            Object proceed = pjp.proceed();
-            removeOkTimer.record(System.currentTimeMillis() - l, TimeUnit.MILLISECONDS);
-            return proceed;
-        } catch (Exception e) {
-            removeKoTimer.record(System.currentTimeMillis() - l, TimeUnit.MILLISECONDS);
-            throw e;
-        }
+        Gauge.builder(minioProperties.getMetricName() + ".cache.hit.ratio", minioTemplate, a -> {
+                    CacheStats cacheStats = stats.apply(a);
+                    long requests = cacheStats.getHits() + cacheStats.getMisses();
+                    return requests == 0 ? 0D : (double) cacheStats.getHits() / requests;
+                })
+                .tag("cache", cache)
+                .register(meterRegistry);
     }
 }
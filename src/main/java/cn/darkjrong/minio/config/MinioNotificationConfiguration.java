@@ -1,15 +1,17 @@
 package cn.darkjrong.minio.config;
 
 import cn.darkjrong.minio.MinioTemplate;
+import cn.darkjrong.minio.NotificationDispatcher;
 import cn.darkjrong.minio.annotations.MinioNotification;
 import cn.darkjrong.spring.boot.autoconfigure.MinioAutoConfiguration;
 import cn.darkjrong.spring.boot.autoconfigure.MinioProperties;
-import cn.hutool.core.collection.CollectionUtil;
+import cn.hutool.core.util.StrUtil;
 import io.minio.messages.NotificationRecords;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -19,14 +21,15 @@ import org.springframework.context.annotation.Configuration;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
-import java.util.List;
 
 /**
  * minio通知配置
  *
+ * <p>
+ * 将 {@link MinioNotification} 方法注册到通知分发引擎, 条件相同的方法共享一个通知流; 上下文关闭时停止监听
+ * </p>
+ *
  * @author Rong.Jia
  * @date 2021/08/08 19:35:37
  */
@@ -34,14 +37,14 @@ import java.util.List;
 @EnableConfigurationProperties({MinioProperties.class})
 @AutoConfigureBefore(MinioMetricConfiguration.class)
 @AutoConfigureAfter(MinioAutoConfiguration.class)
-public class MinioNotificationConfiguration implements ApplicationContextAware {
+public class MinioNotificationConfiguration implements ApplicationContextAware, DisposableBean {
 
     private static final Logger logger = LoggerFactory.getLogger(MinioNotificationConfiguration.class);
 
     private final MinioTemplate minioTemplate;
     private final MinioProperties minioProperties;
 
-    private List<Thread> handlers = new ArrayList<>();
+    private NotificationDispatcher dispatcher;
 
     public MinioNotificationConfiguration(MinioTemplate minioTemplate, MinioProperties minioProperties) {
         this.minioTemplate = minioTemplate;
@@ -71,38 +74,47 @@ public class MinioNotificationConfiguration implements ApplicationContextAware {
                     }
 
                     MinioNotification annotation = m.getAnnotation(MinioNotification.class);
+                    String bucketName = StrUtil.blankToDefault(annotation.bucket(), minioProperties.getBucketName());
 
                     //Then registering method handler
-                    Thread handler = new Thread(() -> {
-                        for (; ; ) {
-                            try {
-                                logger.info("Registering Minio handler on {} with notification {}", m.getName(), Arrays.toString(annotation.value()));
-                                try {
-                                    List<NotificationRecords> eventList = minioTemplate.listenBucketNotification(minioProperties.getBucketName(), annotation.prefix(),
-                                            annotation.suffix(), annotation.value());
-                                    if (CollectionUtil.isNotEmpty(eventList)) {
-                                        for (Iterator<NotificationRecords> iterator = eventList.iterator(); iterator.hasNext();) {
-                                            try {
-                                                logger.debug("Receive notification for method {}", m.getName());
-                                                m.invoke(obj, iterator.next());
-                                            } catch (IllegalAccessException | InvocationTargetException e) {
-                                                logger.error("Error while handling notification for method {} with notification {}", m.getName(), Arrays.toString(annotation.value()));
-                                            }
-                                        }
-                                    }
-                                }catch (Exception e) {
-                                    logger.error("Getting a listener exception {} , method : {}", e.getMessage(), m.getName());
-                                }
-                            } catch (Exception e) {
-                                logger.error("Error while registering notification for method " + m.getName() + " with notification " + Arrays.toString(annotation.value()), e);
-                                throw new IllegalStateException("Cannot register handler", e);
-                            }
-                        }
-                    });
-                    handler.start();
-                    handlers.add(handler);
+                    logger.info("Registering Minio handler on {} with notification {}", m.getName(), Arrays.toString(annotation.value()));
+                    this.getDispatcher().subscribe(bucketName, annotation.prefix(), annotation.suffix(), annotation.value(),
+                            objClz.getSimpleName() + "#" + m.getName(), records -> this.invoke(obj, m, records));
                 }
             }
         }
+
+        if (dispatcher != null) dispatcher.start();
+    }
+
+    @Override
+    public void destroy() {
+        if (dispatcher != null) dispatcher.shutdown();
+    }
+
+    /**
+     * 获取通知分发引擎, 存在通知方法时才创建
+     *
+     * @return {@link NotificationDispatcher}
+     */
+    private NotificationDispatcher getDispatcher() {
+        if (dispatcher == null) {
+            dispatcher = new NotificationDispatcher(minioTemplate.getMinioClient(), minioProperties.getNotification());
+        }
+        return dispatcher;
+    }
+
+    /**
+     * 调用通知方法
+     */
+    private void invoke(Object obj, Method m, NotificationRecords records) {
+        try {
+            logger.debug("Receive notification for method {}", m.getName());
+            m.invoke(obj, records);
+        } catch (InvocationTargetException e) {
+            logger.error("Error while handling notification for method {} : {}", m.getName(), e.getTargetException().getMessage());
+        } catch (IllegalAccessException e) {
+            logger.error("Error while handling notification for method {} : {}", m.getName(), e.getMessage());
+        }
     }
 }
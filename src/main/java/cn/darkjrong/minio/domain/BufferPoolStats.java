@@ -0,0 +1,57 @@
+package cn.darkjrong.minio.domain;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 缓冲区池统计
+ *
+ * @author Rong.Jia
+ * @date 2022/04/04 09:26:15
+ */
+@Data
+public class BufferPoolStats implements Serializable {
+
+    private static final long serialVersionUID = 5207934457212862976L;
+
+    /**
+     *  获取缓冲区次数
+     */
+    private long acquisitions;
+
+    /**
+     *  分配缓冲区次数, 含池耗尽时的临时分配
+     */
+    private long allocations;
+
+    /**
+     *  池耗尽次数
+     */
+    private long exhaustions;
+
+    /**
+     *  池中空闲的缓冲区数
+     */
+    private long idle;
+
+    /**
+     *  池持有的缓冲区总字节数
+     */
+    private long bytes;
+
+    public BufferPoolStats(long acquisitions, long allocations, long exhaustions, long idle, long bytes) {
+        this.acquisitions = acquisitions;
+        this.allocations = allocations;
+        this.exhaustions = exhaustions;
+        this.idle = idle;
+        this.bytes = bytes;
+    }
+
+
+
+
+
+
+
+}
@@ -0,0 +1,43 @@
+package cn.darkjrong.minio.domain;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 隔离舱统计
+ *
+ * @author Rong.Jia
+ * @date 2022/04/08 11:02:19
+ */
+@Data
+public class BulkheadStats implements Serializable {
+
+    private static final long serialVersionUID = 4417262305912340480L;
+
+    /**
+     *  最大并发数
+     */
+    private int maxConcurrent;
+
+    /**
+     *  当前可用的并发许可数
+     */
+    private int available;
+
+    /**
+     *  等待超时被拒绝的请求数
+     */
+    private long rejected;
+
+    public BulkheadStats(int maxConcurrent, int available, long rejected) {
+        this.maxConcurrent = maxConcurrent;
+        this.available = available;
+        this.rejected = rejected;
+    }
+
+
+
+
+
+}
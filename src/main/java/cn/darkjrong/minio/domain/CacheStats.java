@@ -0,0 +1,57 @@
+package cn.darkjrong.minio.domain;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 缓存统计
+ *
+ * @author Rong.Jia
+ * @date 2022/04/02 10:14:36
+ */
+@Data
+public class CacheStats implements Serializable {
+
+    private static final long serialVersionUID = -3361740521695217408L;
+
+    /**
+     *  命中次数
+     */
+    private long hits;
+
+    /**
+     *  未命中次数
+     */
+    private long misses;
+
+    /**
+     *  淘汰次数
+     */
+    private long evictions;
+
+    /**
+     *  缓存条目数
+     */
+    private long size;
+
+    /**
+     *  缓存占用字节数, 不统计字节时为0
+     */
+    private long bytes;
+
+    public CacheStats(long hits, long misses, long evictions, long size, long bytes) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+        this.bytes = bytes;
+    }
+
+
+
+
+
+
+
+}
@@ -0,0 +1,51 @@
+package cn.darkjrong.minio.domain;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 操作失败的对象
+ *
+ * @author Rong.Jia
+ * @date 2022/04/01 15:12:40
+ */
+@Data
+public class FailedObject implements Serializable {
+
+    private static final long serialVersionUID = 5710938847215402316L;
+
+    /**
+     *  bucket 名
+     */
+    private String bucketName;
+
+    /**
+     * 对象名
+     */
+    private String objectName;
+
+    /**
+     * 错误码
+     */
+    private String errorCode;
+
+    /**
+     * 错误信息
+     */
+    private String errorMessage;
+
+    public FailedObject(String bucketName, String objectName, String errorCode, String errorMessage) {
+        this.bucketName = bucketName;
+        this.objectName = objectName;
+        this.errorCode = errorCode;
+        this.errorMessage = errorMessage;
+    }
+
+
+
+
+
+
+
+}
@@ -0,0 +1,37 @@
+package cn.darkjrong.minio.domain;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * HTTP 客户端统计
+ *
+ * @author Rong.Jia
+ * @date 2022/04/12 09:26:38
+ */
+@Data
+public class HttpClientStats implements Serializable {
+
+    private static final long serialVersionUID = -2739615094852168803L;
+
+    /**
+     *  连接池空闲连接数
+     */
+    private int idleConnections;
+
+    /**
+     *  连接池活动连接数
+     */
+    private int activeConnections;
+
+    public HttpClientStats(int idleConnections, int activeConnections) {
+        this.idleConnections = idleConnections;
+        this.activeConnections = activeConnections;
+    }
+
+
+
+
+
+}
@@ -20,6 +20,9 @@ public class ListObjectParam implements Serializable {
      */
     private String bucketName;
 
+    /**
+     *  从该对象之后开始
+     */
     private String startAfter;
 
     /**
@@ -28,10 +31,20 @@ public class ListObjectParam implements Serializable {
     private String prefix;
 
     /**
-     *  最大数量
+     *  每页数量, 分页查询时为单页的最大数量
      */
     private Integer maxKeys = 1000;
 
+    /**
+     *  是否递归列出, 否则只列出当前层级的对象和目录
+     */
+    private boolean recursive;
+
+    /**
+     *  分页标记, 取自上一页的 nextContinuationToken
+     */
+    private String continuationToken;
+
     /**
      *  是否包含版本
      */
@@ -0,0 +1,49 @@
+package cn.darkjrong.minio.domain;
+
+import io.minio.messages.Item;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 对象分页结果
+ *
+ * @author Rong.Jia
+ * @date 2022/03/30 10:26:51
+ */
+@Data
+public class ObjectPage implements Serializable {
+
+    private static final long serialVersionUID = -4263171836924015137L;
+
+    /**
+     *  当前页对象, 非递归列出时包含目录
+     */
+    private List<Item> items;
+
+    /**
+     *  下一页标记, 作为下一次请求的 continuationToken
+     */
+    private String nextContinuationToken;
+
+    /**
+     *  是否还有下一页
+     */
+    private boolean truncated;
+
+
+
+
+
+
+
+
+
+
+
+
+
+
+
+}
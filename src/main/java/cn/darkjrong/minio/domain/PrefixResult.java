@@ -0,0 +1,40 @@
+package cn.darkjrong.minio.domain;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 前缀操作结果
+ *
+ * @author Rong.Jia
+ * @date 2022/04/01 15:08:22
+ */
+@Data
+public class PrefixResult implements Serializable {
+
+    private static final long serialVersionUID = -1902775346081552307L;
+
+    /**
+     *  处理的对象总数
+     */
+    private long total;
+
+    /**
+     *  成功的对象数
+     */
+    private long succeeded;
+
+    /**
+     *  失败的对象
+     */
+    private List<FailedObject> failures;
+
+
+
+
+
+
+
+}
@@ -0,0 +1,55 @@
+package cn.darkjrong.minio.domain;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 预签名分片上传
+ *
+ * <p>
+ * 客户端按 partSize 切分对象, 以 PUT 方法将第 n 片上传到 partUrls 的第 n-1 个地址, 各分片可并行上传,
+ * 全部完成后由服务端完成分片上传
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/04 09:38:52
+ */
+@Data
+public class PresignedMultipartUpload implements Serializable {
+
+    private static final long serialVersionUID = 4416052736871092615L;
+
+    /**
+     *  bucket 名
+     */
+    private String bucketName;
+
+    /**
+     * 对象名
+     */
+    private String objectName;
+
+    /**
+     * 上传ID
+     */
+    private String uploadId;
+
+    /**
+     * 分片大小, 最后一片可小于该值
+     */
+    private long partSize;
+
+    /**
+     * 分片上传地址, 按分片序号排列
+     */
+    private List<String> partUrls;
+
+
+
+
+
+
+
+}
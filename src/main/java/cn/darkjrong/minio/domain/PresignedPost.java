@@ -0,0 +1,49 @@
+package cn.darkjrong.minio.domain;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * 预签名表单上传
+ *
+ * <p>
+ * 客户端以 multipart/form-data 向 url 提交 formData 中的全部字段, 文件字段名为 file 且放在最后
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/04 09:31:08
+ */
+@Data
+public class PresignedPost implements Serializable {
+
+    private static final long serialVersionUID = -2739260436621470858L;
+
+    /**
+     *  bucket 名
+     */
+    private String bucketName;
+
+    /**
+     * 对象名
+     */
+    private String objectName;
+
+    /**
+     * 表单提交地址
+     */
+    private String url;
+
+    /**
+     * 表单字段, 包含 key 与策略签名
+     */
+    private Map<String, String> formData;
+
+
+
+
+
+
+
+}
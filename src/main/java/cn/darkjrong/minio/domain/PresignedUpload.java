@@ -0,0 +1,43 @@
+package cn.darkjrong.minio.domain;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 预签名上传
+ *
+ * <p>
+ * 客户端以 PUT 方法将对象内容直接上传到 url
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/04 09:26:31
+ */
+@Data
+public class PresignedUpload implements Serializable {
+
+    private static final long serialVersionUID = 8210637291846273110L;
+
+    /**
+     *  bucket 名
+     */
+    private String bucketName;
+
+    /**
+     * 对象名
+     */
+    private String objectName;
+
+    /**
+     * 预签名上传地址
+     */
+    private String url;
+
+
+
+
+
+
+
+}
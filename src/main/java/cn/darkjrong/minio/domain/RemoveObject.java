@@ -30,6 +30,16 @@ public class RemoveObject implements Serializable {
      */
     private String versionId;
 
+    /**
+     * 删除失败时的错误码
+     */
+    private String errorCode;
+
+    /**
+     * 删除失败时的错误信息
+     */
+    private String errorMessage;
+
 
     public RemoveObject(String bucketName, String objectName, String versionId) {
         this.bucketName = bucketName;
@@ -0,0 +1,49 @@
+package cn.darkjrong.minio.domain;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 重试统计
+ *
+ * @author Rong.Jia
+ * @date 2022/04/07 09:40:26
+ */
+@Data
+public class RetryStats implements Serializable {
+
+    private static final long serialVersionUID = 8164094227401129984L;
+
+    /**
+     *  重试次数
+     */
+    private long retries;
+
+    /**
+     *  放弃次数, 可重试的错误在用尽次数或重试预算后仍失败
+     */
+    private long giveUps;
+
+    /**
+     *  因重试预算不足而放弃的次数
+     */
+    private long throttled;
+
+    /**
+     *  重试预算的剩余令牌数, 所有操作共享
+     */
+    private long availableTokens;
+
+    public RetryStats(long retries, long giveUps, long throttled, long availableTokens) {
+        this.retries = retries;
+        this.giveUps = giveUps;
+        this.throttled = throttled;
+        this.availableTokens = availableTokens;
+    }
+
+
+
+
+
+}
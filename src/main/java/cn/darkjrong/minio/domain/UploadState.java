@@ -0,0 +1,75 @@
+package cn.darkjrong.minio.domain;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 可续传的分片上传状态
+ *
+ * @author Rong.Jia
+ * @date 2022/04/06 09:18:42
+ */
+@Data
+public class UploadState implements Serializable {
+
+    private static final long serialVersionUID = 2931840465727021056L;
+
+    /**
+     *  bucket 名
+     */
+    private String bucketName;
+
+    /**
+     * 对象名
+     */
+    private String objectName;
+
+    /**
+     * 上传ID
+     */
+    private String uploadId;
+
+    /**
+     * 本地文件路径
+     */
+    private String filePath;
+
+    /**
+     * 文件长度
+     */
+    private Long fileLength;
+
+    /**
+     * 文件最后修改时间, 用于判断文件是否变化
+     */
+    private Long fileLastModified;
+
+    /**
+     * 分片大小
+     */
+    private Long partSize;
+
+    /**
+     * 创建时间, 毫秒
+     */
+    private Long createTime;
+
+    /**
+     * 最近更新时间, 毫秒
+     */
+    private Long updateTime;
+
+    /**
+     * 已完成的分片
+     */
+    private List<UploadedPart> parts = new ArrayList<>();
+
+
+
+
+
+
+}
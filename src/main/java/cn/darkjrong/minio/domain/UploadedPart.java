@@ -0,0 +1,40 @@
+package cn.darkjrong.minio.domain;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 已上传的分片
+ *
+ * @author Rong.Jia
+ * @date 2022/04/06 09:20:13
+ */
+@Data
+public class UploadedPart implements Serializable {
+
+    private static final long serialVersionUID = -6034712284587150592L;
+
+    /**
+     * 分片序号
+     */
+    private Integer partNumber;
+
+    /**
+     * 分片ETag
+     */
+    private String etag;
+
+    public UploadedPart() {
+    }
+
+    public UploadedPart(Integer partNumber, String etag) {
+        this.partNumber = partNumber;
+        this.etag = etag;
+    }
+
+
+
+
+
+}
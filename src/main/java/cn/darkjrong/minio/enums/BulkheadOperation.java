@@ -0,0 +1,36 @@
+package cn.darkjrong.minio.enums;
+
+/**
+ * 隔离舱操作类型
+ *
+ * <p>
+ * 按请求划分: 带 events 参数的 GET 请求为监听通知, 列举 bucket、对象、分片上传及分片的 GET 请求为列举, 其余 GET 为读取,
+ * HEAD 为对象信息, DELETE 与批量删除为删除, 其余 PUT、POST 为写入. 各类型的并发数相互独立, 列举任务不会占满读取的并发.
+ * 监听通知的长连接一直持有许可, 默认不限制并发
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/08 09:21:37
+ */
+public enum BulkheadOperation {
+
+    // 读取
+    READ,
+
+    // 列举
+    LIST,
+
+    // 对象信息
+    STAT,
+
+    // 删除
+    DELETE,
+
+    // 写入
+    WRITE,
+
+    // 监听通知
+    NOTIFICATION;
+
+
+}
@@ -0,0 +1,21 @@
+package cn.darkjrong.minio.enums;
+
+/**
+ * 熔断器状态
+ *
+ * @author Rong.Jia
+ * @date 2022/04/08 09:26:12
+ */
+public enum CircuitBreakerState {
+
+    // 关闭, 请求正常通过
+    CLOSED,
+
+    // 打开, 请求直接失败
+    OPEN,
+
+    // 半开, 只放行少量试探请求
+    HALF_OPEN;
+
+
+}
@@ -24,6 +24,11 @@ public enum ExceptionEnum {
     TARGET_OBJECT_CANNOT_BE_EMPTY("target object cannot be empty"),
     THE_OBJECT_COLLECTION_CANNOT_BE_EMPTY("The object collection cannot be empty"),
     VERSION_STATE_CANNOT_BE_EMPTY("bucket version state cannot be empty"),
+    OUTPUT_CANNOT_BE_EMPTY("output cannot be empty"),
+    CONSUMER_CANNOT_BE_EMPTY("consumer cannot be empty"),
+    ILLEGAL_RANGE("offset must not be negative and length must be positive"),
+    PREFIX_CANNOT_BE_EMPTY("prefix cannot be empty"),
+    PREFIX_MUST_END_WITH_SLASH("prefix must end with '/'"),
 
 
     ;
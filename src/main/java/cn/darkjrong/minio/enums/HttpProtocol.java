@@ -0,0 +1,25 @@
+package cn.darkjrong.minio.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * HTTP 协议
+ *
+ * @author Rong.Jia
+ * @date 2022/03/27 10:16:42
+ */
+@Getter
+@AllArgsConstructor
+public enum HttpProtocol {
+
+    // HTTP/1.1
+    HTTP_1_1("http/1.1"),
+
+    // HTTP/2, 仅 https 通过ALPN协商; MinIO 不支持 h2c, http 端点使用 HTTP/1.1
+    HTTP_2("h2");
+
+    private final String value;
+
+
+}
@@ -0,0 +1,29 @@
+package cn.darkjrong.minio.enums;
+
+/**
+ * 重试操作类型
+ *
+ * <p>
+ * 按请求方法划分: GET 为读取, HEAD 为对象信息, DELETE 与批量删除为删除, PUT 为写入;
+ * 其余 POST 请求(创建、合并分片上传等)不是幂等的, 不重试
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/04/07 09:12:51
+ */
+public enum RetryOperation {
+
+    // 读取
+    READ,
+
+    // 对象信息
+    STAT,
+
+    // 删除
+    DELETE,
+
+    // 写入, 仅重试可重放的请求体
+    WRITE;
+
+
+}
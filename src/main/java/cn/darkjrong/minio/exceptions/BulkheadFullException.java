@@ -0,0 +1,20 @@
+package cn.darkjrong.minio.exceptions;
+
+import java.io.IOException;
+
+/**
+ * 隔离舱已满异常, 等待超时仍未获得并发许可
+ *
+ * @author Rong.Jia
+ * @date 2022/04/08 09:35:06
+ */
+public class BulkheadFullException extends IOException {
+
+    private static final long serialVersionUID = -5103867752946587648L;
+
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+
+
+}
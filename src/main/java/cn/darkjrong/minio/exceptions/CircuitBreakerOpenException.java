@@ -0,0 +1,20 @@
+package cn.darkjrong.minio.exceptions;
+
+import java.io.IOException;
+
+/**
+ * 熔断器打开异常, 熔断期间请求不会发往服务端
+ *
+ * @author Rong.Jia
+ * @date 2022/04/08 09:33:48
+ */
+public class CircuitBreakerOpenException extends IOException {
+
+    private static final long serialVersionUID = 2896457043125163520L;
+
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+
+
+}
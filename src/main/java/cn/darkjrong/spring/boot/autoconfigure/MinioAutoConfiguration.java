@@ -1,11 +1,29 @@
 package cn.darkjrong.spring.boot.autoconfigure;
 
+import cn.darkjrong.minio.AsyncMinioTemplate;
+import cn.darkjrong.minio.BulkheadInterceptor;
+import cn.darkjrong.minio.CircuitBreakerInterceptor;
+import cn.darkjrong.minio.HttpClientMetrics;
+import cn.darkjrong.minio.MinioTemplate;
+import cn.darkjrong.minio.MinioTracer;
+import cn.darkjrong.minio.ReactiveMinioTemplate;
+import cn.darkjrong.minio.RetryInterceptor;
+import cn.darkjrong.minio.UploadStateStore;
+import okhttp3.Interceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 /**
  * minio自动配置
  *
@@ -24,9 +42,70 @@ public class MinioAutoConfiguration {
         this.minioProperties = minioProperties;
     }
 
+    /**
+     * 拦截器由外到内依次为熔断、隔离舱、重试: 熔断打开时不占用并发许可, 一次请求的所有重试只计为一次熔断统计.
+     * 存在 {@link MinioTracer} bean 时开启链路追踪
+     */
+    @Bean
+    public MinioFactoryBean minioFactoryBean(ObjectProvider<UploadStateStore> uploadStateStore,
+                                             ObjectProvider<CircuitBreakerInterceptor> circuitBreakerInterceptor,
+                                             ObjectProvider<BulkheadInterceptor> bulkheadInterceptor,
+                                             ObjectProvider<RetryInterceptor> retryInterceptor,
+                                             ObjectProvider<HttpClientMetrics> httpClientMetrics,
+                                             ObjectProvider<MinioTracer> tracer) {
+        List<Interceptor> interceptors = Stream.of(circuitBreakerInterceptor.getIfAvailable(),
+                        bulkheadInterceptor.getIfAvailable(), retryInterceptor.getIfAvailable())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new MinioFactoryBean(minioProperties, uploadStateStore.getIfAvailable(), interceptors,
+                httpClientMetrics.getIfAvailable(), tracer.getIfAvailable());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "minio.http", name = "metrics-enabled", havingValue = "true", matchIfMissing = true)
+    public HttpClientMetrics minioHttpClientMetrics() {
+        return new HttpClientMetrics(minioProperties.getMetricName());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "minio.circuit-breaker", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public CircuitBreakerInterceptor minioCircuitBreakerInterceptor() {
+        return new CircuitBreakerInterceptor(minioProperties.getCircuitBreaker());
+    }
+
     @Bean
-    public MinioFactoryBean minioFactoryBean() {
-        return new MinioFactoryBean(minioProperties);
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "minio.bulkhead", name = "enabled", havingValue = "true")
+    public BulkheadInterceptor minioBulkheadInterceptor() {
+        return new BulkheadInterceptor(minioProperties.getBulkhead());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "minio.retry", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public RetryInterceptor minioRetryInterceptor() {
+        return new RetryInterceptor(minioProperties.getRetry());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public AsyncMinioTemplate asyncMinioTemplate(MinioTemplate minioTemplate) {
+        return new AsyncMinioTemplate(minioTemplate, minioProperties);
+    }
+
+    /**
+     * 响应式操作配置, 仅在 Reactor 存在时生效
+     */
+    @Configuration
+    @ConditionalOnClass(name = "reactor.core.publisher.Flux")
+    static class ReactiveMinioConfiguration {
+
+        @Bean
+        public ReactiveMinioTemplate reactiveMinioTemplate(MinioTemplate minioTemplate) {
+            return new ReactiveMinioTemplate(minioTemplate);
+        }
+
     }
 
 
@@ -1,16 +1,32 @@
 package cn.darkjrong.spring.boot.autoconfigure;
 
+import cn.darkjrong.minio.HttpClientMetrics;
 import cn.darkjrong.minio.MinioTemplate;
+import cn.darkjrong.minio.MinioTracer;
+import cn.darkjrong.minio.RetryInterceptor;
+import cn.darkjrong.minio.TracingInterceptor;
+import cn.darkjrong.minio.UploadStateStore;
+import cn.darkjrong.minio.enums.HttpProtocol;
 import cn.hutool.core.lang.Assert;
 import cn.hutool.core.util.StrUtil;
 import io.minio.MinioClient;
+import okhttp3.ConnectionPool;
+import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.InitializingBean;
 
 import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -19,13 +35,28 @@ import java.net.URL;
  * @author Rong.Jia
  * @date 2021/08/05 10:41:45
  */
-public class MinioFactoryBean implements FactoryBean<MinioTemplate>, InitializingBean {
+public class MinioFactoryBean implements FactoryBean<MinioTemplate>, InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(MinioFactoryBean.class);
 
     private MinioTemplate minioTemplate;
     private final MinioProperties minioProperties;
+    private final UploadStateStore uploadStateStore;
+    private final List<Interceptor> interceptors;
+    private final HttpClientMetrics httpClientMetrics;
+    private final MinioTracer tracer;
 
     public MinioFactoryBean(MinioProperties minioProperties) {
+        this(minioProperties, null, Collections.emptyList(), null, null);
+    }
+
+    public MinioFactoryBean(MinioProperties minioProperties, UploadStateStore uploadStateStore,
+                            List<Interceptor> interceptors, HttpClientMetrics httpClientMetrics, MinioTracer tracer) {
         this.minioProperties = minioProperties;
+        this.uploadStateStore = uploadStateStore;
+        this.interceptors = interceptors;
+        this.httpClientMetrics = httpClientMetrics;
+        this.tracer = tracer;
     }
 
     @Override
@@ -59,20 +90,27 @@ public class MinioFactoryBean implements FactoryBean<MinioTemplate>, Initializin
         MinioClient.Builder builder = MinioClient.builder().endpoint(new URL(endpoint))
                 .credentials(accessKey, secretKey);
 
-        if (isConfiguredProxy()) {
-            builder.httpClient(createHttpClient());
-        }
+        if (StrUtil.isNotBlank(minioProperties.getRegion())) builder.region(minioProperties.getRegion());
+        builder.httpClient(createHttpClient(endpoint));
 
         MinioClient minioClient = builder.build();
         minioClient.setTimeout(minioProperties.getConnectTimeout(), minioProperties.getWriteTimeout(), minioProperties.getReadTimeout());
 
-        minioTemplate = new MinioTemplate(minioClient, minioProperties);
+        minioTemplate = new MinioTemplate(minioClient, minioProperties, uploadStateStore,
+                tracer == null ? MinioTracer.NOOP : tracer, interceptors.stream().anyMatch(RetryInterceptor.class::isInstance));
 
         if (!minioTemplate.bucketExists(bucketName)) {
             minioTemplate.makeBucket(bucketName);
         }
     }
 
+    @Override
+    public void destroy() {
+        if (minioTemplate != null) {
+            minioTemplate.shutdown();
+        }
+    }
+
     /**
      * 是否配置代理
      * @return {@link Boolean}
@@ -86,37 +124,55 @@ public class MinioFactoryBean implements FactoryBean<MinioTemplate>, Initializin
     /**
      * 创建http客户端
      *
+     * <p>
+     * 连接池、协议及socket参数取自 minio.http 配置, 超时时间由 {@link MinioClient#setTimeout} 设置;
+     * minio 客户端同步执行请求, 不经过调度器的并发限制, 开启隔离舱时并发数由其控制;
+     * 熔断、隔离舱、重试等拦截器以应用拦截器的方式按顺序加入, 配置了HTTP客户端指标时注册事件监听;
+     * 配置了链路追踪时追踪拦截器位于最内层, 每次重试各有一个 span
+     * </p>
+     *
+     * @param endpoint 对象存储服务的URL
      * @return {@link OkHttpClient}
      */
-    private OkHttpClient createHttpClient() {
-        String httpHost = System.getProperty("http.proxyHost");
-        String httpPort = System.getProperty("http.proxyPort");
-        OkHttpClient.Builder builder = new OkHttpClient.Builder();
-        if (httpHost != null) {
-            builder.proxy(new Proxy(Proxy.Type.HTTP, new InetSocketAddress(httpHost, Integer.parseInt(httpPort))));
-        }
-        return builder.build();
-    }
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
+    private OkHttpClient createHttpClient(String endpoint) {
+        MinioProperties.Http http = minioProperties.getHttp();
 
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(http.getMaxIdleConnections(), http.getKeepAliveDuration(), TimeUnit.MILLISECONDS))
+                .protocols(getProtocols(http.getProtocol(), endpoint))
+                .socketFactory(new MinioSocketFactory(http));
 
+        interceptors.forEach(builder::addInterceptor);
+        if (tracer != null) builder.addInterceptor(new TracingInterceptor(tracer));
+        if (httpClientMetrics != null) builder.eventListenerFactory(httpClientMetrics);
 
+        if (isConfiguredProxy()) {
+            String httpHost = System.getProperty("http.proxyHost");
+            String httpPort = System.getProperty("http.proxyPort");
+            builder.proxy(new Proxy(Proxy.Type.HTTP, new InetSocketAddress(httpHost, Integer.parseInt(httpPort))));
+        }
 
+        OkHttpClient httpClient = builder.build();
+        if (httpClientMetrics != null) httpClientMetrics.bindClient(httpClient);
+        return httpClient;
+    }
 
+    /**
+     * 获取协议列表, HTTP/2 只用于 https: MinIO 不支持 h2c, http 端点回退为 HTTP/1.1
+     *
+     * @param protocol 协议
+     * @param endpoint 对象存储服务的URL
+     * @return {@link List<Protocol>} 协议列表
+     */
+    private List<Protocol> getProtocols(HttpProtocol protocol, String endpoint) {
+        if (protocol != HttpProtocol.HTTP_2) {
+            return Collections.singletonList(Protocol.HTTP_1_1);
+        }
+        if (!StrUtil.startWithIgnoreCase(endpoint, "https")) {
+            logger.warn("endpoint : {} 不是 https, 不支持 HTTP/2, 使用 HTTP/1.1", endpoint);
+            return Collections.singletonList(Protocol.HTTP_1_1);
+        }
+        return Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1);
+    }
 
 }
@@ -1,8 +1,16 @@
 package cn.darkjrong.spring.boot.autoconfigure;
 
+import cn.darkjrong.minio.enums.BulkheadOperation;
+import cn.darkjrong.minio.enums.HttpProtocol;
+import cn.darkjrong.minio.enums.RetryOperation;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * minio属性
  *
@@ -40,6 +48,11 @@ public class MinioProperties {
      */
     private String bucketName;
 
+    /**
+     *  区域, 为空时由服务端获取bucket所在区域
+     */
+    private String region;
+
     /**
      * HTTP连接超时，单位为毫秒。默认：5分钟
      */
@@ -60,5 +73,605 @@ public class MinioProperties {
      */
     private String metricName = "minio.storage";
 
+    /**
+     * 操作指标配置
+     */
+    private Metrics metrics = new Metrics();
+
+    /**
+     * HTTP客户端配置
+     */
+    private Http http = new Http();
+
+    /**
+     * 分片上传配置
+     */
+    private Multipart multipart = new Multipart();
+
+    /**
+     * 分段下载配置
+     */
+    private Download download = new Download();
+
+    /**
+     * 并行列表配置
+     */
+    private Listing listing = new Listing();
+
+    /**
+     * 批量删除配置
+     */
+    private Remove remove = new Remove();
+
+    /**
+     * 前缀复制配置
+     */
+    private Copy copy = new Copy();
+
+    /**
+     * 对象读缓存配置
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * 对象信息缓存配置
+     */
+    private StatCache statCache = new StatCache();
+
+    /**
+     * 预签名URL缓存配置
+     */
+    private PresignCache presignCache = new PresignCache();
+
+    /**
+     * 传输缓冲区池配置
+     */
+    private Buffer buffer = new Buffer();
+
+    /**
+     * 内容寻址上传(去重)配置
+     */
+    private Dedup dedup = new Dedup();
+
+    /**
+     * 可续传上传配置
+     */
+    private Resumable resumable = new Resumable();
+
+    /**
+     * 请求重试配置
+     */
+    private Retry retry = new Retry();
+
+    /**
+     * 熔断配置
+     */
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    /**
+     * 隔离舱(并发限制)配置
+     */
+    private Bulkhead bulkhead = new Bulkhead();
+
+    /**
+     * 健康检查配置
+     */
+    private Health health = new Health();
+
+    /**
+     * 对象通知配置
+     */
+    private Notification notification = new Notification();
+
+    /**
+     * 任务线程池配置, 用于并发执行分片上传等任务
+     */
+    private Executor executor = new Executor();
+
+    /**
+     * 异步操作线程池配置, 用于 AsyncMinioTemplate
+     */
+    private Executor asyncExecutor = new Executor();
+
+    @Data
+    public static class Http {
+
+        /**
+         * 连接池最大空闲连接数。默认：64
+         */
+        private Integer maxIdleConnections = 64;
+
+        /**
+         * 空闲连接保活时间，单位为毫秒。默认：5分钟
+         */
+        private Long keepAliveDuration = 5 * 60 * 1000L;
+
+        /**
+         * HTTP协议，HTTP_1_1 或 HTTP_2，HTTP_2 只用于 https 端点，http 端点使用 HTTP_1_1。默认：HTTP_1_1
+         */
+        private HttpProtocol protocol = HttpProtocol.HTTP_1_1;
+
+        /**
+         * socket发送缓冲区大小，单位为字节。默认：系统默认值
+         */
+        private Integer sendBufferSize;
+
+        /**
+         * socket接收缓冲区大小，单位为字节。默认：系统默认值
+         */
+        private Integer receiveBufferSize;
+
+        /**
+         * 是否开启 TCP_NODELAY。默认：true
+         */
+        private boolean tcpNoDelay = Boolean.TRUE;
+
+        /**
+         * 是否记录HTTP层指标(连接、DNS、TLS握手、首字节时间、连接池状态)。默认：true
+         */
+        private boolean metricsEnabled = Boolean.TRUE;
+
+    }
+
+    @Data
+    public static class Multipart {
+
+        /**
+         * 分片大小，单位为字节，最小5MB；分片暂存在字节数组中，不能超过 2147483639 字节(约2GB)。默认：16MB
+         */
+        private Long partSize = 16 * 1024 * 1024L;
+
+        /**
+         * 单个对象同时上传的分片数。默认：4
+         */
+        private Integer parallelism = 4;
+
+        /**
+         * 分片缓冲区总数，所有上传共享，决定分片暂存的内存上限。默认：16
+         */
+        private Integer bufferCount = 16;
+
+        /**
+         * 单个分片上传失败后的重试次数，启用 minio.retry 时由重试拦截器按重试预算重试，此项不生效。默认：3
+         */
+        private Integer maxRetries = 3;
+
+    }
+
+    @Data
+    public static class Download {
+
+        /**
+         * 分段大小，单位为字节，大于该值的对象分段下载。默认：16MB
+         */
+        private Long segmentSize = 16 * 1024 * 1024L;
+
+        /**
+         * 单个对象同时下载的分段数，为1时不分段。默认：4
+         */
+        private Integer parallelism = 4;
+
+    }
+
+    @Data
+    public static class Listing {
+
+        /**
+         * 同时列出的前缀分片数。默认：8
+         */
+        private Integer parallelism = 8;
+
+        /**
+         * 结果队列容量，决定尚未被读取的对象数上限。默认：1000
+         */
+        private Integer queueCapacity = 1000;
+
+    }
+
+    @Data
+    public static class Remove {
+
+        /**
+         * 单批删除的对象数，最大1000。默认：1000
+         */
+        private Integer batchSize = 1000;
+
+        /**
+         * 同时执行的批次数。默认：4
+         */
+        private Integer concurrency = 4;
+
+    }
+
+    @Data
+    public static class Copy {
+
+        /**
+         * 同时执行的服务端复制数。默认：8
+         */
+        private Integer concurrency = 8;
+
+    }
+
+    @Data
+    public static class Cache {
+
+        /**
+         * 是否开启对象读缓存。默认：false
+         */
+        private boolean enabled = Boolean.FALSE;
+
+        /**
+         * 堆内缓存总字节数上限。默认：64MB
+         */
+        private Long maxBytes = 64 * 1024 * 1024L;
+
+        /**
+         * 可缓存的单个对象大小上限，单位为字节。默认：1MB
+         */
+        private Long maxObjectSize = 1024 * 1024L;
+
+        /**
+         * 再验证间隔，单位为毫秒，超过后以ETag校验对象是否变更。默认：30秒
+         */
+        private Long revalidateInterval = 30 * 1000L;
+
+        /**
+         * 磁盘缓存目录，缓存文件保存在其下的 minio-object-cache 子目录，启动时清空该子目录；为空时不启用磁盘缓存
+         */
+        private String diskDir;
+
+        /**
+         * 磁盘缓存总字节数上限。默认：1GB
+         */
+        private Long diskMaxBytes = 1024 * 1024 * 1024L;
+
+        /**
+         * 缓存范围，格式为 bucket 或 bucket/前缀，为空时缓存全部对象
+         */
+        private List<String> includes = new ArrayList<>();
+
+    }
+
+    @Data
+    public static class Metrics {
+
+        /**
+         * 操作耗时发布的百分位数，如 0.5、0.95、0.99。默认：不发布
+         */
+        private List<Double> percentiles = new ArrayList<>();
+
+        /**
+         * 是否发布百分位直方图，供监控系统聚合计算百分位数。默认：false
+         */
+        private boolean percentileHistogram = Boolean.FALSE;
+
+        /**
+         * 操作耗时的SLO边界，单位为毫秒，每个边界发布一个直方图桶。默认：不发布
+         */
+        private List<Long> slo = new ArrayList<>();
+
+    }
+
+    @Data
+    public static class StatCache {
+
+        /**
+         * 是否开启对象信息缓存。默认：false
+         */
+        private boolean enabled = Boolean.FALSE;
+
+        /**
+         * 最大缓存条目数。默认：10000
+         */
+        private Integer maxEntries = 10000;
+
+        /**
+         * 缓存有效期，单位为毫秒。默认：60秒
+         */
+        private Long ttl = 60 * 1000L;
+
+        /**
+         * 对象不存在结果的缓存有效期，单位为毫秒，为0时不缓存。默认：5秒
+         */
+        private Long negativeTtl = 5 * 1000L;
+
+    }
+
+    @Data
+    public static class PresignCache {
+
+        /**
+         * 是否开启预签名URL缓存。默认：false
+         */
+        private boolean enabled = Boolean.FALSE;
+
+        /**
+         * 最大缓存条目数。默认：10000
+         */
+        private Integer maxEntries = 10000;
+
+        /**
+         * 复用比例，URL在有效期的该比例内被复用。默认：0.5
+         */
+        private Double reuseRatio = 0.5D;
+
+    }
+
+    @Data
+    public static class Buffer {
+
+        /**
+         * 传输缓冲区大小，单位为字节。默认：64KB
+         */
+        private Integer bufferSize = 64 * 1024;
+
+        /**
+         * 缓冲区池保留的缓冲区上限，池耗尽时临时分配。默认：64
+         */
+        private Integer maxBuffers = 64;
+
+        /**
+         * 是否使用堆外(direct)缓冲区，适合写入文件通道的场景。默认：false
+         */
+        private boolean direct = Boolean.FALSE;
+
+    }
+
+    @Data
+    public static class Dedup {
+
+        /**
+         * 是否开启内容寻址上传，开启后自动命名的 MultipartFile 上传以内容哈希命名，内容相同则不重复上传。默认：false
+         */
+        private boolean enabled = Boolean.FALSE;
+
+        /**
+         * 内容寻址对象的名称前缀。默认：空
+         */
+        private String prefix = "";
+
+        /**
+         * 本地哈希索引的最大条目数，为0时不使用索引，每次以 statObject 判断对象是否存在。
+         * 索引命中在有效期内直接视为存在，期间被本模板以外删除的对象会被误判。默认：0
+         */
+        private Integer indexSize = 0;
+
+        /**
+         * 本地哈希索引条目的有效期，单位为毫秒。默认：10分钟
+         */
+        private Long indexTtl = 10 * 60 * 1000L;
+
+        /**
+         * 是否以条件写入(If-None-Match)上传单请求对象，服务端已存在时不覆盖。默认：true
+         */
+        private boolean conditionalPut = Boolean.TRUE;
+
+    }
+
+    @Data
+    public static class Resumable {
+
+        /**
+         * 是否开启可续传上传，开启后超过一个分片的文件上传会持久化上传状态，重试时只上传缺失的分片。默认：false
+         */
+        private boolean enabled = Boolean.FALSE;
+
+        /**
+         * 上传状态保存目录。默认：临时目录下的 minio-upload-state
+         */
+        private String stateDir;
+
+        /**
+         * 未完成的分片上传超过该时间未更新视为过期，单位为毫秒。默认：24小时
+         */
+        private Long staleAfter = 24 * 60 * 60 * 1000L;
+
+        /**
+         * 清理过期分片上传的间隔，单位为毫秒，为0时不清理; 只清理上传状态中记录的上传。默认：1小时
+         */
+        private Long cleanupInterval = 60 * 60 * 1000L;
+
+    }
+
+    @Data
+    public static class Retry {
+
+        /**
+         * 是否开启请求重试。默认：true
+         */
+        private boolean enabled = Boolean.TRUE;
+
+        /**
+         * 各类操作的最大尝试次数(含首次)，为1时不重试。默认：均为3
+         */
+        private Map<RetryOperation, Integer> maxAttempts = defaultMaxAttempts();
+
+        /**
+         * 首次重试的退避上限，单位为毫秒，之后每次翻倍，实际退避时间在0到上限之间随机。默认：100
+         */
+        private Long initialBackoff = 100L;
+
+        /**
+         * 退避上限，单位为毫秒。默认：5000
+         */
+        private Long maxBackoff = 5000L;
+
+        /**
+         * 重试预算的令牌容量，每次成功的请求归还1个令牌。默认：500
+         */
+        private Integer budgetCapacity = 500;
+
+        /**
+         * 每次重试消耗的令牌数，令牌不足时不再重试。默认：5
+         */
+        private Integer retryCost = 5;
+
+        private static Map<RetryOperation, Integer> defaultMaxAttempts() {
+            Map<RetryOperation, Integer> maxAttempts = new EnumMap<>(RetryOperation.class);
+            for (RetryOperation operation : RetryOperation.values()) {
+                maxAttempts.put(operation, 3);
+            }
+            return maxAttempts;
+        }
+
+    }
+
+    @Data
+    public static class CircuitBreaker {
+
+        /**
+         * 是否开启熔断。默认：true
+         */
+        private boolean enabled = Boolean.TRUE;
+
+        /**
+         * 是否按bucket分别熔断，关闭时按服务端熔断。默认：false
+         */
+        private boolean perBucket = Boolean.FALSE;
+
+        /**
+         * 打开熔断器的失败比例，单位为百分比。默认：50
+         */
+        private Integer failureRateThreshold = 50;
+
+        /**
+         * 计算失败比例的最少请求数。默认：20
+         */
+        private Integer minimumCalls = 20;
+
+        /**
+         * 统计失败比例的最近请求数。默认：100
+         */
+        private Integer windowSize = 100;
+
+        /**
+         * 熔断器打开后进入半开状态的等待时间，单位为毫秒。默认：30000
+         */
+        private Long waitDuration = 30000L;
+
+        /**
+         * 半开状态放行的试探请求数，全部成功后关闭熔断器。默认：3
+         */
+        private Integer halfOpenCalls = 3;
+
+    }
+
+    @Data
+    public static class Bulkhead {
+
+        /**
+         * 是否开启并发限制。开启后读取的许可一直持有到响应流关闭，未关闭的对象流会耗尽许可。默认：false
+         */
+        private boolean enabled = Boolean.FALSE;
+
+        /**
+         * 各类操作的最大并发请求数。默认：读取128，列举16，对象信息128，删除32，写入64，监听通知不限制
+         */
+        private Map<BulkheadOperation, Integer> maxConcurrent = defaultMaxConcurrent();
+
+        /**
+         * 等待并发许可的最长时间，单位为毫秒，超时后请求失败。默认：5000
+         */
+        private Long maxWait = 5000L;
+
+        private static Map<BulkheadOperation, Integer> defaultMaxConcurrent() {
+            Map<BulkheadOperation, Integer> maxConcurrent = new EnumMap<>(BulkheadOperation.class);
+            maxConcurrent.put(BulkheadOperation.READ, 128);
+            maxConcurrent.put(BulkheadOperation.LIST, 16);
+            maxConcurrent.put(BulkheadOperation.STAT, 128);
+            maxConcurrent.put(BulkheadOperation.DELETE, 32);
+            maxConcurrent.put(BulkheadOperation.WRITE, 64);
+            return maxConcurrent;
+        }
+
+    }
+
+    @Data
+    public static class Health {
+
+        /**
+         * 后台探测间隔，单位为毫秒，健康检查直接返回最近一次探测结果。默认：10000
+         */
+        private Long interval = 10 * 1000L;
+
+        /**
+         * 探测超时时间，单位为毫秒，探测进行超过该时间时报告为不可用。默认：5000
+         */
+        private Long timeout = 5000L;
+
+        /**
+         * 除默认bucket外需要检查的bucket。默认：无
+         */
+        private List<String> buckets = new ArrayList<>();
+
+        /**
+         * 计算探测耗时百分位数的最近探测次数。默认：100
+         */
+        private Integer historySize = 100;
+
+    }
+
+    @Data
+    public static class Notification {
+
+        /**
+         * 每个处理器的待处理通知队列容量，队列满时暂停读取通知流。默认：1000
+         */
+        private Integer queueCapacity = 1000;
+
+        /**
+         * 重新连接的初始退避时间，单位为毫秒。默认：1000
+         */
+        private Long initialBackoff = 1000L;
+
+        /**
+         * 重新连接的最大退避时间，单位为毫秒。默认：60000
+         */
+        private Long maxBackoff = 60 * 1000L;
+
+        /**
+         * 关闭时等待处理器处理完队列中剩余通知的最长时间，超时后丢弃，单位为毫秒。默认：10000
+         */
+        private Long shutdownTimeout = 10 * 1000L;
+
+        /**
+         * 处理器线程池配置
+         */
+        private Executor executor = defaultExecutor();
+
+        private static Executor defaultExecutor() {
+            Executor executor = new Executor();
+            executor.setCorePoolSize(2);
+            executor.setMaxPoolSize(8);
+            return executor;
+        }
+
+    }
+
+    @Data
+    public static class Executor {
+
+        /**
+         * 核心线程数。默认：8
+         */
+        private Integer corePoolSize = 8;
+
+        /**
+         * 最大线程数。默认：32
+         */
+        private Integer maxPoolSize = 32;
+
+        /**
+         * 任务队列容量，队列满时由提交任务的线程执行。默认：1024
+         */
+        private Integer queueCapacity = 1024;
+
+        /**
+         * 空闲线程存活时间，单位为毫秒。默认：60秒
+         */
+        private Long keepAliveTime = 60 * 1000L;
+
+    }
 
 }
@@ -0,0 +1,67 @@
+package cn.darkjrong.spring.boot.autoconfigure;
+
+import javax.net.SocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * minio socket 工厂
+ *
+ * <p>
+ * 在连接建立前为每个socket设置 TCP_NODELAY 与收发缓冲区大小
+ * </p>
+ *
+ * @author Rong.Jia
+ * @date 2022/03/27 10:32:05
+ */
+class MinioSocketFactory extends SocketFactory {
+
+    private final SocketFactory delegate = SocketFactory.getDefault();
+    private final MinioProperties.Http http;
+
+    MinioSocketFactory(MinioProperties.Http http) {
+        this.http = http;
+    }
+
+    @Override
+    public Socket createSocket() throws IOException {
+        return configure(delegate.createSocket());
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        return configure(delegate.createSocket(host, port));
+    }
+
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+        return configure(delegate.createSocket(host, port, localHost, localPort));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException {
+        return configure(delegate.createSocket(host, port));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+        return configure(delegate.createSocket(address, port, localAddress, localPort));
+    }
+
+    /**
+     * 设置socket参数
+     *
+     * @param socket socket
+     * @return {@link Socket}
+     * @throws IOException IO异常
+     */
+    private Socket configure(Socket socket) throws IOException {
+        socket.setTcpNoDelay(http.isTcpNoDelay());
+        if (http.getSendBufferSize() != null) socket.setSendBufferSize(http.getSendBufferSize());
+        if (http.getReceiveBufferSize() != null) socket.setReceiveBufferSize(http.getReceiveBufferSize());
+        return socket;
+    }
+
+
+}
@@ -0,0 +1,132 @@
+package cn.darkjrong.minio;
+
+import cn.darkjrong.minio.enums.BulkheadOperation;
+import cn.darkjrong.minio.exceptions.BulkheadFullException;
+import cn.darkjrong.spring.boot.autoconfigure.MinioProperties;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * 隔离舱拦截器测试
+ *
+ * @author Rong.Jia
+ * @date 2022/04/14 10:21:37
+ */
+public class BulkheadInterceptorTest {
+
+    private static final String ENDPOINT = "http://127.0.0.1:9000";
+
+    private MinioProperties.Bulkhead properties;
+
+    @Before
+    public void before() {
+        properties = new MinioProperties.Bulkhead();
+        properties.getMaxConcurrent().put(BulkheadOperation.READ, 1);
+        properties.setMaxWait(0L);
+    }
+
+    @Test
+    public void classify() {
+        assertEquals(BulkheadOperation.READ, BulkheadInterceptor.classify(get("/test/a.txt")));
+        assertEquals(BulkheadOperation.READ, BulkheadInterceptor.classify(get("/test/a.txt?versionId=1")));
+        assertEquals(BulkheadOperation.READ, BulkheadInterceptor.classify(get("/test?location=")));
+        assertEquals(BulkheadOperation.LIST, BulkheadInterceptor.classify(get("/")));
+        assertEquals(BulkheadOperation.LIST, BulkheadInterceptor.classify(get("/test")));
+        assertEquals(BulkheadOperation.LIST, BulkheadInterceptor.classify(get("/test/")));
+        assertEquals(BulkheadOperation.LIST, BulkheadInterceptor.classify(get("/test?list-type=2&prefix=a/")));
+        assertEquals(BulkheadOperation.LIST, BulkheadInterceptor.classify(get("/test?uploads=&prefix=a/")));
+        assertEquals(BulkheadOperation.LIST, BulkheadInterceptor.classify(get("/test/a.txt?uploadId=1")));
+        assertEquals(BulkheadOperation.NOTIFICATION, BulkheadInterceptor.classify(
+                get("/test?prefix=a/&suffix=.txt&events=s3:ObjectCreated:*")));
+        assertEquals(BulkheadOperation.STAT, BulkheadInterceptor.classify(request("/test/a.txt").head().build()));
+        assertEquals(BulkheadOperation.DELETE, BulkheadInterceptor.classify(request("/test/a.txt").delete().build()));
+        assertEquals(BulkheadOperation.DELETE, BulkheadInterceptor.classify(request("/test?delete=").post(body()).build()));
+        assertEquals(BulkheadOperation.WRITE, BulkheadInterceptor.classify(request("/test/a.txt").put(body()).build()));
+        assertEquals(BulkheadOperation.WRITE, BulkheadInterceptor.classify(request("/test/a.txt?uploads=").post(body()).build()));
+    }
+
+    @Test
+    public void permitHeldUntilBodyClosed() throws IOException {
+        BulkheadInterceptor interceptor = new BulkheadInterceptor(properties);
+
+        Response response = interceptor.intercept(StubChain.respond(get("/test/a.txt"), "hello"));
+        assertEquals(0, interceptor.getStats(BulkheadOperation.READ).getAvailable());
+
+        try {
+            interceptor.intercept(StubChain.respond(get("/test/b.txt"), "world"));
+            fail("许可用完时应拒绝请求");
+        } catch (BulkheadFullException e) {
+            assertEquals(1L, interceptor.getStats(BulkheadOperation.READ).getRejected());
+        }
+
+        assertEquals("hello", response.body().string());
+        assertEquals(1, interceptor.getStats(BulkheadOperation.READ).getAvailable());
+
+        // 重复关闭不会多归还许可
+        response.close();
+        assertEquals(1, interceptor.getStats(BulkheadOperation.READ).getAvailable());
+    }
+
+    @Test
+    public void permitReleasedWithoutBody() throws IOException {
+        BulkheadInterceptor interceptor = new BulkheadInterceptor(properties);
+
+        interceptor.intercept(StubChain.respond(ENDPOINT + "/test/a.txt", 404));
+        assertEquals(1, interceptor.getStats(BulkheadOperation.READ).getAvailable());
+    }
+
+    @Test
+    public void permitReleasedOnFailure() {
+        BulkheadInterceptor interceptor = new BulkheadInterceptor(properties);
+
+        try {
+            interceptor.intercept(StubChain.fail(ENDPOINT + "/test/a.txt", new SocketTimeoutException("timeout")));
+            fail("应抛出超时异常");
+        } catch (IOException e) {
+            assertEquals(1, interceptor.getStats(BulkheadOperation.READ).getAvailable());
+        }
+    }
+
+    @Test
+    public void operationsAreIsolated() throws IOException {
+        BulkheadInterceptor interceptor = new BulkheadInterceptor(properties);
+
+        Response response = interceptor.intercept(StubChain.respond(get("/test/a.txt"), "hello"));
+        Response notification = interceptor.intercept(StubChain.respond(
+                get("/test?prefix=a/&events=s3:ObjectCreated:*"), "{}"));
+        Response list = interceptor.intercept(StubChain.respond(get("/test?list-type=2"), "<ListBucketResult/>"));
+
+        assertEquals(0, interceptor.getStats(BulkheadOperation.READ).getAvailable());
+        assertEquals(15, interceptor.getStats(BulkheadOperation.LIST).getAvailable());
+        assertEquals(Integer.MAX_VALUE - 1, interceptor.getStats(BulkheadOperation.NOTIFICATION).getAvailable());
+
+        response.close();
+        notification.close();
+        list.close();
+        assertEquals(16, interceptor.getStats(BulkheadOperation.LIST).getAvailable());
+    }
+
+    private static Request get(String path) {
+        return request(path).get().build();
+    }
+
+    private static Request.Builder request(String path) {
+        return new Request.Builder().url(ENDPOINT + path);
+    }
+
+    private static RequestBody body() {
+        return RequestBody.create(new byte[0], MediaType.get("application/xml"));
+    }
+
+
+}
@@ -0,0 +1,160 @@
+package cn.darkjrong.minio;
+
+import cn.darkjrong.minio.enums.CircuitBreakerState;
+import cn.darkjrong.minio.exceptions.CircuitBreakerOpenException;
+import cn.darkjrong.spring.boot.autoconfigure.MinioProperties;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 熔断拦截器测试
+ *
+ * @author Rong.Jia
+ * @date 2022/04/14 09:45:03
+ */
+public class CircuitBreakerInterceptorTest {
+
+    private static final String URL = "http://127.0.0.1:9000/test/a.txt";
+    private static final String KEY = "http://127.0.0.1:9000";
+
+    private MinioProperties.CircuitBreaker properties;
+
+    @Before
+    public void before() {
+        properties = new MinioProperties.CircuitBreaker();
+        properties.setFailureRateThreshold(50);
+        properties.setMinimumCalls(4);
+        properties.setWindowSize(4);
+        properties.setWaitDuration(100L);
+        properties.setHalfOpenCalls(2);
+    }
+
+    @Test
+    public void opensWhenFailureRateReached() throws IOException {
+        CircuitBreakerInterceptor interceptor = new CircuitBreakerInterceptor(properties);
+
+        interceptor.intercept(StubChain.respond(URL, 200));
+        interceptor.intercept(StubChain.respond(URL, 503));
+        interceptor.intercept(StubChain.respond(URL, 200));
+        assertEquals(CircuitBreakerState.CLOSED, interceptor.getStates().get(KEY));
+
+        interceptor.intercept(StubChain.respond(URL, 500));
+        assertEquals(CircuitBreakerState.OPEN, interceptor.getStates().get(KEY));
+
+        try {
+            interceptor.intercept(StubChain.respond(URL, 200));
+            fail("熔断器打开时应拒绝请求");
+        } catch (CircuitBreakerOpenException e) {
+            assertEquals(1L, interceptor.getRejected());
+        }
+    }
+
+    @Test
+    public void clientErrorsCountAsSuccess() throws IOException {
+        CircuitBreakerInterceptor interceptor = new CircuitBreakerInterceptor(properties);
+
+        for (int i = 0; i < 8; i++) {
+            interceptor.intercept(StubChain.respond(URL, 404));
+        }
+        assertEquals(CircuitBreakerState.CLOSED, interceptor.getStates().get(KEY));
+    }
+
+    @Test
+    public void slidingWindowForgetsOldFailures() throws IOException {
+        CircuitBreakerInterceptor interceptor = new CircuitBreakerInterceptor(properties);
+
+        interceptor.intercept(StubChain.respond(URL, 503));
+        interceptor.intercept(StubChain.respond(URL, 200));
+        interceptor.intercept(StubChain.respond(URL, 200));
+        interceptor.intercept(StubChain.respond(URL, 200));
+
+        // 第五次成功挤出最早的失败, 窗口为 [200, 200, 200, 200]
+        interceptor.intercept(StubChain.respond(URL, 200));
+        interceptor.intercept(StubChain.respond(URL, 503));
+        interceptor.intercept(StubChain.respond(URL, 200));
+        assertEquals(CircuitBreakerState.CLOSED, interceptor.getStates().get(KEY));
+
+        // 窗口为 [200, 503, 200, 503], 失败率达到 50%
+        interceptor.intercept(StubChain.respond(URL, 503));
+        assertEquals(CircuitBreakerState.OPEN, interceptor.getStates().get(KEY));
+    }
+
+    @Test
+    public void halfOpenClosesAfterSuccessfulTrials() throws Exception {
+        CircuitBreakerInterceptor interceptor = new CircuitBreakerInterceptor(properties);
+        this.open(interceptor);
+
+        Thread.sleep(150L);
+        assertEquals(CircuitBreakerState.HALF_OPEN, interceptor.getStates().get(KEY));
+
+        interceptor.intercept(StubChain.respond(URL, 200));
+        assertEquals(CircuitBreakerState.HALF_OPEN, interceptor.getStates().get(KEY));
+        interceptor.intercept(StubChain.respond(URL, 200));
+        assertEquals(CircuitBreakerState.CLOSED, interceptor.getStates().get(KEY));
+    }
+
+    @Test
+    public void halfOpenReopensOnFailure() throws Exception {
+        CircuitBreakerInterceptor interceptor = new CircuitBreakerInterceptor(properties);
+        this.open(interceptor);
+
+        Thread.sleep(150L);
+        try {
+            interceptor.intercept(StubChain.fail(URL, new ConnectException("refused")));
+            fail("应抛出连接异常");
+        } catch (ConnectException e) {
+            assertEquals(CircuitBreakerState.OPEN, interceptor.getStates().get(KEY));
+        }
+    }
+
+    @Test
+    public void halfOpenLimitsTrialCalls() throws Exception {
+        properties.setHalfOpenCalls(1);
+        CircuitBreakerInterceptor interceptor = new CircuitBreakerInterceptor(properties);
+        this.open(interceptor);
+        Thread.sleep(150L);
+
+        // 试探请求进行中时, 其余请求被拒绝
+        interceptor.intercept(StubChain.respond(URL, 200).onProceed(() -> {
+            try {
+                interceptor.intercept(StubChain.respond(URL, 200));
+                fail("试探名额已用完时应拒绝请求");
+            } catch (CircuitBreakerOpenException e) {
+                assertTrue(e.getMessage().contains(KEY));
+            } catch (IOException e) {
+                fail(e.getMessage());
+            }
+        }));
+        assertEquals(CircuitBreakerState.CLOSED, interceptor.getStates().get(KEY));
+    }
+
+    @Test
+    public void perBucketBreakers() throws IOException {
+        properties.setPerBucket(true);
+        CircuitBreakerInterceptor interceptor = new CircuitBreakerInterceptor(properties);
+
+        for (int i = 0; i < 4; i++) {
+            interceptor.intercept(StubChain.respond("http://127.0.0.1:9000/broken/a.txt", 503));
+        }
+        interceptor.intercept(StubChain.respond(URL, 200));
+
+        assertEquals(CircuitBreakerState.OPEN, interceptor.getStates().get(KEY + "/broken"));
+        assertEquals(CircuitBreakerState.CLOSED, interceptor.getStates().get(KEY + "/test"));
+    }
+
+    private void open(CircuitBreakerInterceptor interceptor) throws IOException {
+        for (int i = 0; i < 4; i++) {
+            interceptor.intercept(StubChain.respond(URL, 503));
+        }
+        assertEquals(CircuitBreakerState.OPEN, interceptor.getStates().get(KEY));
+    }
+
+
+}
@@ -1,6 +1,5 @@
 package cn.darkjrong.minio;
 
-import cn.darkjrong.spring.boot.autoconfigure.MinioAutoConfiguration;
 import cn.darkjrong.spring.boot.autoconfigure.MinioFactoryBean;
 import cn.darkjrong.spring.boot.autoconfigure.MinioProperties;
 import io.minio.messages.Bucket;
@@ -8,6 +7,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.util.List;
 
 /**
@@ -29,7 +29,7 @@ public class MinioTemplateTest {
         properties.setSecretKey("minio123");
         properties.setBucketName("test");
 
-        MinioFactoryBean minioFactoryBean = new MinioAutoConfiguration(properties).minioFactoryBean();
+        MinioFactoryBean minioFactoryBean = new MinioFactoryBean(properties);
         minioFactoryBean.afterPropertiesSet();
         minioTemplate = minioFactoryBean.getObject();
 
@@ -57,6 +57,15 @@ public class MinioTemplateTest {
 
     }
 
+    @Test
+    public void getObjectToStream() throws Exception {
+
+        try (FileOutputStream out = new FileOutputStream("F:\\我的图片\\桌面\\2.jpeg")) {
+            System.out.println(minioTemplate.getObject("20220321/d3ce87f32d1d4521aa75def974a044b21647845867860.jpeg", out));
+        }
+
+    }
+
     @Test
     public void getFileUrl() {
 
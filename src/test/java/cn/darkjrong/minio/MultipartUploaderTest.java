@@ -0,0 +1,152 @@
+package cn.darkjrong.minio;
+
+import cn.darkjrong.spring.boot.autoconfigure.MinioProperties;
+import cn.hutool.core.thread.ThreadUtil;
+import com.google.common.collect.Multimap;
+import io.minio.AbortMultipartUploadResponse;
+import io.minio.CreateMultipartUploadResponse;
+import io.minio.MinioClient;
+import io.minio.ObjectWriteResponse;
+import io.minio.UploadPartResponse;
+import io.minio.messages.InitiateMultipartUploadResult;
+import io.minio.messages.Part;
+import okhttp3.Headers;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 分片上传引擎测试
+ *
+ * @author Rong.Jia
+ * @date 2022/04/15 09:36:27
+ */
+public class MultipartUploaderTest {
+
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+    private static final int BUFFER_COUNT = 4;
+
+    private ExecutorService executor;
+    private StubClient client;
+    private MultipartUploader uploader;
+
+    @Before
+    public void before() {
+        MinioProperties.Multipart multipart = new MinioProperties.Multipart();
+        multipart.setPartSize((long) PART_SIZE);
+        multipart.setParallelism(2);
+        multipart.setBufferCount(BUFFER_COUNT);
+        multipart.setMaxRetries(0);
+
+        // 单线程执行, 保证失败时其余分片仍在排队
+        executor = Executors.newSingleThreadExecutor();
+        client = new StubClient();
+        uploader = new MultipartUploader(client, executor, multipart, MinioTracer.NOOP, false);
+    }
+
+    @After
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void releasesBuffersWhenPartFails() throws Exception {
+        client.failingPart = 1;
+
+        try {
+            uploader.upload("test", "a.bin", new ByteArrayInputStream(new byte[PART_SIZE * 6]), null);
+            fail("分片失败时应抛出异常");
+        } catch (IOException e) {
+            assertEquals("part 1 failed", e.getMessage());
+        }
+
+        assertEquals(1, client.aborted.get());
+        assertEquals(BUFFER_COUNT, uploader.getBufferPool().available());
+    }
+
+    @Test
+    public void skipsQueuedPartsAfterFailure() throws Exception {
+        client.failingPart = 1;
+
+        try {
+            uploader.upload("test", "a.bin", new ByteArrayInputStream(new byte[PART_SIZE * 6]), null);
+            fail("分片失败时应抛出异常");
+        } catch (IOException e) {
+            assertTrue(client.uploaded.get() <= 2);
+        }
+
+        // 失败后缓冲区仍可正常使用
+        client.failingPart = 0;
+        uploader.upload("test", "b.bin", new ByteArrayInputStream(new byte[PART_SIZE * 3]), null);
+        assertEquals(BUFFER_COUNT, uploader.getBufferPool().available());
+    }
+
+    @Test
+    public void releasesBufferForSmallObject() throws Exception {
+        uploader.upload("test", "a.bin", new ByteArrayInputStream(new byte[1024]), null);
+        assertEquals(1, client.putObjects.get());
+        assertEquals(BUFFER_COUNT, uploader.getBufferPool().available());
+    }
+
+    /**
+     * 不发起网络请求的客户端, 指定序号的分片上传失败
+     */
+    private static class StubClient extends ExtendedMinioClient {
+
+        private final AtomicInteger uploaded = new AtomicInteger();
+        private final AtomicInteger aborted = new AtomicInteger();
+        private final AtomicInteger putObjects = new AtomicInteger();
+        private volatile int failingPart;
+
+        StubClient() {
+            super(MinioClient.builder().endpoint("http://127.0.0.1:9000").credentials("minio", "minio123").build());
+        }
+
+        @Override
+        CreateMultipartUploadResponse createMultipartUpload(String bucketName, String objectName,
+                                                            Multimap<String, String> headers) {
+            return new CreateMultipartUploadResponse(Headers.of(), bucketName, null, objectName,
+                    new InitiateMultipartUploadResult());
+        }
+
+        @Override
+        UploadPartResponse uploadPart(String bucketName, String objectName, Object data, long length,
+                                      String uploadId, int partNumber) throws Exception {
+            ThreadUtil.sleep(50L);
+            if (partNumber == failingPart) throw new IOException("part " + partNumber + " failed");
+            uploaded.incrementAndGet();
+            return new UploadPartResponse(Headers.of(), bucketName, null, objectName, uploadId, partNumber, "etag" + partNumber);
+        }
+
+        @Override
+        ObjectWriteResponse putObject(String bucketName, String objectName, Object data, long length,
+                                      Multimap<String, String> headers) {
+            putObjects.incrementAndGet();
+            return new ObjectWriteResponse(Headers.of(), bucketName, null, objectName, "etag", null);
+        }
+
+        @Override
+        ObjectWriteResponse completeMultipartUpload(String bucketName, String objectName,
+                                                    String uploadId, Part[] parts) {
+            return new ObjectWriteResponse(Headers.of(), bucketName, null, objectName, "etag", null);
+        }
+
+        @Override
+        AbortMultipartUploadResponse abortMultipartUpload(String bucketName, String objectName, String uploadId) {
+            aborted.incrementAndGet();
+            return new AbortMultipartUploadResponse(Headers.of(), bucketName, null, objectName, uploadId);
+        }
+    }
+
+
+}
@@ -0,0 +1,98 @@
+package cn.darkjrong.minio;
+
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.MinioClient;
+import io.minio.http.Method;
+import okhttp3.HttpUrl;
+import org.junit.Test;
+
+import java.net.URL;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 预签名URL签名器测试, 与 minio 客户端生成的URL逐字比较
+ *
+ * @author Rong.Jia
+ * @date 2022/04/14 16:05:12
+ */
+public class PresignedUrlSignerTest {
+
+    private static final String ACCESS_KEY = "minio";
+    private static final String SECRET_KEY = "minio123";
+    private static final String BUCKET_NAME = "test";
+    private static final int EXPIRES = 3600;
+
+    private static final DateTimeFormatter AMZ_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    private static final String[] OBJECT_NAMES = {
+            "a.txt",
+            "dir/sub/a.txt",
+            "dir/a b c.txt",
+            "中文目录/中文 文件.txt",
+            "a+b=c&d;e,f(1)!*'~@$.txt",
+            "dir//a%20b.txt",
+            "/leading.txt",
+            "dir/"
+    };
+
+    @Test
+    public void matchesMinioClient() throws Exception {
+        this.assertMatches("http://127.0.0.1:9000", "us-east-1");
+    }
+
+    @Test
+    public void matchesMinioClientWithOtherRegion() throws Exception {
+        this.assertMatches("http://127.0.0.1:9000", "cn-north-1");
+    }
+
+    @Test
+    public void matchesMinioClientWithDefaultPort() throws Exception {
+        this.assertMatches("https://play.min.io", "us-east-1");
+        this.assertMatches("https://play.min.io:443", "us-east-1");
+    }
+
+    @Test
+    public void signingKeyFollowsRegion() throws Exception {
+        PresignedUrlSigner signer = new PresignedUrlSigner(new URL("http://127.0.0.1:9000"), ACCESS_KEY, SECRET_KEY);
+        for (String region : new String[]{"us-east-1", "cn-north-1", "us-east-1"}) {
+            MinioClient minioClient = client("http://127.0.0.1:9000", region);
+            String expected = minioClient.getPresignedObjectUrl(args("a.txt"));
+            assertEquals(expected, signer.presign(Method.GET.name(), region, BUCKET_NAME, "a.txt", EXPIRES, signedAt(expected)));
+        }
+    }
+
+    /**
+     * 以 minio 客户端签名时的时间签名, 结果应与其完全一致
+     */
+    private void assertMatches(String endpoint, String region) throws Exception {
+        MinioClient minioClient = client(endpoint, region);
+        PresignedUrlSigner signer = new PresignedUrlSigner(new URL(endpoint), ACCESS_KEY, SECRET_KEY);
+
+        for (String objectName : OBJECT_NAMES) {
+            String expected = minioClient.getPresignedObjectUrl(args(objectName));
+            String actual = signer.presign(Method.GET.name(), region, BUCKET_NAME, objectName, EXPIRES, signedAt(expected));
+            assertEquals(objectName, expected, actual);
+        }
+    }
+
+    private static MinioClient client(String endpoint, String region) {
+        return MinioClient.builder().endpoint(endpoint).region(region).credentials(ACCESS_KEY, SECRET_KEY).build();
+    }
+
+    private static GetPresignedObjectUrlArgs args(String objectName) {
+        return GetPresignedObjectUrlArgs.builder()
+                .method(Method.GET).bucket(BUCKET_NAME).object(objectName).expiry(EXPIRES).build();
+    }
+
+    private static ZonedDateTime signedAt(String url) {
+        String amzDate = HttpUrl.get(url).queryParameter("X-Amz-Date");
+        return LocalDateTime.parse(amzDate, AMZ_DATE_FORMAT).atZone(ZoneOffset.UTC);
+    }
+
+
+}
@@ -0,0 +1,119 @@
+package cn.darkjrong.minio;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 拦截器测试用的请求链, 不发起网络请求, 直接返回指定状态码的响应或抛出指定异常
+ *
+ * @author Rong.Jia
+ * @date 2022/04/14 09:32:18
+ */
+class StubChain implements Interceptor.Chain {
+
+    private static final OkHttpClient CLIENT = new OkHttpClient();
+
+    private final Request request;
+    private final int code;
+    private final IOException exception;
+    private final String body;
+    private Runnable onProceed;
+
+    private StubChain(Request request, int code, IOException exception, String body) {
+        this.request = request;
+        this.code = code;
+        this.exception = exception;
+        this.body = body;
+    }
+
+    static StubChain respond(String url, int code) {
+        return new StubChain(new Request.Builder().url(url).build(), code, null, null);
+    }
+
+    static StubChain respond(Request request, String body) {
+        return new StubChain(request, 200, null, body);
+    }
+
+    static StubChain fail(String url, IOException exception) {
+        return new StubChain(new Request.Builder().url(url).build(), 0, exception, null);
+    }
+
+    /**
+     * 请求进行中时执行的操作, 在返回响应或抛出异常之前执行
+     */
+    StubChain onProceed(Runnable onProceed) {
+        this.onProceed = onProceed;
+        return this;
+    }
+
+    @Override
+    public Request request() {
+        return request;
+    }
+
+    @Override
+    public Response proceed(Request request) throws IOException {
+        if (onProceed != null) onProceed.run();
+        if (exception != null) throw exception;
+
+        Response.Builder builder = new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("stub");
+        if (body != null) builder.body(ResponseBody.create(body, MediaType.get("text/plain")));
+        return builder.build();
+    }
+
+    @Override
+    public Connection connection() {
+        return null;
+    }
+
+    @Override
+    public Call call() {
+        return CLIENT.newCall(request);
+    }
+
+    @Override
+    public int connectTimeoutMillis() {
+        return 0;
+    }
+
+    @Override
+    public Interceptor.Chain withConnectTimeout(int timeout, TimeUnit unit) {
+        return this;
+    }
+
+    @Override
+    public int readTimeoutMillis() {
+        return 0;
+    }
+
+    @Override
+    public Interceptor.Chain withReadTimeout(int timeout, TimeUnit unit) {
+        return this;
+    }
+
+    @Override
+    public int writeTimeoutMillis() {
+        return 0;
+    }
+
+    @Override
+    public Interceptor.Chain withWriteTimeout(int timeout, TimeUnit unit) {
+        return this;
+    }
+
+
+}